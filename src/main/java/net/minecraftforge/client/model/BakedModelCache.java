@@ -0,0 +1,483 @@
+package net.minecraftforge.client.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.block.model.IBakedModel;
+import net.minecraft.client.renderer.block.model.ItemCameraTransforms;
+import net.minecraft.client.renderer.block.model.ItemOverrideList;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+import net.minecraft.client.renderer.vertex.VertexFormatElement;
+import net.minecraft.client.resources.AbstractResourcePack;
+import net.minecraft.client.resources.FallbackResourceManager;
+import net.minecraft.client.resources.IResourceManager;
+import net.minecraft.client.resources.IResourcePack;
+import net.minecraft.client.resources.SimpleReloadableResourceManager;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.ForgeVersion;
+import net.minecraftforge.fml.common.FMLContainerHolder;
+import net.minecraftforge.fml.common.FMLLog;
+import net.minecraftforge.fml.common.Loader;
+import net.minecraftforge.fml.common.ModContainer;
+import net.minecraftforge.fml.common.ObfuscationReflectionHelper;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.Level;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Keeps the quads of baked models between launches. The cache file is only used when its fingerprint matches,
+ * which covers every resource pack the resource manager reads from, the loaded mods and the registered model loaders,
+ * so any change to the inputs starts over with an empty cache.
+ *
+ * Texture coordinates are stored relative to their sprite and the sprite by name, the quads stay valid when the
+ * texture atlas is laid out differently. Cached entries are only decoded when their model first asks for its quads.
+ */
+public final class BakedModelCache
+{
+    private static final int MAGIC = 0x464D4243;
+    private static final int VERSION = 1;
+    private static final VertexFormat[] FORMATS = { DefaultVertexFormats.ITEM, DefaultVertexFormats.BLOCK };
+
+    private final File file;
+    private final String fingerprint;
+    private final Map<String, byte[]> loaded;
+    // Everything looked up or stored during this launch, the next cache file is written from this
+    private final Map<String, byte[]> used = Maps.newConcurrentMap();
+    private volatile boolean changed;
+
+    private BakedModelCache(File file, String fingerprint, Map<String, byte[]> loaded)
+    {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        this.loaded = loaded;
+    }
+
+    /**
+     * Reads the cache file, a missing or unreadable file or one with a different fingerprint gives an empty cache.
+     */
+    public static BakedModelCache open(File file, String fingerprint)
+    {
+        Map<String, byte[]> loaded = Maps.newHashMap();
+        if(file.isFile())
+        {
+            DataInputStream in = null;
+            try
+            {
+                in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+                if(in.readInt() == MAGIC && in.readInt() == VERSION && in.readUTF().equals(fingerprint))
+                {
+                    int count = in.readInt();
+                    for(int i = 0; i < count; i++)
+                    {
+                        String key = in.readUTF();
+                        byte[] data = new byte[in.readInt()];
+                        in.readFully(data);
+                        loaded.put(key, data);
+                    }
+                }
+            }
+            catch(IOException e)
+            {
+                FMLLog.log(Level.WARN, e, "Could not read the baked model cache %s, models will be baked again", file);
+                loaded.clear();
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+        }
+        return new BakedModelCache(file, fingerprint, loaded);
+    }
+
+    public int size()
+    {
+        return loaded.size();
+    }
+
+    /**
+     * @return The encoded quads stored for the key, or null
+     */
+    public byte[] get(String key)
+    {
+        byte[] data = loaded.get(key);
+        if(data != null)
+        {
+            used.put(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * Stores the quads of a freshly baked model.
+     *
+     * @return false if the model has quads in a vertex format the cache can't store
+     */
+    public boolean put(String key, IBakedModel model)
+    {
+        byte[] data;
+        try
+        {
+            data = encode(model);
+        }
+        catch(IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+        if(data == null)
+        {
+            return false;
+        }
+        used.put(key, data);
+        changed = true;
+        return true;
+    }
+
+    /**
+     * Writes the entries used during this launch, if anything was baked or some cached entries went unused.
+     */
+    public void save()
+    {
+        if(!changed && used.size() == loaded.size())
+        {
+            return;
+        }
+        File dir = file.getParentFile();
+        if(dir != null && !dir.isDirectory() && !dir.mkdirs())
+        {
+            FMLLog.warning("Could not create the baked model cache directory %s", dir);
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmp))));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint);
+            out.writeInt(used.size());
+            for(Map.Entry<String, byte[]> e : used.entrySet())
+            {
+                out.writeUTF(e.getKey());
+                out.writeInt(e.getValue().length);
+                out.write(e.getValue());
+            }
+            out.close();
+            out = null;
+            if(file.exists() && !file.delete() || !tmp.renameTo(file))
+            {
+                FMLLog.warning("Could not replace the baked model cache %s", file);
+            }
+        }
+        catch(IOException e)
+        {
+            FMLLog.log(Level.WARN, e, "Could not write the baked model cache %s", file);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(out);
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Encodes the general quads and the quads of every side, with the texture coordinates relative to their sprite.
+     *
+     * @return The encoded quads, or null if a quad uses a vertex format other than {@link DefaultVertexFormats#ITEM} or {@link DefaultVertexFormats#BLOCK}
+     */
+    public static byte[] encode(IBakedModel model) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        if(!writeQuads(out, model.getQuads(null, null, 0)))
+        {
+            return null;
+        }
+        for(EnumFacing side : EnumFacing.values())
+        {
+            if(!writeQuads(out, model.getQuads(null, side, 0)))
+            {
+                return null;
+            }
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static boolean writeQuads(DataOutputStream out, List<BakedQuad> quads) throws IOException
+    {
+        out.writeInt(quads.size());
+        for(BakedQuad quad : quads)
+        {
+            int format = Arrays.asList(FORMATS).indexOf(quad.getFormat());
+            if(format < 0)
+            {
+                return false;
+            }
+            TextureAtlasSprite sprite = quad.getSprite();
+            out.writeByte(format);
+            out.writeInt(quad.getTintIndex());
+            out.writeByte(quad.getFace() == null ? -1 : quad.getFace().ordinal());
+            out.writeBoolean(quad.shouldApplyDiffuseLighting());
+            out.writeUTF(sprite.getIconName());
+            int[] data = quad.getVertexData().clone();
+            int stride = quad.getFormat().getNextOffset() / 4;
+            int uv = getUvOffset(quad.getFormat());
+            float du = sprite.getMaxU() - sprite.getMinU();
+            float dv = sprite.getMaxV() - sprite.getMinV();
+            for(int v = uv; v + 1 < data.length; v += stride)
+            {
+                data[v] = Float.floatToRawIntBits(du == 0 ? 0 : (Float.intBitsToFloat(data[v]) - sprite.getMinU()) / du * 16);
+                data[v + 1] = Float.floatToRawIntBits(dv == 0 ? 0 : (Float.intBitsToFloat(data[v + 1]) - sprite.getMinV()) / dv * 16);
+            }
+            out.writeInt(data.length);
+            for(int i : data)
+            {
+                out.writeInt(i);
+            }
+        }
+        return true;
+    }
+
+    private static int getUvOffset(VertexFormat format)
+    {
+        for(int e = 0; e < format.getElementCount(); e++)
+        {
+            VertexFormatElement element = format.getElement(e);
+            if(element.getUsage() == VertexFormatElement.EnumUsage.UV && element.getIndex() == 0)
+            {
+                return format.getOffset(e) / 4;
+            }
+        }
+        throw new IllegalArgumentException("vertex format without texture coordinates: " + format);
+    }
+
+    /**
+     * Decodes quads written by {@link #encode(IBakedModel)}, mapping the texture coordinates onto the sprites returned by the texture getter.
+     *
+     * @return The general quads followed by the quads of each side, in {@link EnumFacing} order
+     */
+    public static List<List<BakedQuad>> decode(byte[] bytes, Function<ResourceLocation, TextureAtlasSprite> textureGetter) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        Map<String, TextureAtlasSprite> sprites = Maps.newHashMap();
+        List<List<BakedQuad>> ret = Lists.newArrayListWithCapacity(EnumFacing.values().length + 1);
+        for(int list = 0; list <= EnumFacing.values().length; list++)
+        {
+            int count = in.readInt();
+            ImmutableList.Builder<BakedQuad> quads = ImmutableList.builder();
+            for(int q = 0; q < count; q++)
+            {
+                VertexFormat format = FORMATS[in.readByte()];
+                int tint = in.readInt();
+                int face = in.readByte();
+                boolean diffuse = in.readBoolean();
+                String name = in.readUTF();
+                TextureAtlasSprite sprite = sprites.get(name);
+                if(sprite == null)
+                {
+                    sprite = textureGetter.apply(new ResourceLocation(name));
+                    sprites.put(name, sprite);
+                }
+                int[] data = new int[in.readInt()];
+                for(int i = 0; i < data.length; i++)
+                {
+                    data[i] = in.readInt();
+                }
+                int stride = format.getNextOffset() / 4;
+                for(int v = getUvOffset(format); v + 1 < data.length; v += stride)
+                {
+                    data[v] = Float.floatToRawIntBits(sprite.getInterpolatedU(Float.intBitsToFloat(data[v])));
+                    data[v + 1] = Float.floatToRawIntBits(sprite.getInterpolatedV(Float.intBitsToFloat(data[v + 1])));
+                }
+                quads.add(new BakedQuad(data, tint, face < 0 ? null : EnumFacing.values()[face], sprite, diffuse, format));
+            }
+            ret.add(quads.build());
+        }
+        return ret;
+    }
+
+    /**
+     * Hashes everything that decides what the baked quads look like: the files behind every resource pack of the
+     * resource manager, the loaded mods and the registered model loaders.
+     *
+     * @return The fingerprint, or null if the resource manager's packs can't be listed
+     */
+    public static String fingerprint(IResourceManager manager)
+    {
+        if(!(manager instanceof SimpleReloadableResourceManager))
+        {
+            return null;
+        }
+        Hasher hasher = Hashing.sha1().newHasher();
+        hasher.putInt(VERSION);
+        hasher.putString(ForgeVersion.getVersion(), Charsets.UTF_8);
+        Map<String, FallbackResourceManager> domains = ObfuscationReflectionHelper.getPrivateValue(SimpleReloadableResourceManager.class, (SimpleReloadableResourceManager)manager, "domainResourceManagers", "field_110548_a");
+        List<String> names = Lists.newArrayList(domains.keySet());
+        Collections.sort(names);
+        for(String domain : names)
+        {
+            hasher.putString(domain, Charsets.UTF_8);
+            List<IResourcePack> packs = ObfuscationReflectionHelper.getPrivateValue(FallbackResourceManager.class, domains.get(domain), "resourcePacks", "field_110540_a");
+            for(IResourcePack pack : packs)
+            {
+                hasher.putString(pack.getClass().getName(), Charsets.UTF_8);
+                hasher.putString(String.valueOf(pack.getPackName()), Charsets.UTF_8);
+                if(pack instanceof FMLContainerHolder)
+                {
+                    putFile(hasher, ((FMLContainerHolder)pack).getFMLContainer().getSource());
+                }
+                else if(pack instanceof AbstractResourcePack)
+                {
+                    File path = ObfuscationReflectionHelper.getPrivateValue(AbstractResourcePack.class, (AbstractResourcePack)pack, "resourcePackFile", "field_110597_b");
+                    putFile(hasher, path);
+                }
+            }
+        }
+        for(ModContainer mod : Loader.instance().getActiveModList())
+        {
+            hasher.putString(mod.getModId(), Charsets.UTF_8);
+            hasher.putString(String.valueOf(mod.getVersion()), Charsets.UTF_8);
+            putFile(hasher, mod.getSource());
+        }
+        for(String loader : ModelLoaderRegistry.getLoaderNames())
+        {
+            hasher.putString(loader, Charsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    // Size and modification time stand in for the contents, reading every file of every pack would cost more than baking
+    private static void putFile(Hasher hasher, File file)
+    {
+        if(file == null)
+        {
+            return;
+        }
+        hasher.putString(file.getPath(), Charsets.UTF_8);
+        if(file.isDirectory())
+        {
+            File[] children = file.listFiles();
+            if(children != null)
+            {
+                Arrays.sort(children);
+                for(File child : children)
+                {
+                    putFile(hasher, child);
+                }
+            }
+        }
+        else
+        {
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+    }
+
+    /**
+     * A baked model whose quads come from the cache, decoded when they are first needed.
+     */
+    public static class CachedBakedModel implements IBakedModel
+    {
+        private final byte[] data;
+        private final Function<ResourceLocation, TextureAtlasSprite> textureGetter;
+        private final boolean ambientOcclusion;
+        private final boolean gui3d;
+        private final TextureAtlasSprite particle;
+        private final ItemCameraTransforms transforms;
+        private final ItemOverrideList overrides;
+        private volatile List<List<BakedQuad>> quads;
+
+        public CachedBakedModel(byte[] data, Function<ResourceLocation, TextureAtlasSprite> textureGetter, boolean ambientOcclusion, boolean gui3d, TextureAtlasSprite particle, ItemCameraTransforms transforms, ItemOverrideList overrides)
+        {
+            this.data = data;
+            this.textureGetter = textureGetter;
+            this.ambientOcclusion = ambientOcclusion;
+            this.gui3d = gui3d;
+            this.particle = particle;
+            this.transforms = transforms;
+            this.overrides = overrides;
+        }
+
+        public List<BakedQuad> getQuads(IBlockState state, EnumFacing side, long rand)
+        {
+            List<List<BakedQuad>> quads = this.quads;
+            if(quads == null)
+            {
+                // Chunk render threads may get here at the same time, decoding twice is harmless
+                try
+                {
+                    quads = decode(data, textureGetter);
+                }
+                catch(IOException e)
+                {
+                    throw new IllegalStateException("corrupt baked model cache entry", e);
+                }
+                this.quads = quads;
+            }
+            return quads.get(side == null ? 0 : side.ordinal() + 1);
+        }
+
+        public boolean isAmbientOcclusion()
+        {
+            return ambientOcclusion;
+        }
+
+        public boolean isGui3d()
+        {
+            return gui3d;
+        }
+
+        public boolean isBuiltInRenderer()
+        {
+            return false;
+        }
+
+        public TextureAtlasSprite getParticleTexture()
+        {
+            return particle;
+        }
+
+        public ItemCameraTransforms getItemCameraTransforms()
+        {
+            return transforms;
+        }
+
+        public ItemOverrideList getOverrides()
+        {
+            return overrides;
+        }
+    }
+
+    static File getDefaultFile(File gameDir)
+    {
+        return new File(new File(gameDir, "modelcache"), "baked.bin");
+    }
+}
@@ -12,6 +12,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
@@ -83,6 +89,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -93,13 +100,18 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public final class ModelLoader extends ModelBakery
 {
-    private final Map<ModelResourceLocation, IModel> stateModels = Maps.newHashMap();
-    private final Set<ModelResourceLocation> missingVariants = Sets.newHashSet();
-    private final Map<ResourceLocation, Exception> loadingExceptions = Maps.newHashMap();
+    // Concurrent, models loaded in parallel register their override models and report their failures from their loading threads
+    private final Map<ModelResourceLocation, IModel> stateModels = Maps.newConcurrentMap();
+    private final Set<ModelResourceLocation> missingVariants = Sets.newSetFromMap(Maps.<ModelResourceLocation, Boolean>newConcurrentMap());
+    private final Map<ResourceLocation, Exception> loadingExceptions = Maps.newConcurrentMap();
+    private final Object blockDefinitionLock = new Object();
     private IModel missingModel = null;
+    // Only set while setupModelRegistry bakes, models baked later for other states always bake their quads
+    private BakedModelCache bakedModelCache = null;
 
     private boolean isLoading = false;
     public boolean isLoading()
@@ -142,27 +154,43 @@ public final class ModelLoader extends ModelBakery
             }
         });
 
+        if(ForgeModContainer.bakedModelCache)
+        {
+            String fingerprint = BakedModelCache.fingerprint(resourceManager);
+            if(fingerprint != null)
+            {
+                bakedModelCache = BakedModelCache.open(BakedModelCache.getDefaultFile(Minecraft.getMinecraft().mcDataDir), fingerprint);
+                FMLLog.fine("Loaded %d cached baked models", bakedModelCache.size());
+            }
+        }
+
         IBakedModel missingBaked = missingModel.bake(missingModel.getDefaultState(), DefaultVertexFormats.ITEM, DefaultTextureGetter.INSTANCE);
         Map<IModel, IBakedModel> bakedModels = Maps.newHashMap();
         HashMultimap<IModel, ModelResourceLocation> models = HashMultimap.create();
         Multimaps.invertFrom(Multimaps.forMap(stateModels), models);
 
-        ProgressBar bakeBar = ProgressManager.push("ModelLoader: baking", models.keySet().size());
-
-        for(IModel model : models.keySet())
+        if(ForgeModContainer.parallelModelBaking)
         {
-            bakeBar.step("[" + Joiner.on(", ").join(models.get(model)) + "]");
-            if(model == getMissingModel())
-            {
-                bakedModels.put(model, missingBaked);
-            }
-            else
+            bakeModelsParallel(models.keySet(), missingBaked, bakedModels);
+        }
+        else
+        {
+            ProgressBar bakeBar = ProgressManager.push("ModelLoader: baking", models.keySet().size());
+
+            for(IModel model : models.keySet())
             {
-                bakedModels.put(model, model.bake(model.getDefaultState(), DefaultVertexFormats.ITEM, DefaultTextureGetter.INSTANCE));
+                bakeBar.step("[" + Joiner.on(", ").join(models.get(model)) + "]");
+                bakedModels.put(model, bakeModel(model, missingBaked));
             }
+
+            ProgressManager.pop(bakeBar);
         }
 
-        ProgressManager.pop(bakeBar);
+        if(bakedModelCache != null)
+        {
+            bakedModelCache.save();
+            bakedModelCache = null;
+        }
 
         for (Entry<ModelResourceLocation, IModel> e : stateModels.entrySet())
         {
@@ -171,6 +199,80 @@ public final class ModelLoader extends ModelBakery
         return bakedRegistry;
     }
 
+    private IBakedModel bakeModel(IModel model, IBakedModel missingBaked)
+    {
+        if(model == getMissingModel())
+        {
+            return missingBaked;
+        }
+        return model.bake(model.getDefaultState(), DefaultVertexFormats.ITEM, DefaultTextureGetter.INSTANCE);
+    }
+
+    /**
+     * Bakes the models in batches on a pool of threads, the progress bar advances once per finished batch.
+     * Baking only reads the stitched texture map, and models loaded on demand go through the synchronized
+     * loading in {@link ModelLoaderRegistry}, so the result is the same as baking them one after the other.
+     */
+    private void bakeModelsParallel(Set<IModel> models, final IBakedModel missingBaked, Map<IModel, IBakedModel> bakedModels)
+    {
+        final List<IModel> pending = Lists.newArrayList(models);
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        // A few batches per thread keeps the threads busy when some models take much longer than others
+        final int batchSize = Math.max(1, (pending.size() + threads * 8 - 1) / (threads * 8));
+        int batchCount = (pending.size() + batchSize - 1) / batchSize;
+
+        ProgressBar bakeBar = ProgressManager.push("ModelLoader: baking", batchCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Model Baker #%d").setDaemon(true).build());
+        try
+        {
+            CompletionService<Integer> completion = new ExecutorCompletionService<Integer>(executor);
+            final IBakedModel[] baked = new IBakedModel[pending.size()];
+            for(int batch = 0; batch < batchCount; batch++)
+            {
+                final int start = batch * batchSize;
+                final int end = Math.min(start + batchSize, pending.size());
+                completion.submit(new Callable<Integer>()
+                {
+                    public Integer call()
+                    {
+                        for(int i = start; i < end; i++)
+                        {
+                            baked[i] = bakeModel(pending.get(i), missingBaked);
+                        }
+                        return end - start;
+                    }
+                });
+            }
+            int done = 0;
+            for(int batch = 0; batch < batchCount; batch++)
+            {
+                try
+                {
+                    done += completion.take().get();
+                }
+                catch(ExecutionException e)
+                {
+                    throw Throwables.propagate(e.getCause());
+                }
+                catch(InterruptedException e)
+                {
+                    throw Throwables.propagate(e);
+                }
+                bakeBar.step(done + "/" + pending.size() + " models");
+            }
+            // Written by the baking threads, visible here through the completed futures
+            for(int i = 0; i < baked.length; i++)
+            {
+                bakedModels.put(pending.get(i), baked[i]);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        ProgressManager.pop(bakeBar);
+    }
+
     // NOOP, replaced by dependency resolution
     @Override
     protected void loadVariantModels() {}
@@ -200,6 +302,16 @@ public final class ModelLoader extends ModelBakery
 
         BlockStateMapper mapper = this.blockModelShapes.getBlockStateMapper();
 
+        if(ForgeModContainer.parallelModelLoading)
+        {
+            Set<ModelResourceLocation> variants = Sets.newHashSet();
+            for(Block block : blocks)
+            {
+                variants.addAll(mapper.getVariants(block).values());
+            }
+            ModelLoaderRegistry.loadModels(variants);
+        }
+
         for(Block block : blocks)
         {
             blockBar.step(block.getRegistryName().toString());
@@ -246,7 +358,11 @@ public final class ModelLoader extends ModelBakery
     {
         try
         {
-            return super.getModelBlockDefinition(location);
+            // The vanilla definition cache is a plain map, and variants are loaded from several threads when loading in parallel
+            synchronized(blockDefinitionLock)
+            {
+                return super.getModelBlockDefinition(location);
+            }
         }
         catch (Exception exception)
         {
@@ -281,6 +397,19 @@ public final class ModelLoader extends ModelBakery
             }
         });
 
+        if(ForgeModContainer.parallelModelLoading)
+        {
+            Set<ResourceLocation> files = Sets.newHashSet();
+            for(Item item : items)
+            {
+                for(String s : getVariantNames(item))
+                {
+                    files.add(getItemLocation(s));
+                }
+            }
+            ModelLoaderRegistry.loadModels(files);
+        }
+
         ProgressBar itemBar = ProgressManager.push("ModelLoader: items", items.size());
         for(Item item : items)
         {
@@ -523,34 +652,50 @@ public final class ModelLoader extends ModelBakery
         {
             final TRSRTransformation baseState = modelState.apply(Optional.<IModelPart>absent()).or(TRSRTransformation.identity());
             TextureAtlasSprite particle = bakedTextureGetter.apply(new ResourceLocation(model.resolveTextureName("particle")));
-            SimpleBakedModel.Builder builder = (new SimpleBakedModel.Builder(model, model.createOverrides())).setTexture(particle);
-            for(int i = 0; i < model.getElements().size(); i++)
+            BakedModelCache cache = bakedModelCache;
+            String cacheKey = cache == null ? null : getCacheKey(model, baseState, newTransforms, format, uvLocked);
+            byte[] cached = cacheKey == null ? null : cache.get(cacheKey);
+            IBakedModel baked;
+            if(cached != null)
             {
-                BlockPart part = model.getElements().get(i);
-                TRSRTransformation transformation = baseState;
-                if(newTransforms.get(i) != null)
-                {
-                    transformation = transformation.compose(newTransforms.get(i));
-                    BlockPartRotation rot = part.partRotation;
-                    if(rot == null) rot = new BlockPartRotation(new org.lwjgl.util.vector.Vector3f(), EnumFacing.Axis.Y, 0, false);
-                    part = new BlockPart(part.positionFrom, part.positionTo, part.mapFaces, rot, part.shade);
-                }
-                for(Map.Entry<EnumFacing, BlockPartFace> e : part.mapFaces.entrySet())
+                baked = new BakedModelCache.CachedBakedModel(cached, bakedTextureGetter, model.isAmbientOcclusion(), model.isGui3d(), particle, model.getAllTransforms(), model.createOverrides());
+            }
+            else
+            {
+                SimpleBakedModel.Builder builder = (new SimpleBakedModel.Builder(model, model.createOverrides())).setTexture(particle);
+                for(int i = 0; i < model.getElements().size(); i++)
                 {
-                    TextureAtlasSprite textureatlassprite1 = bakedTextureGetter.apply(new ResourceLocation(model.resolveTextureName(e.getValue().texture)));
-
-                    if (e.getValue().cullFace == null || !TRSRTransformation.isInteger(transformation.getMatrix()))
+                    BlockPart part = model.getElements().get(i);
+                    TRSRTransformation transformation = baseState;
+                    if(newTransforms.get(i) != null)
                     {
-                        builder.addGeneralQuad(makeBakedQuad(part, e.getValue(), textureatlassprite1, e.getKey(), transformation, uvLocked));
+                        transformation = transformation.compose(newTransforms.get(i));
+                        BlockPartRotation rot = part.partRotation;
+                        if(rot == null) rot = new BlockPartRotation(new org.lwjgl.util.vector.Vector3f(), EnumFacing.Axis.Y, 0, false);
+                        part = new BlockPart(part.positionFrom, part.positionTo, part.mapFaces, rot, part.shade);
                     }
-                    else
+                    for(Map.Entry<EnumFacing, BlockPartFace> e : part.mapFaces.entrySet())
                     {
-                        builder.addFaceQuad(baseState.rotate(e.getValue().cullFace), makeBakedQuad(part, e.getValue(), textureatlassprite1, e.getKey(), transformation, uvLocked));
+                        TextureAtlasSprite textureatlassprite1 = bakedTextureGetter.apply(new ResourceLocation(model.resolveTextureName(e.getValue().texture)));
+
+                        if (e.getValue().cullFace == null || !TRSRTransformation.isInteger(transformation.getMatrix()))
+                        {
+                            builder.addGeneralQuad(makeBakedQuad(part, e.getValue(), textureatlassprite1, e.getKey(), transformation, uvLocked));
+                        }
+                        else
+                        {
+                            builder.addFaceQuad(baseState.rotate(e.getValue().cullFace), makeBakedQuad(part, e.getValue(), textureatlassprite1, e.getKey(), transformation, uvLocked));
+                        }
                     }
                 }
+                baked = builder.makeBakedModel();
+                if(cacheKey != null)
+                {
+                    cache.put(cacheKey, baked);
+                }
             }
 
-            return new IPerspectiveAwareModel.MapWrapper(builder.makeBakedModel(), perState)
+            return new IPerspectiveAwareModel.MapWrapper(baked, perState)
             {
                 private final ItemOverrideList overrides = new AnimationItemOverrideList(VanillaModelWrapper.this, modelState, format, bakedTextureGetter, super.getOverrides());
 
@@ -581,6 +726,35 @@ public final class ModelLoader extends ModelBakery
             };
         }
 
+        /**
+         * Everything the quads of {@link #bakeNormal} depend on besides the model files, which are covered by the cache fingerprint.
+         * Retextured copies share the location, so the resolved textures are part of the key.
+         */
+        private String getCacheKey(ModelBlock model, TRSRTransformation baseState, List<TRSRTransformation> newTransforms, VertexFormat format, boolean uvLocked)
+        {
+            if(format != DefaultVertexFormats.ITEM && format != DefaultVertexFormats.BLOCK)
+            {
+                return null;
+            }
+            StringBuilder key = new StringBuilder(location.toString());
+            key.append(format == DefaultVertexFormats.ITEM ? "|item|" : "|block|").append(uvLocked).append('|').append(baseState.getMatrix());
+            for(int i = 0; i < newTransforms.size(); i++)
+            {
+                if(newTransforms.get(i) != null)
+                {
+                    key.append('|').append(i).append(':').append(newTransforms.get(i).getMatrix());
+                }
+            }
+            for(BlockPart part : model.getElements())
+            {
+                for(BlockPartFace face : part.mapFaces.values())
+                {
+                    key.append('|').append(model.resolveTextureName(face.texture));
+                }
+            }
+            return key.toString();
+        }
+
         @Override
         public VanillaModelWrapper retexture(ImmutableMap<String, String> textures)
         {
@@ -1108,6 +1282,7 @@ public final class ModelLoader extends ModelBakery
         }
     }
 
+    // Only reads the sprites of the stitched map, so it is safe to use from several baking threads
     private static enum DefaultTextureGetter implements Function<ResourceLocation, TextureAtlasSprite>
     {
         INSTANCE;
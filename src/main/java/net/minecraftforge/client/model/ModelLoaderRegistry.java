@@ -1,8 +1,17 @@
 package net.minecraftforge.client.model;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.block.model.ModelResourceLocation;
@@ -20,9 +29,11 @@ import net.minecraftforge.fml.common.FMLLog;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /*
  * Central hub for custom model loaders.
@@ -30,9 +41,22 @@ import com.google.common.collect.Sets;
 public class ModelLoaderRegistry
 {
     private static final Set<ICustomModelLoader> loaders = Sets.newHashSet();
-    private static final Map<ResourceLocation, IModel> cache = Maps.newHashMap();
-    private static final Deque<ResourceLocation> loadingModels = Queues.newArrayDeque();
-    private static final Set<ResourceLocation> textures = Sets.newHashSet();
+    private static final Map<ResourceLocation, IModel> cache = Maps.newConcurrentMap();
+    // Models being loaded right now, other threads asking for them wait instead of loading them again
+    private static final ConcurrentMap<ResourceLocation, Load> inFlight = Maps.newConcurrentMap();
+    private static final ConcurrentMap<Thread, Load> waiting = Maps.newConcurrentMap();
+    // Failures of models loaded by loadModels, kept until the next reload so they are not loaded and logged twice
+    private static final Map<ResourceLocation, Exception> failures = Maps.newConcurrentMap();
+    private static final ThreadLocal<Deque<ResourceLocation>> loadingModels = new ThreadLocal<Deque<ResourceLocation>>()
+    {
+        @Override
+        protected Deque<ResourceLocation> initialValue()
+        {
+            return Queues.newArrayDeque();
+        }
+    };
+    private static final ThreadLocal<Batch> currentBatch = new ThreadLocal<Batch>();
+    private static final Set<ResourceLocation> textures = Sets.newSetFromMap(Maps.<ResourceLocation, Boolean>newConcurrentMap());
     private static IResourceManager manager;
 
     // Forge built-in loaders
@@ -74,9 +98,66 @@ public class ModelLoaderRegistry
      * ModelResourceLocation argument will be loaded through the blockstate system.
      */
     public static IModel getModel(ResourceLocation location) throws Exception
+    {
+        IModel model = cache.get(location);
+        if(model != null) return model;
+        Exception failure = failures.get(location);
+        if(failure != null) throw failure;
+
+        Load load = new Load();
+        Load existing = inFlight.putIfAbsent(location, load);
+        if(existing != null)
+        {
+            return existing.await(location);
+        }
+        boolean loaded = false;
+        try
+        {
+            model = cache.get(location);
+            if(model == null)
+            {
+                model = loadModel(location);
+                loaded = true;
+            }
+            load.model = model;
+        }
+        catch(Exception e)
+        {
+            load.exception = e;
+            throw e;
+        }
+        finally
+        {
+            if(load.model == null && load.exception == null)
+            {
+                load.exception = new LoaderException("Unexpected error loading model " + location);
+            }
+            inFlight.remove(location, load);
+            load.done.countDown();
+        }
+        if(loaded)
+        {
+            Batch batch = currentBatch.get();
+            for (ResourceLocation dep : model.getDependencies())
+            {
+                if(batch != null)
+                {
+                    // Loading in parallel, the dependencies are loaded by the other threads
+                    if(!cache.containsKey(dep)) batch.submit(dep);
+                }
+                else
+                {
+                    getModelOrMissing(dep);
+                }
+            }
+        }
+        return model;
+    }
+
+    private static IModel loadModel(ResourceLocation location) throws Exception
     {
         IModel model;
-        if(cache.containsKey(location)) return cache.get(location);
+        Deque<ResourceLocation> loadingModels = ModelLoaderRegistry.loadingModels.get();
         for(ResourceLocation loading : loadingModels)
         {
             if(location.getClass() == loading.getClass() && location.equals(loading))
@@ -152,11 +233,122 @@ public class ModelLoaderRegistry
             }
         }
         cache.put(location, model);
-        for (ResourceLocation dep : model.getDependencies())
+        return model;
+    }
+
+    /**
+     * Loads the models and everything they depend on with a pool of threads, so that the following
+     * {@link #getModel(ResourceLocation)} calls for them are cache hits. Each model is loaded once, models requested
+     * while they are being loaded by another thread are waited for. Failed models are remembered until the next reload,
+     * asking for them again throws the original exception.
+     */
+    public static void loadModels(Collection<? extends ResourceLocation> locations)
+    {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Model Loader #%d").setDaemon(true).build());
+        try
         {
-            getModelOrMissing(dep);
+            Batch batch = new Batch(executor);
+            for(ResourceLocation location : locations)
+            {
+                if(!cache.containsKey(location)) batch.submit(location);
+            }
+            batch.await();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class Load
+    {
+        private final Thread owner = Thread.currentThread();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile IModel model;
+        private volatile Exception exception;
+
+        private IModel await(ResourceLocation location) throws Exception
+        {
+            Thread current = Thread.currentThread();
+            waiting.put(current, this);
+            try
+            {
+                // Follow the threads we would end up waiting for, if one of them is this one the models depend on each other
+                Load next = this;
+                for(int i = 0; next != null && i <= waiting.size(); i++)
+                {
+                    if(next.owner == current)
+                    {
+                        throw new LoaderException("circular model dependencies, stack: [" + Joiner.on(", ").join(loadingModels.get()) + ", " + location + "]");
+                    }
+                    next = waiting.get(next.owner);
+                }
+                done.await();
+            }
+            finally
+            {
+                waiting.remove(current);
+            }
+            if(exception != null) throw exception;
+            return model;
+        }
+    }
+
+    private static final class Batch
+    {
+        private final Executor executor;
+        // Starts at one for the thread submitting the initial models, released in await
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Batch(Executor executor)
+        {
+            this.executor = executor;
+        }
+
+        private void submit(final ResourceLocation location)
+        {
+            pending.incrementAndGet();
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    currentBatch.set(Batch.this);
+                    try
+                    {
+                        getModel(location);
+                    }
+                    catch(Exception e)
+                    {
+                        failures.put(location, e);
+                    }
+                    finally
+                    {
+                        currentBatch.remove();
+                        release();
+                    }
+                }
+            });
+        }
+
+        private void release()
+        {
+            if(pending.decrementAndGet() == 0)
+            {
+                done.countDown();
+            }
+        }
+
+        private void await() throws InterruptedException
+        {
+            release();
+            done.await();
         }
-        return model;
     }
 
     /**
@@ -203,6 +395,8 @@ public class ModelLoaderRegistry
     {
         ModelLoaderRegistry.manager = manager;
         cache.clear();
+        failures.clear();
+        ModelQuadCache.invalidateAll();
         // putting the builtin models in
         cache.put(new ResourceLocation("minecraft:builtin/generated"), ItemLayerModel.INSTANCE);
         cache.put(new ResourceLocation("minecraft:block/builtin/generated"), ItemLayerModel.INSTANCE);
@@ -214,6 +408,17 @@ public class ModelLoaderRegistry
         return textures;
     }
 
+    static List<String> getLoaderNames()
+    {
+        List<String> names = Lists.newArrayList();
+        for(ICustomModelLoader loader : loaders)
+        {
+            names.add(loader.getClass().getName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+
     public static class LoaderException extends Exception
     {
         public LoaderException(String message)
@@ -0,0 +1,224 @@
+package net.minecraftforge.client.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraftforge.common.ForgeModContainer;
+import net.minecraftforge.fml.common.FMLLog;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * One cache for the quads that models generate for states they can't bake up front, like animation frames or
+ * group visibility. All models share one budget of {@link ForgeModContainer#modelQuadCacheSize} quads, entries are
+ * weighed by their quad count and the least recently used ones go first, so a model with thousands of states can
+ * only push out as much as its states are actually used.
+ *
+ * A model opts in by creating a {@link Partition} and asking it for the quads of a state key. Keys need proper
+ * equals and hashCode. Hits, misses and evictions are counted per model name, see {@link #getStats()}.
+ * Everything is dropped when resources are reloaded, which is also when a changed budget takes effect.
+ */
+public final class ModelQuadCache
+{
+    private static final ConcurrentMap<String, Stats> stats = Maps.newConcurrentMap();
+    private static volatile Cache<Key, ImmutableList<BakedQuad>> cache;
+
+    private ModelQuadCache() {}
+
+    /**
+     * @param name Statistics of partitions with the same name are combined, usually the model location
+     */
+    public static <K> Partition<K> create(String name)
+    {
+        Stats modelStats = stats.get(name);
+        if(modelStats == null)
+        {
+            Stats fresh = new Stats();
+            modelStats = stats.putIfAbsent(name, fresh);
+            if(modelStats == null) modelStats = fresh;
+        }
+        return new Partition<K>(modelStats);
+    }
+
+    /**
+     * @return Hits, misses and evictions per model name since the last resource reload
+     */
+    public static Map<String, Stats> getStats()
+    {
+        return ImmutableMap.copyOf(stats);
+    }
+
+    /**
+     * Drops every entry, called when resources are reloaded since the models that own them are replaced.
+     */
+    public static synchronized void invalidateAll()
+    {
+        for(Map.Entry<String, Stats> e : stats.entrySet())
+        {
+            if(e.getValue().getMisses() > 0)
+            {
+                FMLLog.fine("Model quad cache for %s: %s", e.getKey(), e.getValue());
+            }
+        }
+        stats.clear();
+        if(cache != null)
+        {
+            cache.invalidateAll();
+            cache = null;
+        }
+    }
+
+    private static Cache<Key, ImmutableList<BakedQuad>> getCache()
+    {
+        Cache<Key, ImmutableList<BakedQuad>> ret = cache;
+        if(ret == null)
+        {
+            synchronized(ModelQuadCache.class)
+            {
+                ret = cache;
+                if(ret == null)
+                {
+                    ret = cache = CacheBuilder.newBuilder()
+                        .maximumWeight(ForgeModContainer.modelQuadCacheSize)
+                        .weigher(new Weigher<Key, ImmutableList<BakedQuad>>()
+                        {
+                            public int weigh(Key key, ImmutableList<BakedQuad> quads)
+                            {
+                                // Empty states still cost an entry
+                                return quads.size() + 1;
+                            }
+                        })
+                        .removalListener(new RemovalListener<Key, ImmutableList<BakedQuad>>()
+                        {
+                            public void onRemoval(RemovalNotification<Key, ImmutableList<BakedQuad>> notification)
+                            {
+                                if(notification.wasEvicted())
+                                {
+                                    notification.getKey().partition.stats.evictions.incrementAndGet();
+                                }
+                            }
+                        })
+                        .build();
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * The states of one model. Models derived from it, e.g. for a specific state, can share their parent's partition.
+     */
+    public static final class Partition<K>
+    {
+        private final Stats stats;
+
+        private Partition(Stats stats)
+        {
+            this.stats = stats;
+        }
+
+        /**
+         * Returns the cached quads for the key, or generates them with the loader. Generating happens outside of
+         * any lock, two threads asking for the same missing key may both generate it.
+         */
+        public List<BakedQuad> get(K key, Callable<? extends List<BakedQuad>> loader)
+        {
+            Cache<Key, ImmutableList<BakedQuad>> cache = getCache();
+            Key cacheKey = new Key(this, key);
+            ImmutableList<BakedQuad> quads = cache.getIfPresent(cacheKey);
+            if(quads != null)
+            {
+                stats.hits.incrementAndGet();
+                return quads;
+            }
+            stats.misses.incrementAndGet();
+            try
+            {
+                quads = ImmutableList.copyOf(loader.call());
+            }
+            catch(Exception e)
+            {
+                throw Throwables.propagate(e);
+            }
+            cache.put(cacheKey, quads);
+            return quads;
+        }
+
+        public void invalidate(K key)
+        {
+            getCache().invalidate(new Key(this, key));
+        }
+
+        public Stats getStats()
+        {
+            return stats;
+        }
+    }
+
+    public static final class Stats
+    {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        public long getHits()
+        {
+            return hits.get();
+        }
+
+        public long getMisses()
+        {
+            return misses.get();
+        }
+
+        public long getEvictions()
+        {
+            return evictions.get();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%d hits, %d misses, %d evictions", getHits(), getMisses(), getEvictions());
+        }
+    }
+
+    private static final class Key
+    {
+        private final Partition<?> partition;
+        private final Object key;
+
+        private Key(Partition<?> partition, Object key)
+        {
+            this.partition = partition;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(this == o) return true;
+            if(!(o instanceof Key)) return false;
+            Key other = (Key)o;
+            return partition == other.partition && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(partition) * 31 + key.hashCode();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import javax.vecmath.Matrix4f;
@@ -35,6 +36,7 @@ import net.minecraftforge.client.model.IPerspectiveAwareModel;
 import net.minecraftforge.client.model.IRetexturableModel;
 import net.minecraftforge.client.model.ModelLoader;
 import net.minecraftforge.client.model.ModelLoaderRegistry;
+import net.minecraftforge.client.model.ModelQuadCache;
 import net.minecraftforge.client.model.ModelStateComposition;
 import net.minecraftforge.client.model.animation.IAnimatedModel;
 import net.minecraftforge.client.model.b3d.B3DModel.Animation;
@@ -84,7 +86,8 @@ public enum B3DLoader implements ICustomModelLoader
     private IResourceManager manager;
 
     private final Set<String> enabledDomains = new HashSet<String>();
-    private final Map<ResourceLocation, B3DModel> cache = new HashMap<ResourceLocation, B3DModel>();
+    // Synchronized, models may be loaded from several threads
+    private final Map<ResourceLocation, B3DModel> cache = Collections.synchronizedMap(new HashMap<ResourceLocation, B3DModel>());
 
     public void addDomain(String domain)
     {
@@ -236,6 +239,7 @@ public enum B3DLoader implements ICustomModelLoader
             return Optional.of(nodeTransform);
         }
 
+        // Node transforms, not quads, so not part of the ModelQuadCache budget
         private static LoadingCache<Triple<Animation, Node<?>, Integer>, TRSRTransformation> cache = CacheBuilder.newBuilder()
             .maximumSize(16384)
             .expireAfterAccess(2, TimeUnit.MINUTES)
@@ -589,11 +593,14 @@ public enum B3DLoader implements ICustomModelLoader
         private final ImmutableSet<String> meshes;
         private final ImmutableMap<String, TextureAtlasSprite> textures;
         private final LoadingCache<Integer, B3DState> cache;
+        // Quads of the whole frames, interpolated and animation states are generated every time
+        private final ModelQuadCache.Partition<Integer> frameQuads;
 
         private ImmutableList<BakedQuad> quads;
 
         public BakedWrapper(final Node<?> node, final IModelState state, final boolean smooth, final boolean gui3d, final VertexFormat format, final ImmutableSet<String> meshes, final ImmutableMap<String, TextureAtlasSprite> textures)
         {
+            // Frame states only, their quads are in frameQuads
             this(node, state, smooth, gui3d, format, meshes, textures, CacheBuilder.newBuilder()
                 .maximumSize(128)
                 .expireAfterAccess(2, TimeUnit.MINUTES)
@@ -623,6 +630,7 @@ public enum B3DLoader implements ICustomModelLoader
             this.meshes = meshes;
             this.textures = textures;
             this.cache = cache;
+            this.frameQuads = ModelQuadCache.create(String.valueOf(node.getName()));
         }
 
         @Override
@@ -630,6 +638,7 @@ public enum B3DLoader implements ICustomModelLoader
         {
             if(side != null) return ImmutableList.of();
             IModelState modelState = this.state;
+            Integer frame = null;
             if(state instanceof IExtendedBlockState)
             {
                 IExtendedBlockState exState = (IExtendedBlockState)state;
@@ -652,7 +661,8 @@ public enum B3DLoader implements ICustomModelLoader
                         }
                         if(s.getFrame() == s.getNextFrame())
                         {
-                            modelState = cache.getUnchecked(s.getFrame());
+                            frame = s.getFrame();
+                            modelState = cache.getUnchecked(frame);
                         }
                         else
                         {
@@ -682,16 +692,31 @@ public enum B3DLoader implements ICustomModelLoader
                 generateQuads(builder, node, this.state);
                 quads = builder.build();
             }
-            // TODO: caching?
             if(this.state != modelState)
             {
-                ImmutableList.Builder<BakedQuad> builder = ImmutableList.builder();
-                generateQuads(builder, node, modelState);
-                return builder.build();
+                if(frame != null)
+                {
+                    final IModelState frameState = modelState;
+                    return frameQuads.get(frame, new Callable<List<BakedQuad>>()
+                    {
+                        public List<BakedQuad> call()
+                        {
+                            return generateQuads(frameState);
+                        }
+                    });
+                }
+                return generateQuads(modelState);
             }
             return quads;
         }
 
+        private ImmutableList<BakedQuad> generateQuads(IModelState state)
+        {
+            ImmutableList.Builder<BakedQuad> builder = ImmutableList.builder();
+            generateQuads(builder, node, state);
+            return builder.build();
+        }
+
         private void generateQuads(ImmutableList.Builder<BakedQuad> builder, Node<?> node, final IModelState state)
         {
             for(Node<?> child : node.getNodes().values())
@@ -1,6 +1,7 @@
 package net.minecraftforge.client.model.obj;
 
 import java.io.FileNotFoundException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -26,8 +27,9 @@ public enum OBJLoader implements ICustomModelLoader {
 
     private IResourceManager manager;
     private final Set<String> enabledDomains = new HashSet<String>();
-    private final Map<ResourceLocation, OBJModel> cache = new HashMap<ResourceLocation, OBJModel>();
-    private final Map<ResourceLocation, Exception> errors = new HashMap<ResourceLocation, Exception>();
+    // Synchronized, models may be loaded from several threads
+    private final Map<ResourceLocation, OBJModel> cache = Collections.synchronizedMap(new HashMap<ResourceLocation, OBJModel>());
+    private final Map<ResourceLocation, Exception> errors = Collections.synchronizedMap(new HashMap<ResourceLocation, Exception>());
 
     public void addDomain(String domain)
     {
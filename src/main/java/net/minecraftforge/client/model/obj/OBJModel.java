@@ -1,8 +1,11 @@
 package net.minecraftforge.client.model.obj;
 
-import java.io.BufferedReader;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -12,7 +15,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
 
 import javax.vecmath.Matrix3f;
 import javax.vecmath.Matrix4f;
@@ -37,6 +40,7 @@ import net.minecraftforge.client.model.IModelCustomData;
 import net.minecraftforge.client.model.IPerspectiveAwareModel;
 import net.minecraftforge.client.model.IRetexturableModel;
 import net.minecraftforge.client.model.ModelLoader;
+import net.minecraftforge.client.model.ModelQuadCache;
 import net.minecraftforge.client.model.pipeline.UnpackedBakedQuad;
 import net.minecraftforge.common.model.IModelPart;
 import net.minecraftforge.common.model.IModelState;
@@ -45,7 +49,6 @@ import net.minecraftforge.common.property.IUnlistedProperty;
 import net.minecraftforge.fml.common.FMLLog;
 
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.logging.log4j.core.helpers.Strings;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
@@ -56,8 +59,11 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
 
 public class OBJModel implements IRetexturableModel, IModelCustomData
 {
@@ -176,25 +182,29 @@ public class OBJModel implements IRetexturableModel, IModelCustomData
 
     public static class Parser
     {
-        private static final Pattern WHITE_SPACE = Pattern.compile("\\s+");
-        private static Set<String> unknownObjectCommands = new HashSet<String>();
+        private static Set<String> unknownObjectCommands = Sets.newSetFromMap(Maps.<String, Boolean>newConcurrentMap());
         public MaterialLibrary materialLibrary = new MaterialLibrary();
         private IResourceManager manager;
-        private InputStreamReader objStream;
-        private BufferedReader objReader;
+        private Tokenizer tokens;
         private ResourceLocation objFrom;
 
         private List<String> groupList = Lists.newArrayList();
-        private List<Vertex> vertices = Lists.newArrayList();
-        private List<Normal> normals = Lists.newArrayList();
-        private List<TextureCoordinate> texCoords = Lists.newArrayList();
+        // x y z w of every vertex, and the material that was in use when it was defined
+        private TFloatArrayList positions = new TFloatArrayList();
+        private List<Material> vertexMaterials = Lists.newArrayList();
+        // x y z and u v w, the objects are only created once a face uses them
+        private TFloatArrayList normals = new TFloatArrayList();
+        private TFloatArrayList texCoords = new TFloatArrayList();
+        private List<Normal> normalObjects = Lists.newArrayList();
+        private List<TextureCoordinate> texCoordObjects = Lists.newArrayList();
+        // vertex, texture coordinate and normal index of each vertex of the current face, -1 if absent
+        private TIntArrayList faceIndices = new TIntArrayList();
 
         public Parser(IResource from, IResourceManager manager) throws IOException
         {
             this.manager = manager;
             this.objFrom = from.getResourceLocation();
-            this.objStream = new InputStreamReader(from.getInputStream(), Charsets.UTF_8);
-            this.objReader = new BufferedReader(objStream);
+            this.tokens = new Tokenizer(Tokenizer.read(from.getInputStream()));
         }
 
         public List<String> getElements()
@@ -202,175 +212,471 @@ public class OBJModel implements IRetexturableModel, IModelCustomData
             return this.groupList;
         }
 
-        private float[] parseFloats(String[] data) // Helper converting strings to floats
-        {
-            float[] ret = new float[data.length];
-            for (int i = 0; i < data.length; i++)
-                ret[i] = Float.parseFloat(data[i]);
-            return ret;
-        }
-
         //Partial reading of the OBJ format. Documentation taken from http://paulbourke.net/dataformats/obj/
         public OBJModel parse() throws IOException
         {
-            String currentLine = "";
             Material material = new Material();
             material.setName(Material.DEFAULT_NAME);
             int usemtlCounter = 0;
-            int lineNum = 0;
 
-            for (;;)
+            while (tokens.nextLine())
             {
-                lineNum++;
-                currentLine = objReader.readLine();
-                if (currentLine == null) break;
-                currentLine.trim();
-                if (currentLine.isEmpty() || currentLine.startsWith("#")) continue;
-
                 try
                 {
-                    String[] fields = WHITE_SPACE.split(currentLine, 2);
-                    String key = fields[0];
-                    String data = fields[1];
-                    String[] splitData = WHITE_SPACE.split(data);
+                    tokens.nextToken();
 
-                    if (key.equalsIgnoreCase("mtllib"))
+                    if (tokens.tokenIs("v")) // Vertices: x y z [w] - w Defaults to 1.0
                     {
-                        this.materialLibrary.parseMaterials(manager, data, objFrom);
+                        positions.add(tokens.nextFloat());
+                        positions.add(tokens.nextFloat());
+                        positions.add(tokens.nextFloat());
+                        positions.add(tokens.nextToken() ? tokens.tokenFloat() : 1.0F);
+                        vertexMaterials.add(material);
                     }
-                    else if (key.equalsIgnoreCase("usemtl"))
+                    else if (tokens.tokenIs("vn")) // Vertex normals: x y z
                     {
-                        material = this.materialLibrary.materials.get(data);
-                        usemtlCounter++;
+                        normals.add(tokens.nextFloat());
+                        normals.add(tokens.nextFloat());
+                        normals.add(tokens.nextFloat());
                     }
-                    else if (key.equalsIgnoreCase("v")) // Vertices: x y z [w] - w Defaults to 1.0
+                    else if (tokens.tokenIs("vt")) // Vertex Textures: u [v] [w] - v/w Defaults to 0
                     {
-                        float[] coords = parseFloats(splitData);
-                        Vector4f pos = new Vector4f(coords[0], coords[1], coords[2], coords.length == 4 ? coords[3] : 1.0F);
-                        this.vertices.add(new Vertex(pos, material));
+                        float u = tokens.nextFloat();
+                        float v = tokens.nextToken() ? tokens.tokenFloat() : 0.0F;
+                        float w = tokens.nextToken() ? tokens.tokenFloat() : 0.0F;
+                        if (u < 0.0f || u > 1.0f || v < 0.0f || v > 1.0f)
+                            throw new UVsOutOfBoundsException(this.objFrom);
+                        texCoords.add(u);
+                        texCoords.add(v);
+                        texCoords.add(w);
                     }
-                    else if (key.equalsIgnoreCase("vn")) // Vertex normals: x y z
+                    else if (tokens.tokenIs("f")) // Face Elements: f v1[/vt1][/vn1] ...
                     {
-                        this.normals.add(new Normal(parseFloats(splitData)));
+                        parseFace(material, usemtlCounter);
                     }
-                    else if (key.equalsIgnoreCase("vt")) // Vertex Textures: u [v] [w] - v/w Defaults to 0
+                    else if (tokens.tokenIs("mtllib"))
                     {
-                        float[] coords = parseFloats(splitData);
-                        TextureCoordinate texCoord = new TextureCoordinate(coords[0],
-                                coords.length >= 2 ? coords[1] : 0.0F,
-                                coords.length >= 3 ? coords[2] : 0.0F);
-                        if (texCoord.u < 0.0f || texCoord.u > 1.0f || texCoord.v < 0.0f || texCoord.v > 1.0f)
-                            throw new UVsOutOfBoundsException(this.objFrom);
-                        this.texCoords.add(texCoord);
+                        this.materialLibrary.parseMaterials(manager, tokens.rest(), objFrom);
                     }
-                    else if (key.equalsIgnoreCase("f")) // Face Elements: f v1[/vt1][/vn1] ...
+                    else if (tokens.tokenIs("usemtl"))
                     {
-                        if (splitData.length > 4)
-                            FMLLog.warning("OBJModel.Parser: found a face ('f') with more than 4 vertices, only the first 4 of these vertices will be rendered!");
-
-                        List<Vertex> v = Lists.newArrayListWithCapacity(splitData.length);
-
-                        for (int i = 0; i < splitData.length; i++)
-                        {
-                            String[] pts = splitData[i].split("/");
-
-                            int vert = Integer.parseInt(pts[0]);
-                            Integer texture = pts.length < 2 || Strings.isEmpty(pts[1]) ? null : Integer.parseInt(pts[1]);
-                            Integer normal = pts.length < 3 || Strings.isEmpty(pts[2]) ? null : Integer.parseInt(pts[2]);
-
-                            vert = vert < 0 ? this.vertices.size() - 1 : vert - 1;
-                            Vertex newV = new Vertex(new Vector4f(this.vertices.get(vert).getPos()), this.vertices.get(vert).getMaterial());
-
-                            if (texture != null)
-                                newV.setTextureCoordinate(this.texCoords.get(texture < 0 ? this.texCoords.size() - 1 : texture - 1));
-                            if (normal != null)
-                                newV.setNormal(this.normals.get(normal < 0 ? this.normals.size() - 1 : normal - 1));
-
-                            v.add(newV);
-                        }
-
-                        Vertex[] va = v.toArray(new Vertex[v.size()]);
-
-                        Face face = new Face(va, material.name);
-                        if (usemtlCounter < this.vertices.size())
-                        {
-                            for (Vertex ver : face.getVertices())
-                            {
-                                ver.setMaterial(material);
-                            }
-                        }
-
-                        if (groupList.isEmpty())
-                        {
-                            if (this.materialLibrary.getGroups().containsKey(Group.DEFAULT_NAME))
-                            {
-                                this.materialLibrary.getGroups().get(Group.DEFAULT_NAME).addFace(face);
-                            }
-                            else
-                            {
-                                Group def = new Group(Group.DEFAULT_NAME, null);
-                                def.addFace(face);
-                                this.materialLibrary.getGroups().put(Group.DEFAULT_NAME, def);
-                            }
-                        }
-                        else
-                        {
-                            for (String s : groupList)
-                            {
-                                if (this.materialLibrary.getGroups().containsKey(s))
-                                {
-                                    this.materialLibrary.getGroups().get(s).addFace(face);
-                                }
-                                else
-                                {
-                                    Group e = new Group(s, null);
-                                    e.addFace(face);
-                                    this.materialLibrary.getGroups().put(s, e);
-                                }
-                            }
-                        }
+                        material = this.materialLibrary.materials.get(tokens.rest());
+                        usemtlCounter++;
                     }
-                    else if (key.equalsIgnoreCase("g") || key.equalsIgnoreCase("o"))
+                    else if (tokens.tokenIs("g") || tokens.tokenIs("o"))
                     {
                         groupList.clear();
-                        if (key.equalsIgnoreCase("g"))
+                        if (tokens.tokenIs("g"))
                         {
-                            String[] splitSpace = data.split(" ");
-                            for (String s : splitSpace)
-                                groupList.add(s);
+                            while (tokens.nextToken())
+                                groupList.add(tokens.token());
                         }
                         else
                         {
-                            groupList.add(data);
+                            groupList.add(tokens.rest());
                         }
                     }
                     else
                     {
-                        if (!unknownObjectCommands.contains(key))
+                        String key = tokens.token();
+                        if (unknownObjectCommands.add(key))
                         {
-                            unknownObjectCommands.add(key);
-                            FMLLog.info("OBJLoader.Parser: command '%s' (model: '%s') is not currently supported, skipping. Line: %d '%s'", key, objFrom, lineNum, currentLine);
+                            FMLLog.info("OBJLoader.Parser: command '%s' (model: '%s') is not currently supported, skipping. Line: %d '%s'", key, objFrom, tokens.lineNumber(), tokens.line());
                         }
                     }
                 }
                 catch (RuntimeException e)
                 {
-                    throw new RuntimeException(String.format("OBJLoader.Parser: Exception parsing line #%d: `%s`", lineNum, currentLine), e);
+                    throw new RuntimeException(String.format("OBJLoader.Parser: Exception parsing line #%d: `%s`", tokens.lineNumber(), tokens.line()), e);
                 }
             }
 
             return new OBJModel(this.materialLibrary, this.objFrom);
         }
+
+        private void parseFace(Material material, int usemtlCounter)
+        {
+            faceIndices.resetQuick();
+            while (tokens.nextToken())
+            {
+                int vert = resolve(tokens.nextInt(), vertexMaterials.size());
+                int texture = -1;
+                int normal = -1;
+                if (tokens.skipSlash())
+                {
+                    if (tokens.hasInt())
+                        texture = resolve(tokens.nextInt(), texCoords.size() / 3);
+                    if (tokens.skipSlash() && tokens.hasInt())
+                        normal = resolve(tokens.nextInt(), normals.size() / 3);
+                }
+                faceIndices.add(vert);
+                faceIndices.add(texture);
+                faceIndices.add(normal);
+            }
+
+            int count = faceIndices.size() / 3;
+            if (count > 4)
+                FMLLog.warning("OBJModel.Parser: found a face ('f') with more than 4 vertices, only the first 4 of these vertices will be rendered!");
+
+            Vertex[] va = new Vertex[count];
+            for (int i = 0; i < count; i++)
+            {
+                int vert = faceIndices.get(i * 3);
+                int texture = faceIndices.get(i * 3 + 1);
+                int normal = faceIndices.get(i * 3 + 2);
+
+                Vertex newV = new Vertex(new Vector4f(positions.get(vert * 4), positions.get(vert * 4 + 1), positions.get(vert * 4 + 2), positions.get(vert * 4 + 3)), vertexMaterials.get(vert));
+
+                if (texture >= 0)
+                    newV.setTextureCoordinate(getTextureCoordinate(texture));
+                if (normal >= 0)
+                    newV.setNormal(getNormal(normal));
+
+                va[i] = newV;
+            }
+
+            Face face = new Face(va, material.name);
+            if (usemtlCounter < vertexMaterials.size())
+            {
+                for (Vertex ver : face.getVertices())
+                {
+                    ver.setMaterial(material);
+                }
+            }
+
+            if (groupList.isEmpty())
+            {
+                if (this.materialLibrary.getGroups().containsKey(Group.DEFAULT_NAME))
+                {
+                    this.materialLibrary.getGroups().get(Group.DEFAULT_NAME).addFace(face);
+                }
+                else
+                {
+                    Group def = new Group(Group.DEFAULT_NAME, null);
+                    def.addFace(face);
+                    this.materialLibrary.getGroups().put(Group.DEFAULT_NAME, def);
+                }
+            }
+            else
+            {
+                for (String s : groupList)
+                {
+                    if (this.materialLibrary.getGroups().containsKey(s))
+                    {
+                        this.materialLibrary.getGroups().get(s).addFace(face);
+                    }
+                    else
+                    {
+                        Group e = new Group(s, null);
+                        e.addFace(face);
+                        this.materialLibrary.getGroups().put(s, e);
+                    }
+                }
+            }
+        }
+
+        // OBJ indices start at 1, negative ones count back from the last element defined so far
+        private static int resolve(int index, int size)
+        {
+            int ret = index < 0 ? size + index : index - 1;
+            if (ret < 0 || ret >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            return ret;
+        }
+
+        private Normal getNormal(int index)
+        {
+            while (normalObjects.size() <= index)
+                normalObjects.add(null);
+            Normal normal = normalObjects.get(index);
+            if (normal == null)
+            {
+                normal = new Normal(normals.get(index * 3), normals.get(index * 3 + 1), normals.get(index * 3 + 2));
+                normalObjects.set(index, normal);
+            }
+            return normal;
+        }
+
+        private TextureCoordinate getTextureCoordinate(int index)
+        {
+            while (texCoordObjects.size() <= index)
+                texCoordObjects.add(null);
+            TextureCoordinate texCoord = texCoordObjects.get(index);
+            if (texCoord == null)
+            {
+                texCoord = new TextureCoordinate(texCoords.get(index * 3), texCoords.get(index * 3 + 1), texCoords.get(index * 3 + 2));
+                texCoordObjects.set(index, texCoord);
+            }
+            return texCoord;
+        }
+    }
+
+    /**
+     * Splits OBJ and MTL files into lines and whitespace separated tokens without creating strings for them, numbers
+     * are parsed straight from the bytes. The formats are ASCII, names are decoded as UTF-8 only when asked for.
+     */
+    static class Tokenizer
+    {
+        // Powers of ten that are exact in a double
+        private static final double[] POWERS = new double[23];
+
+        static
+        {
+            double p = 1;
+            for (int i = 0; i < POWERS.length; i++)
+            {
+                POWERS[i] = p;
+                p *= 10;
+            }
+        }
+
+        private final ByteBuffer data;
+        private final int limit;
+        private int pos;
+        private int lineNum;
+        private int lineStart;
+        private int lineEnd;
+        private int tokenStart;
+        private int tokenEnd;
+        // position inside the current token, for face vertices
+        private int cursor;
+
+        Tokenizer(ByteBuffer data)
+        {
+            this.data = data;
+            this.limit = data.limit();
+            this.pos = data.position();
+        }
+
+        /**
+         * Reads the whole stream and closes it.
+         */
+        static ByteBuffer read(InputStream stream) throws IOException
+        {
+            try
+            {
+                return ByteBuffer.wrap(ByteStreams.toByteArray(stream));
+            }
+            finally
+            {
+                stream.close();
+            }
+        }
+
+        /**
+         * Moves to the next line that is neither empty nor a comment.
+         */
+        boolean nextLine()
+        {
+            while (pos < limit)
+            {
+                int start = pos;
+                int end = start;
+                while (end < limit && data.get(end) != '\n') end++;
+                pos = end + 1;
+                lineNum++;
+                while (end > start && isSpace(data.get(end - 1))) end--;
+                while (start < end && isSpace(data.get(start))) start++;
+                if (start < end && data.get(start) != '#')
+                {
+                    lineStart = start;
+                    lineEnd = end;
+                    tokenStart = tokenEnd = cursor = start;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean nextToken()
+        {
+            int p = tokenEnd;
+            while (p < lineEnd && isSpace(data.get(p))) p++;
+            tokenStart = cursor = p;
+            while (p < lineEnd && !isSpace(data.get(p))) p++;
+            tokenEnd = p;
+            return tokenStart < tokenEnd;
+        }
+
+        /**
+         * Moves to the last token of the line.
+         */
+        boolean lastToken()
+        {
+            int start = -1;
+            int end = -1;
+            while (nextToken())
+            {
+                start = tokenStart;
+                end = tokenEnd;
+            }
+            if (start < 0) return false;
+            tokenStart = cursor = start;
+            tokenEnd = end;
+            return true;
+        }
+
+        boolean tokenIs(String s)
+        {
+            if (tokenEnd - tokenStart != s.length()) return false;
+            for (int i = 0; i < s.length(); i++)
+            {
+                char c = (char)(data.get(tokenStart + i) & 0xFF);
+                char d = s.charAt(i);
+                if (c != d && Character.toLowerCase(c) != Character.toLowerCase(d)) return false;
+            }
+            return true;
+        }
+
+        String token()
+        {
+            return decode(tokenStart, tokenEnd);
+        }
+
+        /**
+         * @return Everything after the current token
+         */
+        String rest()
+        {
+            int p = tokenEnd;
+            while (p < lineEnd && isSpace(data.get(p))) p++;
+            return decode(p, lineEnd);
+        }
+
+        String line()
+        {
+            return decode(lineStart, lineEnd);
+        }
+
+        int lineNumber()
+        {
+            return lineNum;
+        }
+
+        float nextFloat()
+        {
+            if (!nextToken()) throw new IllegalArgumentException("missing number");
+            return tokenFloat();
+        }
+
+        float tokenFloat()
+        {
+            int p = tokenStart;
+            int end = tokenEnd;
+            byte c = data.get(p);
+            boolean negative = c == '-';
+            if (c == '-' || c == '+') p++;
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean any = false;
+            for (; p < end && (c = data.get(p)) >= '0' && c <= '9'; p++)
+            {
+                any = true;
+                if (digits < 18)
+                {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) digits++;
+                }
+                else
+                {
+                    exponent++;
+                }
+            }
+            if (p < end && data.get(p) == '.')
+            {
+                for (p++; p < end && (c = data.get(p)) >= '0' && c <= '9'; p++)
+                {
+                    any = true;
+                    if (digits < 18)
+                    {
+                        mantissa = mantissa * 10 + (c - '0');
+                        if (mantissa != 0) digits++;
+                        exponent--;
+                    }
+                }
+            }
+            if (any && p < end && ((c = data.get(p)) == 'e' || c == 'E'))
+            {
+                p++;
+                boolean negativeExponent = p < end && data.get(p) == '-';
+                if (p < end && (data.get(p) == '-' || data.get(p) == '+')) p++;
+                int start = p;
+                int exp = 0;
+                for (; p < end && (c = data.get(p)) >= '0' && c <= '9'; p++)
+                {
+                    if (exp < 10000) exp = exp * 10 + (c - '0');
+                }
+                if (p == start) return Float.parseFloat(token());
+                exponent += negativeExponent ? -exp : exp;
+            }
+            // nan, infinity, hex floats and garbage are left to the JDK, which also produces the error message
+            if (!any || p != end) return Float.parseFloat(token());
+            double value;
+            if (mantissa == 0) value = 0;
+            else if (exponent >= 0 && exponent < POWERS.length) value = mantissa * POWERS[exponent];
+            else if (exponent < 0 && -exponent < POWERS.length) value = mantissa / POWERS[-exponent];
+            else return Float.parseFloat(token());
+            return (float)(negative ? -value : value);
+        }
+
+        /**
+         * @return Whether there is a number at the cursor, face vertices leave out the texture coordinate as in v//vn
+         */
+        boolean hasInt()
+        {
+            return cursor < tokenEnd && data.get(cursor) != '/';
+        }
+
+        int nextInt()
+        {
+            int p = cursor;
+            byte c = data.get(p);
+            boolean negative = c == '-';
+            if (c == '-' || c == '+') p++;
+            int start = p;
+            int value = 0;
+            for (; p < tokenEnd && (c = data.get(p)) >= '0' && c <= '9'; p++)
+            {
+                value = value * 10 + (c - '0');
+            }
+            if (p == start || (p < tokenEnd && data.get(p) != '/'))
+                throw new NumberFormatException("For input string: \"" + token() + "\"");
+            cursor = p;
+            return negative ? -value : value;
+        }
+
+        boolean skipSlash()
+        {
+            if (cursor < tokenEnd && data.get(cursor) == '/')
+            {
+                cursor++;
+                return true;
+            }
+            return false;
+        }
+
+        private String decode(int start, int end)
+        {
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++)
+            {
+                bytes[i] = data.get(start + i);
+            }
+            return new String(bytes, Charsets.UTF_8);
+        }
+
+        private static boolean isSpace(byte c)
+        {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\f' || c == 0x0B;
+        }
     }
 
     public static class MaterialLibrary
     {
-        private static final Pattern WHITE_SPACE = Pattern.compile("\\s+");
         private Set<String> unknownMaterialCommands = new HashSet<String>();
         private Map<String, Material> materials = new HashMap<String, Material>();
         private Map<String, Group> groups = new HashMap<String, Group>();
-        private InputStreamReader mtlStream;
-        private BufferedReader mtlReader;
 
 //        private float[] minUVBounds = new float[] {0.0f, 0.0f};
 //        private float[] maxUVBounds = new float[] {1.0f, 1.0f};
@@ -418,8 +724,6 @@ public class OBJModel implements IRetexturableModel, IModelCustomData
             ret.unknownMaterialCommands = this.unknownMaterialCommands;
             ret.materials = mats;
             ret.groups = this.groups;
-            ret.mtlStream = this.mtlStream;
-            ret.mtlReader = this.mtlReader;
 //            ret.minUVBounds = this.minUVBounds;
 //            ret.maxUVBounds = this.maxUVBounds;
             return ret;
@@ -486,83 +790,69 @@ public class OBJModel implements IRetexturableModel, IModelCustomData
             String domain = from.getResourceDomain();
             if (!path.contains("/"))
                 path = from.getResourcePath().substring(0, from.getResourcePath().lastIndexOf("/") + 1) + path;
-            mtlStream = new InputStreamReader(manager.getResource(new ResourceLocation(domain, path)).getInputStream(), Charsets.UTF_8);
-            mtlReader = new BufferedReader(mtlStream);
+            Tokenizer tokens = new Tokenizer(Tokenizer.read(manager.getResource(new ResourceLocation(domain, path)).getInputStream()));
 
-            String currentLine = "";
             Material material = new Material();
             material.setName(Material.WHITE_NAME);
             material.setTexture(Texture.WHITE);
             this.materials.put(Material.WHITE_NAME, material);
             this.materials.put(Material.DEFAULT_NAME, new Material(Texture.WHITE));
 
-            for (;;)
+            while (tokens.nextLine())
             {
-                currentLine = mtlReader.readLine();
-                if (currentLine == null) break;
-                currentLine.trim();
-                if (currentLine.isEmpty() || currentLine.startsWith("#")) continue;
-
-                String[] fields = WHITE_SPACE.split(currentLine, 2);
-                String key = fields[0];
-                String data = fields[1];
+                tokens.nextToken();
 
-                if (key.equalsIgnoreCase("newmtl"))
+                if (tokens.tokenIs("newmtl"))
                 {
+                    String data = tokens.rest();
                     hasSetColor = false;
                     hasSetTexture = false;
                     material = new Material();
                     material.setName(data);
                     this.materials.put(data, material);
                 }
-                else if (key.equalsIgnoreCase("Ka") || key.equalsIgnoreCase("Kd") || key.equalsIgnoreCase("Ks"))
+                else if (tokens.tokenIs("Ka") || tokens.tokenIs("Kd") || tokens.tokenIs("Ks"))
                 {
-                    if (key.equalsIgnoreCase("Kd") || !hasSetColor)
+                    if (tokens.tokenIs("Kd") || !hasSetColor)
                     {
-                        String[] rgbStrings = WHITE_SPACE.split(data, 3);
-                        Vector4f color = new Vector4f(Float.parseFloat(rgbStrings[0]), Float.parseFloat(rgbStrings[1]), Float.parseFloat(rgbStrings[2]), 1.0f);
+                        Vector4f color = new Vector4f(tokens.nextFloat(), tokens.nextFloat(), tokens.nextFloat(), 1.0f);
                         hasSetColor = true;
                         material.setColor(color);
                     }
                     else
                     {
-                        FMLLog.info("OBJModel: A color has already been defined for material '%s' in '%s'. The color defined by key '%s' will not be applied!", material.getName(), new ResourceLocation(domain, path).toString(), key);
+                        FMLLog.info("OBJModel: A color has already been defined for material '%s' in '%s'. The color defined by key '%s' will not be applied!", material.getName(), new ResourceLocation(domain, path).toString(), tokens.token());
                     }
                 }
-                else if (key.equalsIgnoreCase("map_Ka") || key.equalsIgnoreCase("map_Kd") || key.equalsIgnoreCase("map_Ks"))
+                else if (tokens.tokenIs("map_Ka") || tokens.tokenIs("map_Kd") || tokens.tokenIs("map_Ks"))
                 {
-                    if (key.equalsIgnoreCase("map_Kd") || !hasSetTexture)
+                    if (tokens.tokenIs("map_Kd") || !hasSetTexture)
                     {
-                        if (data.contains(" "))
-                        {
-                            String[] mapStrings = WHITE_SPACE.split(data);
-                            String texturePath = mapStrings[mapStrings.length - 1];
-                            Texture texture = new Texture(texturePath);
-                            hasSetTexture = true;
-                            material.setTexture(texture);
-                        }
-                        else
+                        // Options may come before the file name, which is always last
+                        if (tokens.lastToken())
                         {
-                            Texture texture = new Texture(data);
+                            Texture texture = new Texture(tokens.token());
                             hasSetTexture = true;
                             material.setTexture(texture);
                         }
                     }
                     else
                     {
-                        FMLLog.info("OBJModel: A texture has already been defined for material '%s' in '%s'. The texture defined by key '%s' will not be applied!", material.getName(), new ResourceLocation(domain, path).toString(), key);
+                        FMLLog.info("OBJModel: A texture has already been defined for material '%s' in '%s'. The texture defined by key '%s' will not be applied!", material.getName(), new ResourceLocation(domain, path).toString(), tokens.token());
                     }
                 }
-                else if (key.equalsIgnoreCase("d") || key.equalsIgnoreCase("Tr"))
+                else if (tokens.tokenIs("d") || tokens.tokenIs("Tr"))
                 {
                     //d <-optional key here> float[0.0:1.0, 1.0]
                     //Tr r g b OR Tr spectral map file OR Tr xyz r g b (CIEXYZ colorspace)
-                    String[] splitData = WHITE_SPACE.split(data);
-                    float alpha = Float.parseFloat(splitData[splitData.length - 1]);
-                    material.getColor().setW(alpha);
+                    if (tokens.lastToken())
+                    {
+                        material.getColor().setW(tokens.tokenFloat());
+                    }
                 }
                 else
                 {
+                    String key = tokens.token();
                     if (!unknownMaterialCommands.contains(key))
                     {
                         unknownMaterialCommands.add(key);
@@ -1262,22 +1552,35 @@ public class OBJModel implements IRetexturableModel, IModelCustomData
         private final OBJModel model;
         private IModelState state;
         private final VertexFormat format;
-        private Set<BakedQuad> quads;
+        private ImmutableList<BakedQuad> quads;
         private ImmutableMap<String, TextureAtlasSprite> textures;
         private TextureAtlasSprite sprite = ModelLoader.White.INSTANCE;
+        // Shared with the models made by getCachedModel, which keep their quads in it instead of in quads
+        private final ModelQuadCache.Partition<IModelState> quadCache;
+        private final boolean derived;
+        // Groups shown for an OBJState, worked out once so the state itself, a cache key, is never changed
+        private final ImmutableSet<String> visibleGroups;
 
         public OBJBakedModel(OBJModel model, IModelState state, VertexFormat format, ImmutableMap<String, TextureAtlasSprite> textures)
+        {
+            this(model, state, format, textures, null);
+        }
+
+        private OBJBakedModel(OBJModel model, IModelState state, VertexFormat format, ImmutableMap<String, TextureAtlasSprite> textures, ModelQuadCache.Partition<IModelState> quadCache)
         {
             this.model = model;
             this.state = state;
-            if (this.state instanceof OBJState) this.updateStateVisibilityMap((OBJState) this.state);
+            this.visibleGroups = this.state instanceof OBJState ? this.getVisibleGroups((OBJState) this.state) : null;
             this.format = format;
             this.textures = textures;
+            this.derived = quadCache != null;
+            this.quadCache = quadCache != null ? quadCache : ModelQuadCache.<IModelState>create(String.valueOf(model.modelLocation));
         }
 
         public void scheduleRebake()
         {
             this.quads = null;
+            if (derived) quadCache.invalidate(state);
         }
 
         // FIXME: merge with getQuads
@@ -1285,90 +1588,77 @@ public class OBJModel implements IRetexturableModel, IModelCustomData
         public List<BakedQuad> getQuads(IBlockState blockState, EnumFacing side, long rand)
         {
             if(side != null) return ImmutableList.of();
-            if (quads == null)
+            if (derived)
             {
-                quads = Collections.synchronizedSet(new LinkedHashSet<BakedQuad>());
-                Set<Face> faces = Collections.synchronizedSet(new LinkedHashSet<Face>());
-                Optional<TRSRTransformation> transform = Optional.absent();
-                for (Group g : this.model.getMatLib().getGroups().values())
+                return quadCache.get(state, new Callable<List<BakedQuad>>()
                 {
+                    public List<BakedQuad> call()
+                    {
+                        return buildQuads();
+                    }
+                });
+            }
+            if (quads == null)
+            {
+                quads = buildQuads();
+            }
+            return quads;
+        }
+
+        private ImmutableList<BakedQuad> buildQuads()
+        {
+            Set<BakedQuad> quads = new LinkedHashSet<BakedQuad>();
+            Set<Face> faces = Collections.synchronizedSet(new LinkedHashSet<Face>());
+            Optional<TRSRTransformation> transform = Optional.absent();
+            for (Group g : this.model.getMatLib().getGroups().values())
+            {
 //                    g.minUVBounds = this.model.getMatLib().minUVBounds;
 //                    g.maxUVBounds = this.model.getMatLib().maxUVBounds;
 //                    FMLLog.info("Group: %s u: [%f, %f] v: [%f, %f]", g.name, g.minUVBounds[0], g.maxUVBounds[0], g.minUVBounds[1], g.maxUVBounds[1]);
 
-                    if (this.state instanceof OBJState)
+                if (this.state instanceof OBJState)
+                {
+                    OBJState state = (OBJState) this.state;
+                    if (state.parent != null)
                     {
-                        OBJState state = (OBJState) this.state;
-                        if (state.parent != null)
-                        {
-                            transform = state.parent.apply(Optional.<IModelPart>absent());
-                        }
-                        //TODO: can this be replaced by updateStateVisibilityMap(OBJState)?
-                        if (state.getGroupNamesFromMap().contains(Group.ALL))
-                        {
-                            state.visibilityMap.clear();
-                            for (String s : this.model.getMatLib().getGroups().keySet())
-                            {
-                                state.visibilityMap.put(s, state.operation.performOperation(true));
-                            }
-                        }
-                        else if (state.getGroupNamesFromMap().contains(Group.ALL_EXCEPT))
-                        {
-                            List<String> exceptList = state.getGroupNamesFromMap().subList(1, state.getGroupNamesFromMap().size());
-                            state.visibilityMap.clear();
-                            for (String s : this.model.getMatLib().getGroups().keySet())
-                            {
-                                if (!exceptList.contains(s))
-                                {
-                                    state.visibilityMap.put(s, state.operation.performOperation(true));
-                                }
-                            }
-                        }
-                        else
-                        {
-                            for (String s : state.visibilityMap.keySet())
-                            {
-                                state.visibilityMap.put(s, state.operation.performOperation(state.visibilityMap.get(s)));
-                            }
-                        }
-                        if (state.getGroupsWithVisibility(true).contains(g.getName()))
-                        {
-                            faces.addAll(g.applyTransform(transform));
-                        }
+                        transform = state.parent.apply(Optional.<IModelPart>absent());
                     }
-                    else
+                    if (visibleGroups.contains(g.getName()))
                     {
-                        transform = state.apply(Optional.<IModelPart>absent());
                         faces.addAll(g.applyTransform(transform));
                     }
                 }
-                for (Face f : faces)
+                else
                 {
-                    if (this.model.getMatLib().materials.get(f.getMaterialName()).isWhite())
-                    {
-                        for (Vertex v : f.getVertices())
-                        {//update material in each vertex
-                            if (!v.getMaterial().equals(this.model.getMatLib().getMaterial(v.getMaterial().getName())))
-                            {
-                                v.setMaterial(this.model.getMatLib().getMaterial(v.getMaterial().getName()));
-                            }
-                        }
-                        sprite = ModelLoader.White.INSTANCE;
-                    } else sprite = this.textures.get(f.getMaterialName());
-                    UnpackedBakedQuad.Builder builder = new UnpackedBakedQuad.Builder(format);
-                    builder.setContractUVs(true);
-                    builder.setQuadOrientation(EnumFacing.getFacingFromVector(f.getNormal().x, f.getNormal().y, f.getNormal().z));
-                    builder.setTexture(sprite);
-                    Normal faceNormal = f.getNormal();
-                    putVertexData(builder, f.verts[0], faceNormal, TextureCoordinate.getDefaultUVs()[0], sprite);
-                    putVertexData(builder, f.verts[1], faceNormal, TextureCoordinate.getDefaultUVs()[1], sprite);
-                    putVertexData(builder, f.verts[2], faceNormal, TextureCoordinate.getDefaultUVs()[2], sprite);
-                    putVertexData(builder, f.verts[3], faceNormal, TextureCoordinate.getDefaultUVs()[3], sprite);
-                    quads.add(builder.build());
+                    transform = state.apply(Optional.<IModelPart>absent());
+                    faces.addAll(g.applyTransform(transform));
                 }
             }
-            List<BakedQuad> quadList = Collections.synchronizedList(Lists.newArrayList(quads));
-            return quadList;
+            for (Face f : faces)
+            {
+                if (this.model.getMatLib().materials.get(f.getMaterialName()).isWhite())
+                {
+                    for (Vertex v : f.getVertices())
+                    {//update material in each vertex
+                        if (!v.getMaterial().equals(this.model.getMatLib().getMaterial(v.getMaterial().getName())))
+                        {
+                            v.setMaterial(this.model.getMatLib().getMaterial(v.getMaterial().getName()));
+                        }
+                    }
+                    sprite = ModelLoader.White.INSTANCE;
+                } else sprite = this.textures.get(f.getMaterialName());
+                UnpackedBakedQuad.Builder builder = new UnpackedBakedQuad.Builder(format);
+                builder.setContractUVs(true);
+                builder.setQuadOrientation(EnumFacing.getFacingFromVector(f.getNormal().x, f.getNormal().y, f.getNormal().z));
+                builder.setTexture(sprite);
+                Normal faceNormal = f.getNormal();
+                putVertexData(builder, f.verts[0], faceNormal, TextureCoordinate.getDefaultUVs()[0], sprite);
+                putVertexData(builder, f.verts[1], faceNormal, TextureCoordinate.getDefaultUVs()[1], sprite);
+                putVertexData(builder, f.verts[2], faceNormal, TextureCoordinate.getDefaultUVs()[2], sprite);
+                putVertexData(builder, f.verts[3], faceNormal, TextureCoordinate.getDefaultUVs()[3], sprite);
+                quads.add(builder.build());
+            }
+            return ImmutableList.copyOf(quads);
         }
 
         private final void putVertexData(UnpackedBakedQuad.Builder builder, Vertex v, Normal faceNormal, TextureCoordinate defUV, TextureAtlasSprite sprite)
@@ -1456,10 +1746,6 @@ public class OBJModel implements IRetexturableModel, IModelCustomData
                     OBJState s = exState.getValue(OBJProperty.instance);
                     if (s != null)
                     {
-                        if (s.visibilityMap.containsKey(Group.ALL) || s.visibilityMap.containsKey(Group.ALL_EXCEPT))
-                        {
-                            this.updateStateVisibilityMap(s);
-                        }
                         return getCachedModel(s);
                     }
                 }
@@ -1467,43 +1753,56 @@ public class OBJModel implements IRetexturableModel, IModelCustomData
             return this;
         }*/
 
-        private void updateStateVisibilityMap(OBJState state)
+        /**
+         * Resolves {@link Group#ALL} and {@link Group#ALL_EXCEPT} against the groups of the model and applies the
+         * state's operation, on a copy of its visibility map. The operation is applied once, so TOGGLE gives the same
+         * groups every time the quads are built.
+         */
+        private ImmutableSet<String> getVisibleGroups(OBJState state)
         {
-            if (state.visibilityMap.containsKey(Group.ALL))
+            Map<String, Boolean> visibility = Maps.newHashMap(state.visibilityMap);
+            if (visibility.containsKey(Group.ALL))
             {
-                boolean operation = state.visibilityMap.get(Group.ALL);
-                state.visibilityMap.clear();
+                boolean operation = visibility.get(Group.ALL);
+                visibility.clear();
                 for (String s : this.model.getMatLib().getGroups().keySet())
                 {
-                    state.visibilityMap.put(s,  state.operation.performOperation(operation));
+                    visibility.put(s,  state.operation.performOperation(operation));
                 }
             }
-            else if (state.visibilityMap.containsKey(Group.ALL_EXCEPT))
+            else if (visibility.containsKey(Group.ALL_EXCEPT))
             {
-                List<String> exceptList = state.getGroupNamesFromMap().subList(1, state.getGroupNamesFromMap().size());
-                state.visibilityMap.remove(Group.ALL_EXCEPT);
+                boolean operation = visibility.remove(Group.ALL_EXCEPT);
+                Set<String> exceptList = ImmutableSet.copyOf(visibility.keySet());
                 for (String s : this.model.getMatLib().getGroups().keySet())
                 {
                     if (!exceptList.contains(s))
                     {
-                        state.visibilityMap.put(s, state.operation.performOperation(state.visibilityMap.get(s)));
+                        visibility.put(s, state.operation.performOperation(operation));
                     }
                 }
             }
             else
             {
-                for (String s : state.visibilityMap.keySet())
+                for (Map.Entry<String, Boolean> e : visibility.entrySet())
                 {
-                    state.visibilityMap.put(s, state.operation.performOperation(state.visibilityMap.get(s)));
+                    e.setValue(state.operation.performOperation(e.getValue()));
                 }
             }
+            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+            for (Map.Entry<String, Boolean> e : visibility.entrySet())
+            {
+                if (e.getValue()) builder.add(e.getKey());
+            }
+            return builder.build();
         }
 
+        // Only the lightweight per state models, the quads they build are in the shared quadCache
         private final LoadingCache<IModelState, OBJBakedModel> cache = CacheBuilder.newBuilder().maximumSize(20).build(new CacheLoader<IModelState, OBJBakedModel>()
         {
             public OBJBakedModel load(IModelState state) throws Exception
             {
-                return new OBJBakedModel(model, state, format, textures);
+                return new OBJBakedModel(model, state, format, textures, quadCache);
             }
         });
 
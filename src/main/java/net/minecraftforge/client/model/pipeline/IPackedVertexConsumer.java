@@ -0,0 +1,21 @@
+package net.minecraftforge.client.model.pipeline;
+
+/**
+ * Consumer that takes whole vertices instead of one element at a time.
+ * Producers that know about it, like {@link LightUtil#putBakedQuad}, unpack a quad into a reused buffer and hand it
+ * over vertex by vertex, without the per element calls and array allocations of {@link IVertexConsumer#put}.
+ * Producers that don't know about it keep using put, so implementations have to support both.
+ *
+ * The vertex is in the consumer's format, element e of it in data[offset + e * 4] to data[offset + e * 4 + 3],
+ * padded with zeros. The buffer belongs to the caller and is overwritten by the next vertex, copy what has to be kept.
+ * Formats with more than 32 elements never take this path.
+ */
+public interface IPackedVertexConsumer extends IVertexConsumer
+{
+    /**
+     * @param data vertex data, 4 floats per element of {@link #getVertexFormat()}
+     * @param offset index of the first float of the vertex in data
+     * @param mask bit e is set if the producer had data for element e, unset elements are all zero
+     */
+    void putVertex(float[] data, int offset, int mask);
+}
@@ -3,18 +3,13 @@ package net.minecraftforge.client.model.pipeline;
 import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.client.renderer.VertexBuffer;
 import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.client.renderer.vertex.VertexFormat;
 import net.minecraft.client.renderer.vertex.VertexFormatElement;
 import net.minecraft.client.renderer.vertex.VertexFormatElement.EnumUsage;
 import net.minecraft.util.EnumFacing;
 import net.minecraftforge.client.ForgeHooksClient;
 
-import org.apache.commons.lang3.tuple.Pair;
-
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-
 public class LightUtil
 {
     private static final float s2 = (float)Math.pow(2, .5);
@@ -25,20 +20,12 @@ public class LightUtil
         return (x * x * 0.6f + (y1 * y1 * (3 + 2 * s2)) / 8 + z * z * 0.8f);
     }
 
+    // by EnumFacing index: down, up, north, south, west, east
+    private static final float[] sideDiffuse = { .5f, 1f, .8f, .8f, .6f, .6f };
+
     public static float diffuseLight(EnumFacing side)
     {
-        switch(side)
-        {
-            case DOWN:
-                return .5f;
-            case UP:
-                return 1f;
-            case NORTH:
-            case SOUTH:
-                return .8f;
-            default:
-                return .6f;
-        }
+        return sideDiffuse[side.getIndex()];
     }
 
     public static EnumFacing toSide(float x, float y, float z)
@@ -71,15 +58,16 @@ public class LightUtil
         }
     }
 
-    private static final LoadingCache<Pair<VertexFormat, VertexFormat>, int[]> formatMaps = CacheBuilder.newBuilder()
-        .maximumSize(10)
-        .build(new CacheLoader<Pair<VertexFormat, VertexFormat>, int[]>()
+    private static final ThreadLocal<QuadBuffer> quadBuffers = new ThreadLocal<QuadBuffer>()
+    {
+        @Override
+        protected QuadBuffer initialValue()
         {
-            public int[] load(Pair<VertexFormat, VertexFormat> pair)
-            {
-                return mapFormats(pair.getLeft(), pair.getRight());
-            }
-        });
+            return new QuadBuffer();
+        }
+    };
+
+    private static final float[] noData = new float[0];
 
     public static void putBakedQuad(IVertexConsumer consumer, BakedQuad quad)
     {
@@ -90,29 +78,76 @@ public class LightUtil
         }
         consumer.setApplyDiffuseLighting(quad.shouldApplyDiffuseLighting());
         //int[] eMap = mapFormats(consumer.getVertexFormat(), DefaultVertexFormats.ITEM);
-        float[] data = new float[4];
         VertexFormat formatFrom = consumer.getVertexFormat();
-        VertexFormat formatTo = quad.getFormat();
         int countFrom = formatFrom.getElementCount();
-        int countTo = formatTo.getElementCount();
-        int[] eMap = formatMaps.getUnchecked(Pair.of(formatFrom, formatTo));
+        QuadBuffer buffer = quadBuffers.get();
+        VertexFormatConverter converter = buffer.getConverter(quad.getFormat(), formatFrom);
+        float[] data = buffer.getQuad(countFrom * 16);
+        converter.unpack(quad.getVertexData(), data);
+        if(consumer instanceof IPackedVertexConsumer && countFrom <= 32)
+        {
+            IPackedVertexConsumer packed = (IPackedVertexConsumer)consumer;
+            int mask = converter.getMask();
+            for(int v = 0; v < 4; v++)
+            {
+                packed.putVertex(data, v * countFrom * 4, mask);
+            }
+            return;
+        }
+        float[] element = buffer.getElement();
         for(int v = 0; v < 4; v++)
         {
             for(int e = 0; e < countFrom; e++)
             {
-                if(eMap[e] != countTo)
+                if(converter.getSourceElement(e) != -1)
                 {
-                    unpack(quad.getVertexData(), data, quad.getFormat(), v, eMap[e]);
-                    consumer.put(e, data);
+                    System.arraycopy(data, (v * countFrom + e) * 4, element, 0, 4);
+                    consumer.put(e, element);
                 }
                 else
                 {
-                    consumer.put(e);
+                    consumer.put(e, noData);
                 }
             }
         }
     }
 
+    /**
+     * Packed counterpart of {@link UnpackedBakedQuad#pipe}, the quad's data is copied into the shared buffer.
+     */
+    static void putUnpackedQuad(IPackedVertexConsumer consumer, float[][][] unpackedData, VertexFormat format)
+    {
+        VertexFormat formatFrom = consumer.getVertexFormat();
+        int countFrom = formatFrom.getElementCount();
+        QuadBuffer buffer = quadBuffers.get();
+        VertexFormatConverter converter = buffer.getConverter(format, formatFrom);
+        float[] vertex = buffer.getVertex(countFrom * 4);
+        for(int v = 0; v < 4; v++)
+        {
+            for(int e = 0; e < countFrom; e++)
+            {
+                int source = converter.getSourceElement(e);
+                if(source != -1)
+                {
+                    System.arraycopy(unpackedData[v][source], 0, vertex, e * 4, 4);
+                }
+                else
+                {
+                    vertex[e * 4] = vertex[e * 4 + 1] = vertex[e * 4 + 2] = vertex[e * 4 + 3] = 0;
+                }
+            }
+            consumer.putVertex(vertex, 0, converter.getMask());
+        }
+    }
+
+    /**
+     * @return mask with the bits of all elements of a format with the given element count set
+     */
+    public static int elementMask(int count)
+    {
+        return -1 >>> (32 - count);
+    }
+
     public static int[] mapFormats(VertexFormat from, VertexFormat to)
     {
         int fromCount = from.getElementCount();
@@ -138,11 +173,21 @@ public class LightUtil
 
     public static void unpack(int[] from, float[] to, VertexFormat formatFrom, int v, int e)
     {
-        int length = 4 < to.length ? 4 : to.length;
+        unpack(from, to, 0, 4 < to.length ? 4 : to.length, formatFrom, v, e);
+    }
+
+    private static void unpack(int[] from, float[] to, int toOffset, int length, VertexFormat formatFrom, int v, int e)
+    {
         VertexFormatElement element = formatFrom.getElement(e);
         int vertexStart = v * formatFrom.getNextOffset() + formatFrom.getOffset(e);
-        int count = element.getElementCount();
-        VertexFormatElement.EnumType type = element.getType();
+        unpackElement(from, to, toOffset, length, vertexStart, element.getElementCount(), element.getType());
+    }
+
+    /**
+     * @param vertexStart Byte offset of the element in from
+     */
+    static void unpackElement(int[] from, float[] to, int toOffset, int length, int vertexStart, int count, VertexFormatElement.EnumType type)
+    {
         int size = type.getSize();
         int mask = (256 << (8 * (size - 1))) - 1;
         for(int i = 0; i < length; i++)
@@ -161,42 +206,53 @@ public class LightUtil
                 bits &= mask;
                 if(type == VertexFormatElement.EnumType.FLOAT)
                 {
-                    to[i] = Float.intBitsToFloat(bits);
+                    to[toOffset + i] = Float.intBitsToFloat(bits);
                 }
                 else if(type == VertexFormatElement.EnumType.UBYTE || type == VertexFormatElement.EnumType.USHORT)
                 {
-                    to[i] = (float)bits / mask;
+                    to[toOffset + i] = (float)bits / mask;
                 }
                 else if(type == VertexFormatElement.EnumType.UINT)
                 {
-                    to[i] = (float)((double)(bits & 0xFFFFFFFFL) / 0xFFFFFFFFL);
+                    to[toOffset + i] = (float)((double)(bits & 0xFFFFFFFFL) / 0xFFFFFFFFL);
                 }
                 else if(type == VertexFormatElement.EnumType.BYTE)
                 {
-                    to[i] = ((float)(byte)bits) / mask * 2;
+                    to[toOffset + i] = ((float)(byte)bits) / mask * 2;
                 }
                 else if(type == VertexFormatElement.EnumType.SHORT)
                 {
-                    to[i] = ((float)(short)bits) / mask * 2;
+                    to[toOffset + i] = ((float)(short)bits) / mask * 2;
                 }
                 else if(type == VertexFormatElement.EnumType.INT)
                 {
-                    to[i] = ((float)(bits & 0xFFFFFFFFL)) / 0xFFFFFFFFL * 2;
+                    to[toOffset + i] = ((float)(bits & 0xFFFFFFFFL)) / 0xFFFFFFFFL * 2;
                 }
             }
             else
             {
-                to[i] = 0;
+                to[toOffset + i] = 0;
             }
         }
     }
 
     public static void pack(float[] from, int[] to, VertexFormat formatTo, int v, int e)
+    {
+        pack(from, 0, from.length, to, formatTo, v, e);
+    }
+
+    private static void pack(float[] from, int fromOffset, int length, int[] to, VertexFormat formatTo, int v, int e)
     {
         VertexFormatElement element = formatTo.getElement(e);
         int vertexStart = v * formatTo.getNextOffset() + formatTo.getOffset(e);
-        int count = element.getElementCount();
-        VertexFormatElement.EnumType type = element.getType();
+        packElement(from, fromOffset, length, to, vertexStart, element.getElementCount(), element.getType());
+    }
+
+    /**
+     * @param vertexStart Byte offset of the element in to
+     */
+    static void packElement(float[] from, int fromOffset, int length, int[] to, int vertexStart, int count, VertexFormatElement.EnumType type)
+    {
         int size = type.getSize();
         int mask = (256 << (8 * (size - 1))) - 1;
         for(int i = 0; i < 4; i++)
@@ -207,7 +263,7 @@ public class LightUtil
                 int index = pos >> 2;
                 int offset = pos & 3;
                 int bits = 0;
-                float f = i < from.length ? from[i] : 0;
+                float f = i < length ? from[fromOffset + i] : 0;
                 if(type == VertexFormatElement.EnumType.FLOAT)
                 {
                     bits = Float.floatToRawIntBits(f);
@@ -231,6 +287,165 @@ public class LightUtil
         }
     }
 
+    /**
+     * Unpacks all 4 vertices of a quad, 4 floats per element, see {@link IPackedVertexConsumer}.
+     * {@link DefaultVertexFormats#BLOCK} and {@link DefaultVertexFormats#ITEM} are unpacked without going through the element descriptions.
+     *
+     * @param to Has to hold format.getElementCount() * 16 floats
+     */
+    public static void unpackQuad(int[] from, float[] to, VertexFormat format)
+    {
+        if(format == DefaultVertexFormats.BLOCK)
+        {
+            for(int v = 0; v < 4; v++)
+            {
+                int s = v * 7;
+                int d = v * 16;
+                unpackPositionColorTex(from, s, to, d);
+                int l = from[s + 6];
+                to[d + 12] = (float)(short)l / 0xFFFF * 2;
+                to[d + 13] = (float)(short)(l >>> 16) / 0xFFFF * 2;
+                to[d + 14] = 0;
+                to[d + 15] = 0;
+            }
+        }
+        else if(format == DefaultVertexFormats.ITEM)
+        {
+            for(int v = 0; v < 4; v++)
+            {
+                int s = v * 7;
+                int d = v * 20;
+                unpackPositionColorTex(from, s, to, d);
+                int n = from[s + 6];
+                to[d + 12] = (float)(byte)n / 0xFF * 2;
+                to[d + 13] = (float)(byte)(n >>> 8) / 0xFF * 2;
+                to[d + 14] = (float)(byte)(n >>> 16) / 0xFF * 2;
+                to[d + 15] = 0;
+                // padding
+                to[d + 16] = (float)(byte)(n >>> 24) / 0xFF * 2;
+                to[d + 17] = 0;
+                to[d + 18] = 0;
+                to[d + 19] = 0;
+            }
+        }
+        else
+        {
+            int count = format.getElementCount();
+            for(int v = 0; v < 4; v++)
+            {
+                for(int e = 0; e < count; e++)
+                {
+                    unpack(from, to, (v * count + e) * 4, 4, format, v, e);
+                }
+            }
+        }
+    }
+
+    // the first 3 elements of both BLOCK and ITEM
+    private static void unpackPositionColorTex(int[] from, int s, float[] to, int d)
+    {
+        to[d + 0] = Float.intBitsToFloat(from[s + 0]);
+        to[d + 1] = Float.intBitsToFloat(from[s + 1]);
+        to[d + 2] = Float.intBitsToFloat(from[s + 2]);
+        to[d + 3] = 0;
+        int c = from[s + 3];
+        to[d + 4] = (float)(c & 0xFF) / 0xFF;
+        to[d + 5] = (float)((c >>> 8) & 0xFF) / 0xFF;
+        to[d + 6] = (float)((c >>> 16) & 0xFF) / 0xFF;
+        to[d + 7] = (float)((c >>> 24) & 0xFF) / 0xFF;
+        to[d + 8] = Float.intBitsToFloat(from[s + 4]);
+        to[d + 9] = Float.intBitsToFloat(from[s + 5]);
+        to[d + 10] = 0;
+        to[d + 11] = 0;
+    }
+
+    /**
+     * Packs one vertex given as 4 floats per element, the reverse of {@link #unpackQuad} for a single vertex.
+     */
+    public static void packVertex(float[] from, int offset, int[] to, VertexFormat format, int v)
+    {
+        if(format == DefaultVertexFormats.BLOCK)
+        {
+            int t = v * 7;
+            packPositionColorTex(from, offset, to, t);
+            to[t + 6] =
+                ((int)(from[offset + 12] * 0xFFFF / 2) & 0xFFFF) |
+                ((int)(from[offset + 13] * 0xFFFF / 2) & 0xFFFF) << 16;
+        }
+        else if(format == DefaultVertexFormats.ITEM)
+        {
+            int t = v * 7;
+            packPositionColorTex(from, offset, to, t);
+            to[t + 6] =
+                ((int)(from[offset + 12] * 0xFF / 2) & 0xFF) |
+                ((int)(from[offset + 13] * 0xFF / 2) & 0xFF) << 8 |
+                ((int)(from[offset + 14] * 0xFF / 2) & 0xFF) << 16 |
+                ((int)(from[offset + 16] * 0xFF / 2) & 0xFF) << 24;
+        }
+        else
+        {
+            for(int e = 0; e < format.getElementCount(); e++)
+            {
+                pack(from, offset + e * 4, 4, to, format, v, e);
+            }
+        }
+    }
+
+    private static void packPositionColorTex(float[] from, int s, int[] to, int t)
+    {
+        to[t + 0] = Float.floatToRawIntBits(from[s + 0]);
+        to[t + 1] = Float.floatToRawIntBits(from[s + 1]);
+        to[t + 2] = Float.floatToRawIntBits(from[s + 2]);
+        to[t + 3] =
+            ((int)(from[s + 4] * 0xFF) & 0xFF) |
+            ((int)(from[s + 5] * 0xFF) & 0xFF) << 8 |
+            ((int)(from[s + 6] * 0xFF) & 0xFF) << 16 |
+            ((int)(from[s + 7] * 0xFF) & 0xFF) << 24;
+        to[t + 4] = Float.floatToRawIntBits(from[s + 8]);
+        to[t + 5] = Float.floatToRawIntBits(from[s + 9]);
+    }
+
+    /**
+     * Per thread scratch space of the quad pipes, and the converter of the last pair of formats.
+     */
+    private static final class QuadBuffer
+    {
+        private final float[] element = new float[4];
+        private float[] quad = new float[0];
+        private float[] vertex = new float[0];
+        private VertexFormat lastSource;
+        private VertexFormat lastTarget;
+        private VertexFormatConverter lastConverter;
+
+        float[] getElement()
+        {
+            return element;
+        }
+
+        float[] getQuad(int size)
+        {
+            if(quad.length < size) quad = new float[size];
+            return quad;
+        }
+
+        float[] getVertex(int size)
+        {
+            if(vertex.length < size) vertex = new float[size];
+            return vertex;
+        }
+
+        VertexFormatConverter getConverter(VertexFormat source, VertexFormat target)
+        {
+            if(source != lastSource || target != lastTarget)
+            {
+                lastConverter = VertexFormatConverter.get(source, target);
+                lastSource = source;
+                lastTarget = target;
+            }
+            return lastConverter;
+        }
+    }
+
     private static IVertexConsumer tessellator = null;
     public static IVertexConsumer getTessellator()
     {
@@ -2,7 +2,7 @@ package net.minecraftforge.client.model.pipeline;
 
 import net.minecraft.client.renderer.vertex.VertexFormat;
 
-public abstract class QuadGatheringTransformer implements IVertexConsumer
+public abstract class QuadGatheringTransformer implements IPackedVertexConsumer
 {
     protected IVertexConsumer parent;
     protected VertexFormat format;
@@ -45,5 +45,25 @@ public abstract class QuadGatheringTransformer implements IVertexConsumer
         }
     }
 
+    @Override
+    public void putVertex(float[] data, int offset, int mask)
+    {
+        int count = getVertexFormat().getElementCount();
+        for(int e = 0; e < count; e++)
+        {
+            System.arraycopy(data, offset + e * 4, quadData[e][vertices], 0, 4);
+            if(vertices == 0)
+            {
+                dataLength[e] = (byte)((mask & (1 << e)) != 0 ? 4 : 0);
+            }
+        }
+        vertices++;
+        if(vertices == 4)
+        {
+            vertices = 0;
+            processQuad();
+        }
+    }
+
     protected abstract void processQuad();
 }
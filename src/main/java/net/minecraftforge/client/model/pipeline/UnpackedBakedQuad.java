@@ -41,20 +41,25 @@ public class UnpackedBakedQuad extends BakedQuad
     @Override
     public void pipe(IVertexConsumer consumer)
     {
-        int[] eMap = LightUtil.mapFormats(consumer.getVertexFormat(), format);
-
         if(hasTintIndex())
         {
             consumer.setQuadTint(getTintIndex());
         }
         consumer.setQuadOrientation(getFace());
+        if(consumer instanceof IPackedVertexConsumer && consumer.getVertexFormat().getElementCount() <= 32)
+        {
+            LightUtil.putUnpackedQuad((IPackedVertexConsumer)consumer, unpackedData, format);
+            return;
+        }
+        VertexFormatConverter converter = VertexFormatConverter.get(format, consumer.getVertexFormat());
         for(int v = 0; v < 4; v++)
         {
             for(int e = 0; e < consumer.getVertexFormat().getElementCount(); e++)
             {
-                if(eMap[e] != format.getElementCount())
+                int source = converter.getSourceElement(e);
+                if(source != -1)
                 {
-                    consumer.put(e, unpackedData[v][eMap[e]]);
+                    consumer.put(e, unpackedData[v][source]);
                 }
                 else
                 {
@@ -64,7 +69,7 @@ public class UnpackedBakedQuad extends BakedQuad
         }
     }
 
-    public static class Builder implements IVertexConsumer
+    public static class Builder implements IPackedVertexConsumer
     {
         private final VertexFormat format;
         private final float[][][] unpackedData;
@@ -138,6 +143,20 @@ public class UnpackedBakedQuad extends BakedQuad
             }
         }
 
+        public void putVertex(float[] data, int offset, int mask)
+        {
+            for(int e = 0; e < format.getElementCount(); e++)
+            {
+                System.arraycopy(data, offset + e * 4, unpackedData[vertices][e], 0, 4);
+            }
+            vertices++;
+            elements = 0;
+            if(vertices == 4)
+            {
+                full = true;
+            }
+        }
+
         private final float eps = 1f / 0x100;
 
         public UnpackedBakedQuad build()
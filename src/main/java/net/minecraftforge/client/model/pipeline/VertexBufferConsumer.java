@@ -9,11 +9,14 @@ import net.minecraft.util.EnumFacing;
 /**
  * Assumes VertexFormatElement is present in the VertexBuffer's vertex format.
  */
-public class VertexBufferConsumer implements IVertexConsumer
+public class VertexBufferConsumer implements IPackedVertexConsumer
 {
     private static final float[] dummyColor = new float[]{ 1, 1, 1, 1 };
     private final VertexBuffer renderer;
     private final int[] quadData;
+    private float[] vertex = null;
+    private VertexFormat converterFormat = null;
+    private VertexFormatConverter converter = null;
     private int v = 0;
     private BlockPos offset = BlockPos.ORIGIN;
 
@@ -39,14 +42,46 @@ public class VertexBufferConsumer implements IVertexConsumer
         LightUtil.pack(data, quadData, format, v, e);
         if(e == format.getElementCount() - 1)
         {
-            v++;
-            if(v == 4)
+            nextVertex();
+        }
+    }
+
+    public void putVertex(float[] data, int offset, int mask)
+    {
+        VertexFormat format = getVertexFormat();
+        if(renderer.isColorDisabled())
+        {
+            int count = format.getElementCount();
+            if(vertex == null) vertex = new float[count * 4];
+            System.arraycopy(data, offset, vertex, 0, count * 4);
+            for(int e = 0; e < count; e++)
             {
-                renderer.addVertexData(quadData);
-                renderer.putPosition(offset.getX(), offset.getY(), offset.getZ());
-                //Arrays.fill(quadData, 0);
-                v = 0;
+                if(format.getElement(e).getUsage() == EnumUsage.COLOR)
+                {
+                    System.arraycopy(dummyColor, 0, vertex, e * 4, 4);
+                }
             }
+            data = vertex;
+            offset = 0;
+        }
+        if(format != converterFormat)
+        {
+            converter = VertexFormatConverter.get(format, format);
+            converterFormat = format;
+        }
+        converter.pack(data, offset, quadData, v);
+        nextVertex();
+    }
+
+    private void nextVertex()
+    {
+        v++;
+        if(v == 4)
+        {
+            renderer.addVertexData(quadData);
+            renderer.putPosition(offset.getX(), offset.getY(), offset.getZ());
+            //Arrays.fill(quadData, 0);
+            v = 0;
         }
     }
 
@@ -0,0 +1,301 @@
+package net.minecraftforge.client.model.pipeline;
+
+import java.util.concurrent.ConcurrentMap;
+
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+import net.minecraft.client.renderer.vertex.VertexFormatElement;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Converts vertices between the packed form of a source format and the unpacked form of a target format,
+ * 4 floats per target element like {@link IPackedVertexConsumer} takes them. Target elements are matched to source
+ * elements by usage and index, like {@link LightUtil#mapFormats} does.
+ *
+ * Converters are interned per pair of formats, compared by identity, and work out once how each element is stored,
+ * so converting a quad doesn't look at the element descriptions at all. Floats and bytes or shorts that don't cross
+ * an int are read directly, {@link DefaultVertexFormats#BLOCK} and {@link DefaultVertexFormats#ITEM} converted to
+ * themselves go through the unrolled code in {@link LightUtil}, anything else through {@link LightUtil#unpack}'s code.
+ */
+public final class VertexFormatConverter
+{
+    private static final ConcurrentMap<VertexFormat, ConcurrentMap<VertexFormat, VertexFormatConverter>> converters = new MapMaker().weakKeys().makeMap();
+
+    private static final byte MISSING = 0;
+    private static final byte FLOAT = 1;
+    private static final byte UBYTE = 2;
+    private static final byte BYTE = 3;
+    private static final byte USHORT = 4;
+    private static final byte SHORT = 5;
+    private static final byte GENERIC = 6;
+
+    private static final byte LAYOUT_NONE = 0;
+    private static final byte LAYOUT_BLOCK = 1;
+    private static final byte LAYOUT_ITEM = 2;
+
+    // no references to the formats themselves, they are the keys of the weak interning maps
+    private final int targetCount;
+    private final int sourceSize;
+    private final int stride;
+    private final byte layout;
+    private final int mask;
+    private final int[] elementMap;
+    private final byte[] kinds;
+    private final int[] offsets;
+    private final int[] counts;
+    private final VertexFormatElement.EnumType[] types;
+
+    /**
+     * @return The converter from source to target, the same instance for the same pair of format instances
+     */
+    public static VertexFormatConverter get(VertexFormat source, VertexFormat target)
+    {
+        ConcurrentMap<VertexFormat, VertexFormatConverter> targets = converters.get(source);
+        if(targets == null)
+        {
+            ConcurrentMap<VertexFormat, VertexFormatConverter> fresh = new MapMaker().weakKeys().makeMap();
+            targets = converters.putIfAbsent(source, fresh);
+            if(targets == null) targets = fresh;
+        }
+        VertexFormatConverter converter = targets.get(target);
+        if(converter == null)
+        {
+            VertexFormatConverter fresh = new VertexFormatConverter(source, target);
+            converter = targets.putIfAbsent(target, fresh);
+            if(converter == null) converter = fresh;
+        }
+        return converter;
+    }
+
+    private VertexFormatConverter(VertexFormat source, VertexFormat target)
+    {
+        targetCount = target.getElementCount();
+        sourceSize = source.getNextOffset();
+        stride = sourceSize / 4;
+        boolean aligned = (sourceSize & 3) == 0;
+        if(source == target && source == DefaultVertexFormats.BLOCK)
+        {
+            layout = LAYOUT_BLOCK;
+        }
+        else if(source == target && source == DefaultVertexFormats.ITEM)
+        {
+            layout = LAYOUT_ITEM;
+        }
+        else
+        {
+            layout = LAYOUT_NONE;
+        }
+
+        int[] map = LightUtil.mapFormats(target, source);
+        elementMap = new int[targetCount];
+        kinds = new byte[targetCount];
+        offsets = new int[targetCount];
+        counts = new int[targetCount];
+        types = new VertexFormatElement.EnumType[targetCount];
+        int mask = 0;
+        for(int e = 0; e < targetCount; e++)
+        {
+            if(map[e] == source.getElementCount())
+            {
+                elementMap[e] = -1;
+                kinds[e] = MISSING;
+                continue;
+            }
+            elementMap[e] = map[e];
+            if(e < 32) mask |= 1 << e;
+            VertexFormatElement element = source.getElement(map[e]);
+            int offset = source.getOffset(map[e]);
+            int count = element.getElementCount();
+            VertexFormatElement.EnumType type = element.getType();
+            offsets[e] = offset;
+            counts[e] = count;
+            types[e] = type;
+            // elements of at most 4 bytes that don't cross an int, everything else is read a value at a time
+            int inWord = (offset & 3) + count * type.getSize();
+            kinds[e] = GENERIC;
+            if(aligned && count <= 4)
+            {
+                switch(type)
+                {
+                    case FLOAT:
+                        if((offset & 3) == 0) kinds[e] = FLOAT;
+                        break;
+                    case UBYTE:
+                        if(inWord <= 4) kinds[e] = UBYTE;
+                        break;
+                    case BYTE:
+                        if(inWord <= 4) kinds[e] = BYTE;
+                        break;
+                    case USHORT:
+                        if((offset & 1) == 0 && inWord <= 4) kinds[e] = USHORT;
+                        break;
+                    case SHORT:
+                        if((offset & 1) == 0 && inWord <= 4) kinds[e] = SHORT;
+                        break;
+                    default:
+                }
+            }
+        }
+        this.mask = mask;
+    }
+
+    /**
+     * @return The mask of target elements the source has, as passed to {@link IPackedVertexConsumer#putVertex}
+     */
+    public int getMask()
+    {
+        return mask;
+    }
+
+    /**
+     * @return The source element the target element is read from, or -1 if the source doesn't have it
+     */
+    public int getSourceElement(int targetElement)
+    {
+        return elementMap[targetElement];
+    }
+
+    /**
+     * Unpacks the 4 vertices of a quad, vertex v starting at to[v * targetCount * 4].
+     * Elements the source doesn't have are zeros.
+     */
+    public void unpack(int[] from, float[] to)
+    {
+        if(layout == LAYOUT_BLOCK)
+        {
+            LightUtil.unpackQuad(from, to, DefaultVertexFormats.BLOCK);
+            return;
+        }
+        if(layout == LAYOUT_ITEM)
+        {
+            LightUtil.unpackQuad(from, to, DefaultVertexFormats.ITEM);
+            return;
+        }
+        for(int v = 0; v < 4; v++)
+        {
+            int base = v * stride;
+            for(int e = 0; e < targetCount; e++)
+            {
+                int o = (v * targetCount + e) * 4;
+                int count = counts[e];
+                int word = 0;
+                int shift = (offsets[e] & 3) * 8;
+                if(kinds[e] != MISSING && kinds[e] != GENERIC)
+                {
+                    word = from[base + (offsets[e] >> 2)];
+                }
+                switch(kinds[e])
+                {
+                    case MISSING:
+                        count = 0;
+                        break;
+                    case FLOAT:
+                        for(int i = 0; i < count; i++)
+                        {
+                            to[o + i] = Float.intBitsToFloat(from[base + (offsets[e] >> 2) + i]);
+                        }
+                        break;
+                    case UBYTE:
+                        for(int i = 0; i < count; i++)
+                        {
+                            to[o + i] = (float)((word >>> (shift + 8 * i)) & 0xFF) / 0xFF;
+                        }
+                        break;
+                    case BYTE:
+                        for(int i = 0; i < count; i++)
+                        {
+                            to[o + i] = (float)(byte)(word >>> (shift + 8 * i)) / 0xFF * 2;
+                        }
+                        break;
+                    case USHORT:
+                        for(int i = 0; i < count; i++)
+                        {
+                            to[o + i] = (float)((word >>> (shift + 16 * i)) & 0xFFFF) / 0xFFFF;
+                        }
+                        break;
+                    case SHORT:
+                        for(int i = 0; i < count; i++)
+                        {
+                            to[o + i] = (float)(short)(word >>> (shift + 16 * i)) / 0xFFFF * 2;
+                        }
+                        break;
+                    default:
+                        LightUtil.unpackElement(from, to, o, 4, v * sourceSize + offsets[e], count, types[e]);
+                        count = 4;
+                }
+                for(int i = count; i < 4; i++)
+                {
+                    to[o + i] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs one vertex given in the target format into the source format, the reverse of {@link #unpack}.
+     * Source elements the target doesn't have are left as they are.
+     */
+    public void pack(float[] from, int offset, int[] to, int v)
+    {
+        if(layout == LAYOUT_BLOCK)
+        {
+            LightUtil.packVertex(from, offset, to, DefaultVertexFormats.BLOCK, v);
+            return;
+        }
+        if(layout == LAYOUT_ITEM)
+        {
+            LightUtil.packVertex(from, offset, to, DefaultVertexFormats.ITEM, v);
+            return;
+        }
+        int base = v * stride;
+        for(int e = 0; e < targetCount; e++)
+        {
+            int o = offset + e * 4;
+            int count = counts[e];
+            int index = base + (offsets[e] >> 2);
+            int shift = (offsets[e] & 3) * 8;
+            switch(kinds[e])
+            {
+                case MISSING:
+                    break;
+                case FLOAT:
+                    for(int i = 0; i < count; i++)
+                    {
+                        to[index + i] = Float.floatToRawIntBits(from[o + i]);
+                    }
+                    break;
+                case UBYTE:
+                case BYTE:
+                {
+                    boolean signed = kinds[e] == BYTE;
+                    int word = to[index];
+                    for(int i = 0; i < count; i++)
+                    {
+                        int bits = signed ? (int)(from[o + i] * 0xFF / 2) : (int)(from[o + i] * 0xFF);
+                        int s = shift + 8 * i;
+                        word = (word & ~(0xFF << s)) | ((bits & 0xFF) << s);
+                    }
+                    to[index] = word;
+                    break;
+                }
+                case USHORT:
+                case SHORT:
+                {
+                    boolean signed = kinds[e] == SHORT;
+                    int word = to[index];
+                    for(int i = 0; i < count; i++)
+                    {
+                        int bits = signed ? (int)(from[o + i] * 0xFFFF / 2) : (int)(from[o + i] * 0xFFFF);
+                        int s = shift + 16 * i;
+                        word = (word & ~(0xFFFF << s)) | ((bits & 0xFFFF) << s);
+                    }
+                    to[index] = word;
+                    break;
+                }
+                default:
+                    LightUtil.packElement(from, o, 4, to, v * sourceSize + offsets[e], count, types[e]);
+            }
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package net.minecraftforge.client.model.pipeline;
 
-import javax.vecmath.Vector3f;
-
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.client.renderer.EntityRenderer;
 import net.minecraft.client.renderer.color.BlockColors;
@@ -24,6 +22,10 @@ public class VertexLighterFlat extends QuadGatheringTransformer
     protected int colorIndex = -1;
     protected int lightmapIndex = -1;
 
+    private VertexFormat parentFormat = null;
+    private final float[][] faceNormal = new float[4][4];
+    private float[] vertex = new float[0];
+
     public VertexLighterFlat(BlockColors colors)
     {
         this.blockInfo = new BlockInfo(colors);
@@ -33,7 +35,9 @@ public class VertexLighterFlat extends QuadGatheringTransformer
     public void setParent(IVertexConsumer parent)
     {
         super.setParent(parent);
-        if(Objects.equal(getVertexFormat(), parent.getVertexFormat())) return;
+        // a new format per parent would make every parent look like a new pair of formats to the converters
+        if(Objects.equal(getVertexFormat(), parent.getVertexFormat()) || parent.getVertexFormat() == parentFormat) return;
+        parentFormat = parent.getVertexFormat();
         setVertexFormat(getVertexFormat(parent));
         for(int i = 0; i < getVertexFormat().getElementCount(); i++)
         {
@@ -97,20 +101,23 @@ public class VertexLighterFlat extends QuadGatheringTransformer
         }
         else
         {
-            normal = new float[4][4];
-            Vector3f v1 = new Vector3f(position[3]);
-            Vector3f t = new Vector3f(position[1]);
-            Vector3f v2 = new Vector3f(position[2]);
-            v1.sub(t);
-            t.set(position[0]);
-            v2.sub(t);
-            v1.cross(v2, v1);
-            v1.normalize();
+            // (v2 - v0) x (v3 - v1), normalized
+            normal = faceNormal;
+            float ax = position[3][0] - position[1][0];
+            float ay = position[3][1] - position[1][1];
+            float az = position[3][2] - position[1][2];
+            float bx = position[2][0] - position[0][0];
+            float by = position[2][1] - position[0][1];
+            float bz = position[2][2] - position[0][2];
+            float nx = by * az - bz * ay;
+            float ny = ax * bz - bx * az;
+            float nz = bx * ay - by * ax;
+            float norm = (float)(1.0 / Math.sqrt(nx * nx + ny * ny + nz * nz));
             for(int v = 0; v < 4; v++)
             {
-                normal[v][0] = v1.x;
-                normal[v][1] = v1.y;
-                normal[v][2] = v1.z;
+                normal[v][0] = nx * norm;
+                normal[v][1] = ny * norm;
+                normal[v][2] = nz * norm;
                 normal[v][3] = 0;
             }
         }
@@ -123,7 +130,14 @@ public class VertexLighterFlat extends QuadGatheringTransformer
 
         VertexFormat format = parent.getVertexFormat();
         int count = format.getElementCount();
+        IPackedVertexConsumer packed = null;
+        if(parent instanceof IPackedVertexConsumer && count <= 32)
+        {
+            packed = (IPackedVertexConsumer)parent;
+            if(vertex.length < count * 4) vertex = new float[count * 4];
+        }
 
+        float d = 1;
         for(int v = 0; v < 4; v++)
         {
             position[v][0] += blockInfo.getShx();
@@ -151,7 +165,11 @@ public class VertexLighterFlat extends QuadGatheringTransformer
             updateColor(normal[v], color[v], x, y, z, tint, multiplier);
             if(diffuse)
             {
-                float d = LightUtil.diffuseLight(normal[v][0], normal[v][1], normal[v][2]);
+                // most quads have one normal for all vertices
+                if(v == 0 || normal[v][0] != normal[v - 1][0] || normal[v][1] != normal[v - 1][1] || normal[v][2] != normal[v - 1][2])
+                {
+                    d = LightUtil.diffuseLight(normal[v][0], normal[v][1], normal[v][2]);
+                }
                 for(int i = 0; i < 3; i++)
                 {
                     color[v][i] *= d;
@@ -175,29 +193,45 @@ public class VertexLighterFlat extends QuadGatheringTransformer
                         pos[0] += blockInfo.getBlockPos().getX();
                         pos[1] += blockInfo.getBlockPos().getY();
                         pos[2] += blockInfo.getBlockPos().getZ();*/
-                        parent.put(e, position[v]);
+                        putElement(packed, e, position[v]);
                         break;
                     case NORMAL: if(normalIndex != -1)
                     {
-                        parent.put(e, normal[v]);
+                        putElement(packed, e, normal[v]);
                         break;
                     }
                     case COLOR:
-                        parent.put(e, color[v]);
+                        putElement(packed, e, color[v]);
                         break;
                     case UV: if(element.getIndex() == 1)
                     {
-                        parent.put(e, lightmap[v]);
+                        putElement(packed, e, lightmap[v]);
                         break;
                     }
                     default:
-                        parent.put(e, quadData[e][v]);
+                        putElement(packed, e, quadData[e][v]);
                 }
             }
+            if(packed != null)
+            {
+                packed.putVertex(vertex, 0, LightUtil.elementMask(count));
+            }
         }
         tint = -1;
     }
 
+    private void putElement(IPackedVertexConsumer packed, int e, float[] data)
+    {
+        if(packed != null)
+        {
+            System.arraycopy(data, 0, vertex, e * 4, 4);
+        }
+        else
+        {
+            parent.put(e, data);
+        }
+    }
+
     protected void applyAnaglyph(float[] color)
     {
         float r = color[0];
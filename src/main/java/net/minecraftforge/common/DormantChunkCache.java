@@ -0,0 +1,309 @@
+/**
+ * This software is provided under the terms of the Minecraft Forge Public
+ * License v1.0.
+ */
+
+package net.minecraftforge.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.ClassInheritanceMultiMap;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.event.world.ChunkDataEvent;
+import net.minecraftforge.fml.common.FMLLog;
+
+import org.apache.logging.log4j.Level;
+
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Keeps recently unloaded chunks of one world around so loading them again skips the region file.
+ *
+ * The cache is either bounded by chunk count or, if a memory limit is configured, by the estimated size of each entry.
+ * Live chunks are weighed by their section storage, which dominates their footprint.
+ * In compressed mode the data a chunk was saved with as it unloaded is deflated on a background thread, which drops
+ * its entities and tile entities from the heap, and the chunk is rebuilt through the {@link AnvilChunkLoader} when
+ * it is fetched again. A chunk fetched before its data is compressed is loaded the regular way, which sees the save.
+ *
+ * A chunk is removed from the cache when it is fetched, it is put back when it unloads again.
+ */
+public class DormantChunkCache
+{
+    // Biomes, height map, precipitation height map and the fixed fields of the chunk itself
+    private static final int CHUNK_BASE_BYTES = 256 + 1024 + 1024 + 512;
+    // The block state container of a section, at the 8 bits per block most sections settle on
+    private static final int SECTION_BLOCK_BYTES = 4096;
+    private static final int SECTION_BASE_BYTES = 64;
+    private static final int COMPRESSED_BASE_BYTES = 64;
+    private static final ExecutorService compressor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("Dormant Chunk Compressor #%d").setDaemon(true).build());
+
+    private final World world;
+    private final boolean compressed;
+    private final Cache<Long, Entry> cache;
+    private final AtomicLong bytesHeld = new AtomicLong();
+
+    /**
+     * @param maxChunks Maximum number of chunks, used if maxBytes is 0
+     * @param maxBytes Maximum estimated size of all entries, 0 to bound by chunk count
+     * @param compressed Store deflated NBT instead of the chunk objects
+     */
+    DormantChunkCache(World world, int maxChunks, long maxBytes, boolean compressed)
+    {
+        this.world = world;
+        this.compressed = compressed;
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+        if (maxBytes > 0)
+        {
+            builder.maximumWeight(maxBytes).weigher(new Weigher<Long, Entry>()
+            {
+                @Override
+                public int weigh(Long key, Entry value)
+                {
+                    return value.bytes;
+                }
+            });
+        }
+        else
+        {
+            builder.maximumSize(maxChunks);
+        }
+        this.cache = builder.removalListener(new RemovalListener<Long, Entry>()
+        {
+            @Override
+            public void onRemoval(RemovalNotification<Long, Entry> notification)
+            {
+                bytesHeld.addAndGet(-notification.getValue().bytes);
+            }
+        }).build();
+    }
+
+    void put(long coords, Chunk chunk)
+    {
+        if (compressed)
+        {
+            putCompressed(coords, chunk);
+            return;
+        }
+        Entry entry = new Entry(chunk, null, estimateSize(chunk));
+        bytesHeld.addAndGet(entry.bytes);
+        cache.put(coords, entry);
+    }
+
+    /**
+     * Chunks are saved right before they are put in the cache, the data of that save is compressed off the main thread.
+     * Until then the entry is weighed like a live chunk.
+     */
+    private void putCompressed(final long coords, Chunk chunk)
+    {
+        AnvilChunkLoader loader = getLoader();
+        final Supplier<NBTTagCompound> save = loader == null ? null : loader.takeLastSave(chunk);
+        if (save == null)
+        {
+            return;
+        }
+        final Entry compressing = new Entry(null, null, estimateSize(chunk));
+        bytesHeld.addAndGet(compressing.bytes);
+        cache.put(coords, compressing);
+        compressor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                byte[] data = compress(coords, save);
+                if (data == null)
+                {
+                    cache.asMap().remove(coords, compressing);
+                    return;
+                }
+                Entry entry = new Entry(null, data, data.length + COMPRESSED_BASE_BYTES);
+                bytesHeld.addAndGet(entry.bytes);
+                // Fails if the chunk was fetched or evicted in the meantime
+                if (!cache.asMap().replace(coords, compressing, entry))
+                {
+                    bytesHeld.addAndGet(-entry.bytes);
+                }
+            }
+        });
+    }
+
+    Chunk fetch(long coords)
+    {
+        Entry entry = cache.getIfPresent(coords);
+        if (entry == null)
+        {
+            return null;
+        }
+        cache.invalidate(coords);
+        if (entry.data != null)
+        {
+            return decompress(coords, entry.data);
+        }
+        if (entry.chunk == null)
+        {
+            return null; // Still being compressed
+        }
+        Chunk chunk = entry.chunk;
+        for (ClassInheritanceMultiMap<Entity> eList : chunk.getEntityLists())
+        {
+            Iterator<Entity> itr = eList.iterator();
+            while (itr.hasNext())
+            {
+                (itr.next()).resetEntityId();
+            }
+        }
+        return chunk;
+    }
+
+    boolean contains(long coords)
+    {
+        return cache.asMap().containsKey(coords);
+    }
+
+    private byte[] compress(long coords, Supplier<NBTTagCompound> save)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+            CompressedStreamTools.writeCompressed(save.get(), bytes);
+            return bytes.toByteArray();
+        }
+        catch (Exception e)
+        {
+            FMLLog.log(Level.WARN, e, "Unable to store dormant chunk (%d, %d), it will be loaded from disk", (int)coords, (int)(coords >>> 32));
+            return null;
+        }
+    }
+
+    private Chunk decompress(long coords, byte[] data)
+    {
+        AnvilChunkLoader loader = getLoader();
+        if (loader == null)
+        {
+            return null;
+        }
+        try
+        {
+            NBTTagCompound nbt = CompressedStreamTools.readCompressed(new ByteArrayInputStream(data));
+            Chunk chunk = loader.readDormantChunk(world, (int)coords, (int)(coords >>> 32), nbt);
+            if (chunk != null)
+            {
+                MinecraftForge.EVENT_BUS.post(new ChunkDataEvent.Load(chunk, nbt));
+            }
+            return chunk;
+        }
+        catch (IOException e)
+        {
+            FMLLog.log(Level.WARN, e, "Unable to restore dormant chunk (%d, %d), it will be loaded from disk", (int)coords, (int)(coords >>> 32));
+            return null;
+        }
+    }
+
+    private AnvilChunkLoader getLoader()
+    {
+        if (world instanceof WorldServer && ((WorldServer)world).getChunkProvider().chunkLoader instanceof AnvilChunkLoader)
+        {
+            return (AnvilChunkLoader)((WorldServer)world).getChunkProvider().chunkLoader;
+        }
+        return null;
+    }
+
+    /**
+     * @return Approximate heap size of the chunk's block, light and biome storage
+     */
+    public static int estimateSize(Chunk chunk)
+    {
+        int bytes = CHUNK_BASE_BYTES;
+        for (ExtendedBlockStorage storage : chunk.getBlockStorageArray())
+        {
+            if (storage == null)
+            {
+                continue;
+            }
+            bytes += SECTION_BASE_BYTES + SECTION_BLOCK_BYTES;
+            if (storage.getBlocklightArray() != null)
+            {
+                bytes += storage.getBlocklightArray().getData().length;
+            }
+            if (storage.getSkylightArray() != null)
+            {
+                bytes += storage.getSkylightArray().getData().length;
+            }
+        }
+        return bytes;
+    }
+
+    public boolean isCompressed()
+    {
+        return compressed;
+    }
+
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    /**
+     * @return Estimated bytes held by the cached entries
+     */
+    public long getBytesHeld()
+    {
+        return bytesHeld.get();
+    }
+
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * @return Entries dropped to stay within the configured bounds
+     */
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+
+    private static class Entry
+    {
+        final Chunk chunk;
+        final byte[] data;
+        final int bytes;
+
+        Entry(Chunk chunk, byte[] data, int bytes)
+        {
+            this.chunk = chunk;
+            this.data = data;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * This software is provided under the terms of the Minecraft Forge Public
+ * License v1.0.
+ */
+
+package net.minecraftforge.common;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraftforge.common.ForgeChunkManager.Ticket;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Sets;
+
+/**
+ * The forced chunks of a single world, keyed by {@link ChunkCoordIntPair#chunkXZ2Int}.
+ *
+ * Forcing or unforcing a chunk only touches the entry of that chunk. The immutable multimap handed out by
+ * {@link ForgeChunkManager#getPersistentChunksFor} is built on first use after a change and shared until the next one,
+ * so worlds whose tickets don't change every tick never copy it.
+ */
+class ForcedChunkIndex
+{
+    private static final long[] NO_KEYS = new long[0];
+
+    private final TLongObjectHashMap<ForcedChunk> chunks = new TLongObjectHashMap<ForcedChunk>();
+    private volatile ImmutableSetMultimap<ChunkCoordIntPair, Ticket> view = ImmutableSetMultimap.of();
+    // Sorted, replaced rather than modified so iterators handed out earlier keep a stable snapshot
+    private long[] keys = NO_KEYS;
+    private boolean keysDirty = false;
+    private final PersistentChunkIterator tickIterator = new PersistentChunkIterator();
+
+    /**
+     * @return False if the ticket was already forcing the chunk
+     */
+    synchronized boolean add(ChunkCoordIntPair pos, Ticket ticket)
+    {
+        long key = ChunkCoordIntPair.chunkXZ2Int(pos.chunkXPos, pos.chunkZPos);
+        ForcedChunk chunk = chunks.get(key);
+        if (chunk == null)
+        {
+            chunk = new ForcedChunk(pos);
+            chunks.put(key, chunk);
+            keysDirty = true;
+        }
+        if (!chunk.tickets.add(ticket))
+        {
+            return false;
+        }
+        view = null;
+        return true;
+    }
+
+    /**
+     * @return False if the ticket was not forcing the chunk
+     */
+    synchronized boolean remove(ChunkCoordIntPair pos, Ticket ticket)
+    {
+        long key = ChunkCoordIntPair.chunkXZ2Int(pos.chunkXPos, pos.chunkZPos);
+        ForcedChunk chunk = chunks.get(key);
+        if (chunk == null || !chunk.tickets.remove(ticket))
+        {
+            return false;
+        }
+        if (chunk.tickets.isEmpty())
+        {
+            chunks.remove(key);
+            keysDirty = true;
+        }
+        view = null;
+        return true;
+    }
+
+    synchronized boolean isForced(int chunkX, int chunkZ)
+    {
+        return chunks.containsKey(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+    }
+
+    synchronized boolean isEmpty()
+    {
+        return chunks.isEmpty();
+    }
+
+    /**
+     * @return The number of distinct forced chunks
+     */
+    synchronized int size()
+    {
+        return chunks.size();
+    }
+
+    ImmutableSetMultimap<ChunkCoordIntPair, Ticket> asMultimap()
+    {
+        ImmutableSetMultimap<ChunkCoordIntPair, Ticket> ret = view;
+        if (ret != null)
+        {
+            return ret;
+        }
+        synchronized (this)
+        {
+            if (view == null)
+            {
+                ImmutableSetMultimap.Builder<ChunkCoordIntPair, Ticket> builder = ImmutableSetMultimap.builder();
+                for (TLongObjectIterator<ForcedChunk> itr = chunks.iterator(); itr.hasNext();)
+                {
+                    itr.advance();
+                    builder.putAll(itr.value().pos, itr.value().tickets);
+                }
+                view = builder.build();
+            }
+            return view;
+        }
+    }
+
+    private synchronized long[] sortedKeys()
+    {
+        if (keysDirty)
+        {
+            long[] ret = chunks.keys();
+            Arrays.sort(ret);
+            keys = ret;
+            keysDirty = false;
+        }
+        return keys;
+    }
+
+    /**
+     * Iterates the forced chunks followed by those chunks of the supplied iterator that are not forced.
+     * Chunks forced or unforced while iterating are picked up on the next call.
+     *
+     * The world tick asks for this every tick, so the same iterator is reused as long as the previous one was run to the end.
+     */
+    Iterator<Chunk> iterator(World world, Iterator<Chunk> chunkIterator)
+    {
+        PersistentChunkIterator ret;
+        synchronized (this)
+        {
+            ret = tickIterator.active ? new PersistentChunkIterator() : tickIterator;
+            ret.active = true;
+        }
+        ret.reset(world, sortedKeys(), chunkIterator);
+        return ret;
+    }
+
+    private static class ForcedChunk
+    {
+        final ChunkCoordIntPair pos;
+        final Set<Ticket> tickets = Sets.newLinkedHashSet();
+
+        ForcedChunk(ChunkCoordIntPair pos)
+        {
+            this.pos = pos;
+        }
+    }
+
+    private class PersistentChunkIterator implements Iterator<Chunk>
+    {
+        private boolean active;
+        private World world;
+        private long[] forced;
+        private int index;
+        private Iterator<Chunk> regular;
+        private Chunk next;
+
+        private void reset(World world, long[] forced, Iterator<Chunk> regular)
+        {
+            this.world = world;
+            this.forced = forced;
+            this.index = 0;
+            this.regular = regular;
+            this.next = null;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (next != null)
+            {
+                return true;
+            }
+            if (world == null)
+            {
+                return false;
+            }
+            if (index < forced.length)
+            {
+                long key = forced[index++];
+                next = world.getChunkFromChunkCoords((int)key, (int)(key >>> 32));
+                return true;
+            }
+            while (regular.hasNext())
+            {
+                Chunk chunk = regular.next();
+                if (Arrays.binarySearch(forced, ChunkCoordIntPair.chunkXZ2Int(chunk.xPosition, chunk.zPosition)) < 0)
+                {
+                    next = chunk;
+                    return true;
+                }
+            }
+            world = null;
+            forced = null;
+            regular = null;
+            synchronized (ForcedChunkIndex.this)
+            {
+                active = false;
+            }
+            return false;
+        }
+
+        @Override
+        public Chunk next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            Chunk ret = next;
+            next = null;
+            return ret;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -15,13 +15,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
-import javax.annotation.Nullable;
-
 import net.minecraft.entity.Entity;
 import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
-import net.minecraft.util.ClassInheritanceMultiMap;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
@@ -39,9 +36,6 @@ import net.minecraftforge.fml.common.eventhandler.Event;
 
 import org.apache.logging.log4j.Level;
 
-import com.google.common.base.Function;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
@@ -50,8 +44,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
-import com.google.common.collect.Iterators;
-import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
@@ -90,15 +82,17 @@ public class ForgeChunkManager
 
     private static Map<String, LoadingCallback> callbacks = Maps.newHashMap();
 
-    private static Map<World, ImmutableSetMultimap<ChunkCoordIntPair,Ticket>> forcedChunks = new MapMaker().weakKeys().makeMap();
+    private static Map<World, ForcedChunkIndex> forcedChunks = new MapMaker().weakKeys().makeMap();
     private static BiMap<UUID,Ticket> pendingEntities = HashBiMap.create();
 
-    private static Map<World,Cache<Long, Chunk>> dormantChunkCache = new MapMaker().weakKeys().makeMap();
+    private static Map<World, DormantChunkCache> dormantChunkCache = new MapMaker().weakKeys().makeMap();
 
     private static File cfgFile;
     private static Configuration config;
     private static int playerTicketLength;
     private static int dormantChunkCacheSize;
+    private static int dormantChunkCacheMemory;
+    private static boolean dormantChunkCacheCompressed;
 
     public static final List<String> MOD_PROP_ORDER = new ArrayList<String>(2);
 
@@ -112,21 +106,12 @@ public class ForgeChunkManager
 
     public static Iterator<Chunk> getPersistentChunksIterableFor(final World world, Iterator<Chunk> chunkIterator)
     {
-        final ImmutableSetMultimap<ChunkCoordIntPair, Ticket> persistentChunksFor = getPersistentChunksFor(world);
-        final ImmutableSet.Builder<Chunk> builder = ImmutableSet.builder();
-        world.theProfiler.startSection("forcedChunkLoading");
-        builder.addAll(Iterators.transform(persistentChunksFor.keys().iterator(), new Function<ChunkCoordIntPair, Chunk>() {
-            @Nullable
-            @Override
-            public Chunk apply(@Nullable ChunkCoordIntPair input)
-            {
-                return world.getChunkFromChunkCoords(input.chunkXPos, input.chunkZPos);
-            }
-        }));
-        world.theProfiler.endStartSection("regularChunkLoading");
-        builder.addAll(chunkIterator);
-        world.theProfiler.endSection();
-        return builder.build().iterator();
+        ForcedChunkIndex index = forcedChunks.get(world);
+        if (index == null)
+        {
+            return chunkIterator;
+        }
+        return index.iterator(world, chunkIterator);
     }
 
     /**
@@ -444,14 +429,17 @@ public class ForgeChunkManager
         ArrayListMultimap<String, Ticket> newTickets = ArrayListMultimap.create();
         tickets.put(world, newTickets);
 
-        forcedChunks.put(world, ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>of());
+        forcedChunks.put(world, new ForcedChunkIndex());
 
         if (!(world instanceof WorldServer))
         {
             return;
         }
 
-        dormantChunkCache.put(world, CacheBuilder.newBuilder().maximumSize(dormantChunkCacheSize).<Long, Chunk>build());
+        if (dormantChunkCacheSize > 0 || dormantChunkCacheMemory > 0)
+        {
+            dormantChunkCache.put(world, new DormantChunkCache(world, dormantChunkCacheSize, dormantChunkCacheMemory * 1024L * 1024L, dormantChunkCacheCompressed));
+        }
         WorldServer worldServer = (WorldServer) world;
         File chunkDir = worldServer.getChunkSaveLocation();
         File chunkLoaderData = new File(chunkDir, "forcedchunks.dat");
@@ -785,8 +773,7 @@ public class ForgeChunkManager
         ticket.requestedChunks.add(chunk);
         MinecraftForge.EVENT_BUS.post(new ForceChunkEvent(ticket, chunk));
 
-        ImmutableSetMultimap<ChunkCoordIntPair, Ticket> newMap = ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>builder().putAll(forcedChunks.get(ticket.world)).put(chunk, ticket).build();
-        forcedChunks.put(ticket.world, newMap);
+        forcedChunks.get(ticket.world).add(chunk, ticket);
         if (ticket.maxDepth > 0 && ticket.requestedChunks.size() > ticket.maxDepth)
         {
             ChunkCoordIntPair removed = ticket.requestedChunks.iterator().next();
@@ -825,10 +812,7 @@ public class ForgeChunkManager
         }
         ticket.requestedChunks.remove(chunk);
         MinecraftForge.EVENT_BUS.post(new UnforceChunkEvent(ticket, chunk));
-        LinkedHashMultimap<ChunkCoordIntPair, Ticket> copy = LinkedHashMultimap.create(forcedChunks.get(ticket.world));
-        copy.remove(chunk, ticket);
-        ImmutableSetMultimap<ChunkCoordIntPair, Ticket> newMap = ImmutableSetMultimap.copyOf(copy);
-        forcedChunks.put(ticket.world,newMap);
+        forcedChunks.get(ticket.world).remove(chunk, ticket);
     }
 
     static void loadConfiguration()
@@ -859,7 +843,27 @@ public class ForgeChunkManager
      */
     public static ImmutableSetMultimap<ChunkCoordIntPair, Ticket> getPersistentChunksFor(World world)
     {
-        return forcedChunks.containsKey(world) ? forcedChunks.get(world) : ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>of();
+        ForcedChunkIndex index = forcedChunks.get(world);
+        return index != null ? index.asMultimap() : ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>of();
+    }
+
+    /**
+     * Cheaper than looking the chunk up in {@link #getPersistentChunksFor(World)}, which has to be rebuilt after every change.
+     * @return If any ticket is forcing the chunk to stay loaded
+     */
+    public static boolean isChunkForced(World world, int chunkX, int chunkZ)
+    {
+        ForcedChunkIndex index = forcedChunks.get(world);
+        return index != null && index.isForced(chunkX, chunkZ);
+    }
+
+    /**
+     * @return If any chunk in the world is forced to stay loaded
+     */
+    public static boolean hasPersistentChunks(World world)
+    {
+        ForcedChunkIndex index = forcedChunks.get(world);
+        return index != null && !index.isEmpty();
     }
 
     static void saveWorld(World world)
@@ -940,7 +944,7 @@ public class ForgeChunkManager
 
     public static void putDormantChunk(long coords, Chunk chunk)
     {
-        Cache<Long, Chunk> cache = dormantChunkCache.get(chunk.getWorld());
+        DormantChunkCache cache = dormantChunkCache.get(chunk.getWorld());
         if (cache != null)
         {
             cache.put(coords, chunk);
@@ -949,24 +953,25 @@ public class ForgeChunkManager
 
     public static Chunk fetchDormantChunk(long coords, World world)
     {
-        Cache<Long, Chunk> cache = dormantChunkCache.get(world);
-        if (cache == null)
-        {
-            return null;
-        }
-        Chunk chunk = cache.getIfPresent(coords);
-        if (chunk != null)
-        {
-            for (ClassInheritanceMultiMap<Entity> eList : chunk.getEntityLists())
-            {
-                Iterator<Entity> itr = eList.iterator();
-                while (itr.hasNext())
-                {
-                    (itr.next()).resetEntityId();
-                }
-            }
-        }
-        return chunk;
+        DormantChunkCache cache = dormantChunkCache.get(world);
+        return cache == null ? null : cache.fetch(coords);
+    }
+
+    /**
+     * Lets the chunk provider skip the region file and the chunk I/O queue for chunks that will come from the dormant cache.
+     */
+    public static boolean hasDormantChunk(long coords, World world)
+    {
+        DormantChunkCache cache = dormantChunkCache.get(world);
+        return cache != null && cache.contains(coords);
+    }
+
+    /**
+     * @return The dormant chunk cache of the world, with its hit, miss, eviction and size statistics, or null if it is disabled
+     */
+    public static DormantChunkCache getDormantChunkCache(World world)
+    {
+        return dormantChunkCache.get(world);
     }
 
     static void captureConfig(File configDir)
@@ -1038,7 +1043,22 @@ public class ForgeChunkManager
         temp.setMinValue(0);
         dormantChunkCacheSize = temp.getInt(0);
         propOrder.add("dormantChunkCacheSize");
-        FMLLog.info("Configured a dormant chunk cache size of %d", temp.getInt(0));
+
+        temp = config.get("defaults", "dormantChunkCacheMemory", 0);
+        temp.setComment("If above 0 the dormant chunk cache of each world is limited by the estimated memory\n" +
+                    "its chunks use, in megabytes, instead of by the number of chunks.");
+        temp.setLanguageKey("forge.configgui.dormantChunkCacheMemory");
+        temp.setMinValue(0);
+        dormantChunkCacheMemory = temp.getInt(0);
+        propOrder.add("dormantChunkCacheMemory");
+
+        temp = config.get("defaults", "dormantChunkCacheCompressed", false);
+        temp.setComment("Store dormant chunks as compressed NBT instead of keeping the chunks themselves.\n" +
+                    "Uses far less memory, but chunks have to be deserialized again when they are reloaded.");
+        temp.setLanguageKey("forge.configgui.dormantChunkCacheCompressed");
+        dormantChunkCacheCompressed = temp.getBoolean(false);
+        propOrder.add("dormantChunkCacheCompressed");
+        FMLLog.info("Configured a dormant chunk cache size of %d chunks, %d MB%s", dormantChunkCacheSize, dormantChunkCacheMemory, dormantChunkCacheCompressed ? ", compressed" : "");
 
         config.setCategoryPropertyOrder("defaults", propOrder);
 
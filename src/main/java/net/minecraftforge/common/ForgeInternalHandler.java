@@ -5,6 +5,7 @@ import net.minecraft.entity.item.EntityItem;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.world.WorldServer;
+import net.minecraftforge.common.chunkio.ChunkSaveExecutor;
 import net.minecraftforge.common.util.FakePlayerFactory;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.world.WorldEvent;
@@ -75,6 +76,10 @@ public class ForgeInternalHandler
     {
         ForgeChunkManager.unloadWorld(event.getWorld());
         if (event.getWorld() instanceof WorldServer)
+        {
             FakePlayerFactory.unloadWorld((WorldServer) event.getWorld());
+            // Region files may be closed once the world is gone, finish its chunk saves still in flight
+            ChunkSaveExecutor.flush(((WorldServer)event.getWorld()).getChunkSaveLocation());
+        }
     }
 }
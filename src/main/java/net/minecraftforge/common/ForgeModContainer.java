@@ -74,7 +74,15 @@ public class ForgeModContainer extends DummyModContainer implements WorldAccessC
     public static int defaultSpawnFuzz = 20;
     public static boolean defaultHasSpawnFuzz = true;
     public static boolean forgeLightPipelineEnabled = true;
+    public static int chunkIOMaxQueuedLoads = 4096;
+    public static int chunkIOMaxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    public static boolean asyncChunkSaving = false;
+    public static int chunkSaveThreads = 2;
     public static boolean replaceVanillaBucketModel = true;
+    public static boolean parallelModelBaking = false;
+    public static boolean parallelModelLoading = false;
+    public static boolean bakedModelCache = false;
+    public static int modelQuadCacheSize = 131072;
     public static long java8Reminder = 0;
 
     private static Configuration config;
@@ -245,6 +253,30 @@ public class ForgeModContainer extends DummyModContainer implements WorldAccessC
         forgeLightPipelineEnabled = prop.getBoolean(Boolean.TRUE);
         propOrder.add(prop.getName());
 
+        prop = config.get(Configuration.CATEGORY_GENERAL, "chunkIOMaxQueuedLoads", 4096,
+                "Maximum number of chunk loads waiting for the async chunk loader. Once reached further loads wait for room on later ticks.", 64, Integer.MAX_VALUE);
+        prop.setLanguageKey("forge.configgui.chunkIOMaxQueuedLoads");
+        chunkIOMaxQueuedLoads = prop.getInt(4096);
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "chunkIOMaxThreads", chunkIOMaxThreads,
+                "Upper limit for the async chunk loader threads. Threads are added while chunk reads can't keep up, based on the measured read time.", 1, 64);
+        prop.setLanguageKey("forge.configgui.chunkIOMaxThreads");
+        chunkIOMaxThreads = prop.getInt(chunkIOMaxThreads);
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "asyncChunkSaving", Boolean.FALSE,
+                "Encode, compress and write saved chunks on a pool of threads instead of the main thread and the single vanilla IO thread. ChunkDataEvent.Save listeners then see the chunk data without its block sections.");
+        prop.setLanguageKey("forge.configgui.asyncChunkSaving").setRequiresMcRestart(true);
+        asyncChunkSaving = prop.getBoolean(Boolean.FALSE);
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_GENERAL, "chunkSaveThreads", 2,
+                "Number of threads used to encode, compress and write chunks when asyncChunkSaving is enabled.", 1, 16);
+        prop.setLanguageKey("forge.configgui.chunkSaveThreads").setRequiresMcRestart(true);
+        chunkSaveThreads = prop.getInt(2);
+        propOrder.add(prop.getName());
+
         config.setCategoryPropertyOrder(CATEGORY_GENERAL, propOrder);
 
         propOrder = new ArrayList<String>();
@@ -261,6 +293,30 @@ public class ForgeModContainer extends DummyModContainer implements WorldAccessC
         replaceVanillaBucketModel = prop.getBoolean(Boolean.FALSE);
         propOrder.add(prop.getName());
 
+        prop = config.get(Configuration.CATEGORY_CLIENT, "parallelModelBaking", Boolean.FALSE,
+                "Bake models on all available cores when resources are (re)loaded. Speeds up startup with many models, but requires every mod's models to bake safely from several threads.");
+        prop.setLanguageKey("forge.configgui.parallelModelBaking");
+        parallelModelBaking = prop.getBoolean(Boolean.FALSE);
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_CLIENT, "parallelModelLoading", Boolean.FALSE,
+                "Load block and item models and the models they depend on with several threads when resources are (re)loaded. Requires every mod's model loaders to be thread safe.");
+        prop.setLanguageKey("forge.configgui.parallelModelLoading");
+        parallelModelLoading = prop.getBoolean(Boolean.FALSE);
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_CLIENT, "bakedModelCache", Boolean.FALSE,
+                "Keep the quads of baked block models in modelcache/ and reuse them on the next start with the same mods and resource packs, instead of baking them again.");
+        prop.setLanguageKey("forge.configgui.bakedModelCache");
+        bakedModelCache = prop.getBoolean(Boolean.FALSE);
+        propOrder.add(prop.getName());
+
+        prop = config.get(Configuration.CATEGORY_CLIENT, "modelQuadCacheSize", 131072,
+                "Maximum number of quads kept for animated OBJ and B3D model states, about 200 bytes each. Applied when resources are reloaded.", 0, Integer.MAX_VALUE);
+        prop.setLanguageKey("forge.configgui.modelQuadCacheSize");
+        modelQuadCacheSize = prop.getInt(131072);
+        propOrder.add(prop.getName());
+
         prop = config.get(Configuration.CATEGORY_CLIENT, "java8Reminder", java8Reminder,
                 "The timestamp of the last reminder to update to Java 8 in number of milliseconds since January 1, 1970, 00:00:00 GMT. Nag will show only once every 24 hours. To disable it set this to some really high number.");
         java8Reminder = prop.getLong(java8Reminder);
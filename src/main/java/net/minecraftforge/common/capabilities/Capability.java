@@ -66,6 +66,12 @@ public class Capability<T>
      */
     public String getName() { return name; }
 
+    /**
+     * @return A small number unique to this capability, assigned in registration order.
+     * Only valid for the current run, do not save it.
+     */
+    public int getId() { return id; }
+
     /**
      * @return An instance of the default storage handler. You can safely use this store your default implementation in NBT.
      */
@@ -126,11 +132,13 @@ public class Capability<T>
     private final String name;
     private final IStorage<T> storage;
     private final Callable<? extends T> factory;
+    private final int id;
 
-    Capability(String name, IStorage<T> storage, Callable<? extends T> factory)
+    Capability(String name, IStorage<T> storage, Callable<? extends T> factory, int id)
     {
         this.name = name;
         this.storage = storage;
         this.factory = factory;
+        this.id = id;
     }
 }
@@ -1,5 +1,6 @@
 package net.minecraftforge.common.capabilities;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -20,12 +21,26 @@ import net.minecraftforge.common.util.INBTSerializable;
  *
  * Internally the handlers are baked into arrays for fast iteration.
  * The ResourceLocations will be used for the NBT Key when serializing.
+ *
+ * Attached providers that implement {@link IStaticCapabilityProvider} are not asked again for a capability and side
+ * they refused, so lookups skip straight past them. All other providers, and the parent, are asked every time
+ * in their usual order.
  */
 public final class CapabilityDispatcher implements INBTSerializable<NBTTagCompound>, ICapabilityProvider
 {
+    private static final int FACINGS = EnumFacing.VALUES.length + 1;
+
     private ICapabilityProvider[] caps;
     private INBTSerializable<NBTBase>[] writers;
     private String[] names;
+    private boolean[] fixed;
+    private boolean anyFixed;
+    // Attached providers start here, the parent if any is at 0
+    private int first;
+    // Indexed by capability id * FACINGS + facing, null facing last. Holds 1 + the index of the first provider
+    // to ask, all before it are static and refused, 0 if not resolved yet. Any value written is a valid start,
+    // so racing lookups need no lock.
+    private byte[] resolved;
 
     public CapabilityDispatcher(Map<ResourceLocation, ICapabilityProvider> list)
     {
@@ -49,6 +64,8 @@ public final class CapabilityDispatcher implements INBTSerializable<NBTTagCompou
             }
         }
 
+        first = lstCaps.size();
+
         for (Map.Entry<ResourceLocation, ICapabilityProvider> entry : list.entrySet())
         {
             ICapabilityProvider prov = entry.getValue();
@@ -63,14 +80,36 @@ public final class CapabilityDispatcher implements INBTSerializable<NBTTagCompou
         caps = lstCaps.toArray(new ICapabilityProvider[lstCaps.size()]);
         writers = lstWriters.toArray(new INBTSerializable[lstWriters.size()]);
         names = lstNames.toArray(new String[lstNames.size()]);
+        fixed = new boolean[caps.length];
+        for (int x = first; x < caps.length; x++)
+        {
+            fixed[x] = caps[x] instanceof IStaticCapabilityProvider;
+            anyFixed |= fixed[x];
+        }
     }
 
     @Override
     public boolean hasCapability(Capability<?> capability, EnumFacing facing)
     {
-        for (ICapabilityProvider cap : caps)
+        if (first > 0 && caps[0].hasCapability(capability, facing))
         {
-            if (cap.hasCapability(capability, facing))
+            return true;
+        }
+        int slot = slot(capability, facing);
+        byte[] cache = slot < 0 ? null : cache(slot);
+        int x = cache == null || cache[slot] == 0 ? first : cache[slot] - 1;
+        for (; x < caps.length && fixed[x]; x++)
+        {
+            if (caps[x].hasCapability(capability, facing))
+            {
+                if (cache != null) cache[slot] = (byte)(x + 1);
+                return true;
+            }
+        }
+        if (cache != null) cache[slot] = (byte)(x + 1);
+        for (; x < caps.length; x++)
+        {
+            if (caps[x].hasCapability(capability, facing))
             {
                 return true;
             }
@@ -81,9 +120,30 @@ public final class CapabilityDispatcher implements INBTSerializable<NBTTagCompou
     @Override
     public <T> T getCapability(Capability<T> capability, EnumFacing facing)
     {
-        for (ICapabilityProvider cap : caps)
+        if (first > 0)
+        {
+            T ret = caps[0].getCapability(capability, facing);
+            if (ret != null)
+            {
+                return ret;
+            }
+        }
+        int slot = slot(capability, facing);
+        byte[] cache = slot < 0 ? null : cache(slot);
+        int x = cache == null || cache[slot] == 0 ? first : cache[slot] - 1;
+        for (; x < caps.length && fixed[x]; x++)
         {
-            T ret = cap.getCapability(capability, facing);
+            T ret = caps[x].getCapability(capability, facing);
+            if (ret != null)
+            {
+                if (cache != null) cache[slot] = (byte)(x + 1);
+                return ret;
+            }
+        }
+        if (cache != null) cache[slot] = (byte)(x + 1);
+        for (; x < caps.length; x++)
+        {
+            T ret = caps[x].getCapability(capability, facing);
             if (ret != null)
             {
                 return ret;
@@ -92,6 +152,28 @@ public final class CapabilityDispatcher implements INBTSerializable<NBTTagCompou
         return null;
     }
 
+    private int slot(Capability<?> capability, EnumFacing facing)
+    {
+        if (!anyFixed || capability == null || caps.length >= Byte.MAX_VALUE)
+        {
+            return -1;
+        }
+        return capability.getId() * FACINGS + (facing == null ? FACINGS - 1 : facing.ordinal());
+    }
+
+    private byte[] cache(int slot)
+    {
+        byte[] ret = resolved;
+        if (ret == null || slot >= ret.length)
+        {
+            // Room for a few more capabilities so lookups of new ones don't resize every time
+            int size = (slot / FACINGS + 8) * FACINGS;
+            ret = ret == null ? new byte[size] : Arrays.copyOf(ret, size);
+            resolved = ret;
+        }
+        return ret;
+    }
+
     @Override
     public NBTTagCompound serializeNBT()
     {
@@ -0,0 +1,8 @@
+package net.minecraftforge.common.capabilities;
+
+/**
+ * A provider whose answers to {@link #hasCapability} and {@link #getCapability} only depend on the capability and
+ * the side asked for, never on its state. A {@link CapabilityDispatcher} remembers which capabilities such a provider
+ * refused and does not ask it for them again. Providers without it are always asked.
+ */
+public interface IStaticCapabilityProvider extends ICapabilityProvider {}
@@ -2,29 +2,48 @@ package net.minecraftforge.common.chunkio;
 
 import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.PriorityQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.collect.Maps;
 
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraft.world.chunk.storage.AnvilChunkLoader;
 import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraftforge.common.ForgeModContainer;
 import net.minecraftforge.fml.common.FMLLog;
 
+/**
+ * Loads already generated chunks off the main thread.
+ *
+ * Queued loads are ordered by their distance to the nearest player at the time they were queued,
+ * so chunks around a player that just teleported are not stuck behind far away ones.
+ * Loads of the same chunk are coalesced into one task, and once {@link ForgeModContainer#chunkIOMaxQueuedLoads}
+ * loads are waiting new requests are held back and handed to the workers on a later tick, nearest first,
+ * as the queue drains.
+ *
+ * The number of workers follows the measured load latency rather than the player count:
+ * it grows while the queue can not be drained within a tick and shrinks again once the queue stays empty.
+ * The queue depth and latencies are shown by {@code /forge tps}.
+ */
 public class ChunkIOExecutor
 {
     static final int BASE_THREADS = 1;
-    static final int PLAYERS_PER_THREAD = 50;
+    /** A worker is added while the current ones need longer than this to drain the queue. */
+    private static final long TARGET_DRAIN_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    /** Ticks the queue has to stay empty before a worker is removed. */
+    private static final int IDLE_TICKS_BEFORE_SHRINK = 100;
 
     private static final Map<QueuedChunk, ChunkIOProvider> tasks = Maps.newConcurrentMap();
     private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(BASE_THREADS, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
-        new LinkedBlockingQueue<Runnable>(),
+        new PriorityBlockingQueue<Runnable>(),
         new ThreadFactory()
         {
             private AtomicInteger count = new AtomicInteger(1);
@@ -38,6 +57,17 @@ public class ChunkIOExecutor
         }
     );
 
+    // Loads held back while the queue is full, only touched while holding its lock
+    private static final PriorityQueue<ChunkIOProvider> deferred = new PriorityQueue<ChunkIOProvider>();
+
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final AtomicLong completedLoads = new AtomicLong();
+    private static final AtomicLong deferredLoads = new AtomicLong();
+    // Exponentially weighted averages, updated by the workers
+    private static long averageLoadNanos = 0;
+    private static long averageWaitNanos = 0;
+    private static int idleTicks = 0;
+
     //Load the chunk completely in this thread. Dequeue as needed...
     public static Chunk syncChunkLoad(World world, AnvilChunkLoader loader, ChunkProviderServer provider, int x, int z)
     {
@@ -45,7 +75,11 @@ public class ChunkIOExecutor
         ChunkIOProvider task = tasks.get(key);
         if (task != null)
         {
-            if (!pool.remove(task)) // If it wasn't in the pool, and run hasn't finished, then wait for the async thread.
+            if (removeDeferred(task) || pool.remove(task)) // Still waiting in the queue, take it over and load it here.
+            {
+                task.run();
+            }
+            else // If it wasn't in the pool, and run hasn't finished, then wait for the async thread.
             {
                 synchronized(task)
                 {
@@ -62,10 +96,11 @@ public class ChunkIOExecutor
                     }
                 }
             }
+            tasks.remove(key);
         }
         else
         {
-            task = new ChunkIOProvider(key);
+            task = new ChunkIOProvider(key, 0, 0);
             task.run();
         }
         task.syncCallback();
@@ -77,16 +112,48 @@ public class ChunkIOExecutor
     {
         QueuedChunk key = new QueuedChunk(x, z, loader, world, provider);
         ChunkIOProvider task = tasks.get(key);
-        if (task == null)
+        if (task != null)
         {
-            task = new ChunkIOProvider(key);
-            task.addCallback(runnable); // Add before calling execute for thread safety
-            tasks.put(key, task);
-            pool.execute(task);
+            task.addCallback(runnable);
+            return;
         }
-        else
+
+        task = new ChunkIOProvider(key, distanceToNearestPlayer(world, x, z), sequence.getAndIncrement());
+        task.addCallback(runnable); // Add before calling execute for thread safety
+
+        tasks.put(key, task);
+        if (pool.getQueue().size() >= ForgeModContainer.chunkIOMaxQueuedLoads)
         {
-            task.addCallback(runnable);
+            // Backpressure, the queue is full so the load waits for room, see submitDeferred.
+            deferredLoads.incrementAndGet();
+            synchronized (deferred)
+            {
+                deferred.add(task);
+            }
+            return;
+        }
+        pool.execute(task);
+    }
+
+    private static boolean removeDeferred(ChunkIOProvider task)
+    {
+        synchronized (deferred)
+        {
+            return deferred.remove(task);
+        }
+    }
+
+    /**
+     * Hands held back loads to the workers, nearest first, as long as the queue has room.
+     */
+    private static void submitDeferred()
+    {
+        synchronized (deferred)
+        {
+            while (!deferred.isEmpty() && pool.getQueue().size() < ForgeModContainer.chunkIOMaxQueuedLoads)
+            {
+                pool.execute(deferred.poll());
+            }
         }
     }
 
@@ -107,14 +174,19 @@ public class ChunkIOExecutor
         if (!task.hasCallback())
         {
             tasks.remove(key);
-            pool.remove(task);
+            if (!removeDeferred(task))
+            {
+                pool.remove(task);
+            }
         }
     }
 
+    /**
+     * The worker count is now driven by the measured load latency, see {@link #tick()}.
+     */
+    @Deprecated
     public static void adjustPoolSize(int players)
     {
-        int size = Math.max(BASE_THREADS, (int) Math.ceil(players / PLAYERS_PER_THREAD));
-        pool.setCorePoolSize(size);
     }
 
     public static void tick()
@@ -123,11 +195,112 @@ public class ChunkIOExecutor
         while (itr.hasNext())
         {
             ChunkIOProvider task = itr.next();
-            if (task.runFinished() && task.hasCallback())
+            if (task.runFinished())
             {
-                task.syncCallback();
+                if (task.hasCallback())
+                {
+                    task.syncCallback();
+                }
+                itr.remove();
             }
-            itr.remove();
         }
+        submitDeferred();
+        adjustWorkers();
+    }
+
+    private static void adjustWorkers()
+    {
+        int depth = pool.getQueue().size();
+        int threads = pool.getCorePoolSize();
+        if (depth == 0)
+        {
+            if (threads > BASE_THREADS && ++idleTicks >= IDLE_TICKS_BEFORE_SHRINK)
+            {
+                pool.setCorePoolSize(threads - 1);
+                idleTicks = 0;
+            }
+            return;
+        }
+        idleTicks = 0;
+        long drainNanos = depth * getAverageLoadNanos() / threads;
+        if (drainNanos > TARGET_DRAIN_NANOS && threads < ForgeModContainer.chunkIOMaxThreads)
+        {
+            pool.setCorePoolSize(threads + 1);
+        }
+    }
+
+    private static long distanceToNearestPlayer(World world, int x, int z)
+    {
+        double centerX = (x << 4) + 8;
+        double centerZ = (z << 4) + 8;
+        double best = Double.MAX_VALUE;
+        for (EntityPlayer player : world.playerEntities)
+        {
+            double dx = player.posX - centerX;
+            double dz = player.posZ - centerZ;
+            best = Math.min(best, dx * dx + dz * dz);
+        }
+        return best == Double.MAX_VALUE ? Long.MAX_VALUE : (long)best;
+    }
+
+    static synchronized void recordLoad(long waitNanos, long loadNanos)
+    {
+        completedLoads.incrementAndGet();
+        // 1/8 weight for new samples, smooths out single slow reads
+        averageLoadNanos = averageLoadNanos == 0 ? loadNanos : averageLoadNanos + ((loadNanos - averageLoadNanos) >> 3);
+        averageWaitNanos = averageWaitNanos == 0 ? waitNanos : averageWaitNanos + ((waitNanos - averageWaitNanos) >> 3);
+    }
+
+    /**
+     * @return Number of loads waiting for a worker
+     */
+    public static int getQueueDepth()
+    {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * @return Number of loads held back until the queue has room
+     */
+    public static int getDeferredDepth()
+    {
+        synchronized (deferred)
+        {
+            return deferred.size();
+        }
+    }
+
+    public static int getWorkerCount()
+    {
+        return pool.getCorePoolSize();
+    }
+
+    /**
+     * @return Moving average of the time a worker spends reading a chunk
+     */
+    public static synchronized long getAverageLoadNanos()
+    {
+        return averageLoadNanos;
+    }
+
+    /**
+     * @return Moving average of the time a load spends queued before a worker picks it up
+     */
+    public static synchronized long getAverageWaitNanos()
+    {
+        return averageWaitNanos;
+    }
+
+    public static long getCompletedLoads()
+    {
+        return completedLoads.get();
+    }
+
+    /**
+     * @return Number of loads that were held back because the queue was full
+     */
+    public static long getDeferredLoads()
+    {
+        return deferredLoads.get();
     }
-}
\ No newline at end of file
+}
@@ -11,17 +11,36 @@ import net.minecraftforge.event.world.ChunkDataEvent;
 import java.io.IOException;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
-class ChunkIOProvider implements Runnable
+class ChunkIOProvider implements Runnable, Comparable<ChunkIOProvider>
 {
     private QueuedChunk chunkInfo;
+    private final long priority;
+    private final long sequence;
+    private final long queuedNanos = System.nanoTime();
     private Chunk chunk;
     private NBTTagCompound nbt;
     private ConcurrentLinkedQueue<Runnable> callbacks = new ConcurrentLinkedQueue<Runnable>();
     private boolean ran = false;
 
-    ChunkIOProvider(QueuedChunk chunk)
+    /**
+     * @param priority Lower loads first, the squared block distance to the nearest player
+     * @param sequence Breaks ties between equal priorities in queueing order
+     */
+    ChunkIOProvider(QueuedChunk chunk, long priority, long sequence)
     {
         this.chunkInfo = chunk;
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(ChunkIOProvider other)
+    {
+        if (priority != other.priority)
+        {
+            return priority < other.priority ? -1 : 1;
+        }
+        return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
     }
 
     public void addCallback(Runnable callback)
@@ -38,6 +57,7 @@ class ChunkIOProvider implements Runnable
     {
         synchronized(this)
         {
+            long start = System.nanoTime();
             AnvilChunkLoader loader = chunkInfo.loader;
             Object[] data = null;
             try
@@ -55,6 +75,7 @@ class ChunkIOProvider implements Runnable
                 this.chunk = (Chunk)data[0];
             }
 
+            ChunkIOExecutor.recordLoad(start - queuedNanos, System.nanoTime() - start);
             this.ran = true;
             this.notifyAll();
         }
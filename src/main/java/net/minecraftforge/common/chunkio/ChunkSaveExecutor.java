@@ -0,0 +1,557 @@
+package net.minecraftforge.common.chunkio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.logging.log4j.Level;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BitArray;
+import net.minecraft.util.ClassInheritanceMultiMap;
+import net.minecraft.util.ObjectIntIdentityMap;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.world.NextTickListEntry;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.BlockStateContainer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IBlockStatePalette;
+import net.minecraft.world.chunk.NibbleArray;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraft.world.chunk.storage.RegionFile;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import net.minecraftforge.common.ForgeModContainer;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.world.ChunkDataEvent;
+import net.minecraftforge.fml.common.FMLLog;
+import net.minecraftforge.fml.common.registry.GameData;
+
+/**
+ * Writes saved chunks to NBT and to their region files off the main thread.
+ *
+ * The main thread only writes what belongs to the running game, entities, tile entities and pending block ticks,
+ * and copies the raw block storage, light, biome and height map arrays of the chunk. The workers encode the
+ * sections into the NBT format, compress the chunk and only hold the region file for the final write.
+ * ChunkDataEvent.Save is still fired on the main thread, before the Sections, Biomes and HeightMap tags are added.
+ *
+ * A chunk stays visible through {@link #getPendingSave} until its data is in the region file,
+ * AnvilChunkLoader checks it before reading so loads of the same chunk always see the newest save.
+ * If the same chunk is saved again before an older save was written, only the newest one is written.
+ * When all workers are busy and the queue is full, chunks are saved the vanilla way until there is room again.
+ */
+public class ChunkSaveExecutor
+{
+    private static final int MAX_QUEUED_SAVES = 1024;
+
+    private static final Map<QueuedSave, SaveTask> pending = Maps.newConcurrentMap();
+    private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(ForgeModContainer.chunkSaveThreads, ForgeModContainer.chunkSaveThreads, 60L, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(MAX_QUEUED_SAVES),
+        new ThreadFactory()
+        {
+            private AtomicInteger count = new AtomicInteger(1);
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "Chunk Save Executor Thread-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        },
+        // queueChunkSave checks for room first, this only waits for a worker if the queue filled up in between
+        new RejectedExecutionHandler()
+        {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor)
+            {
+                try
+                {
+                    executor.getQueue().put(r);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException(e);
+                }
+            }
+        }
+    );
+
+    private static Field storageField;
+    private static Field paletteField;
+    private static Field bitsField;
+
+    /**
+     * Called by AnvilChunkLoader instead of writing the chunk to NBT.
+     *
+     * @param nbt The root tag, with the empty Level tag and the data version
+     * @return The complete data once a worker has encoded the sections, or null if async saving is disabled or
+     *     the queue is full, the chunk should then be saved the vanilla way
+     */
+    public static Supplier<NBTTagCompound> queueChunkSave(File saveDir, Chunk chunk, World world, NBTTagCompound nbt)
+    {
+        if (!ForgeModContainer.asyncChunkSaving || !findStorageFields())
+        {
+            return null;
+        }
+        QueuedSave key = new QueuedSave(saveDir, chunk.xPosition, chunk.zPosition);
+        if (pool.getQueue().remainingCapacity() == 0)
+        {
+            // The vanilla save queued next is newer than the one still waiting here
+            pending.remove(key);
+            return null;
+        }
+
+        NBTTagCompound level = nbt.getCompoundTag("Level");
+        writeGameData(chunk, world, level);
+        ChunkSnapshot snapshot = snapshot(chunk);
+        MinecraftForge.EVENT_BUS.post(new ChunkDataEvent.Save(chunk, nbt));
+        return submit(key, nbt, snapshot);
+    }
+
+    /**
+     * Queues data that is already complete, the part of {@link #queueChunkSave} that does not need a chunk.
+     */
+    static Supplier<NBTTagCompound> queueSave(File saveDir, int x, int z, NBTTagCompound nbt)
+    {
+        return submit(new QueuedSave(saveDir, x, z), nbt, null);
+    }
+
+    private static SaveTask submit(QueuedSave key, NBTTagCompound nbt, ChunkSnapshot snapshot)
+    {
+        SaveTask task = new SaveTask(key, nbt, snapshot);
+        pending.put(key, task);
+        pool.execute(task);
+        return task;
+    }
+
+    /**
+     * Cheap check for a save of the chunk that has not reached the region file yet, nothing is encoded.
+     */
+    public static boolean hasPendingSave(File saveDir, int x, int z)
+    {
+        return pending.containsKey(new QueuedSave(saveDir, x, z));
+    }
+
+    /**
+     * @return The newest saved data for the chunk that has not reached the region file yet, or null.
+     *     If the save was not picked up by a worker yet, its sections are encoded on the calling thread,
+     *     use {@link #hasPendingSave} when only the existence of the chunk matters.
+     */
+    public static NBTTagCompound getPendingSave(File saveDir, int x, int z)
+    {
+        SaveTask task = pending.get(new QueuedSave(saveDir, x, z));
+        return task == null ? null : task.get();
+    }
+
+    /**
+     * Blocks until every save queued so far for the given save folder, or every folder if null, has been written.
+     */
+    public static void flush(File saveDir)
+    {
+        for (SaveTask task : pending.values())
+        {
+            if (saveDir == null || task.key.dir.equals(saveDir))
+            {
+                task.await();
+            }
+        }
+    }
+
+    public static int getPendingCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * The part of AnvilChunkLoader.writeChunkToNBT that reads the running game and has to stay on the main thread.
+     */
+    private static void writeGameData(Chunk chunk, World world, NBTTagCompound level)
+    {
+        level.setInteger("xPos", chunk.xPosition);
+        level.setInteger("zPos", chunk.zPosition);
+        level.setLong("LastUpdate", world.getTotalWorldTime());
+        level.setBoolean("TerrainPopulated", chunk.isTerrainPopulated());
+        level.setBoolean("LightPopulated", chunk.isLightPopulated());
+        level.setLong("InhabitedTime", chunk.getInhabitedTime());
+
+        chunk.setHasEntities(false);
+        NBTTagList entities = new NBTTagList();
+        for (ClassInheritanceMultiMap<Entity> list : chunk.getEntityLists())
+        {
+            for (Entity entity : list)
+            {
+                NBTTagCompound tag = new NBTTagCompound();
+                try
+                {
+                    if (entity.writeToNBTOptional(tag))
+                    {
+                        chunk.setHasEntities(true);
+                        entities.appendTag(tag);
+                    }
+                }
+                catch (Exception e)
+                {
+                    FMLLog.log(Level.ERROR, e, "An Entity type %s has thrown an exception trying to write state. It will not persist. Report this to the mod author",
+                            entity.getClass().getName());
+                }
+            }
+        }
+        level.setTag("Entities", entities);
+
+        NBTTagList tileEntities = new NBTTagList();
+        for (TileEntity tileEntity : chunk.getTileEntityMap().values())
+        {
+            try
+            {
+                NBTTagCompound tag = new NBTTagCompound();
+                tileEntity.writeToNBT(tag);
+                tileEntities.appendTag(tag);
+            }
+            catch (Exception e)
+            {
+                FMLLog.log(Level.ERROR, e, "A TileEntity type %s has throw an exception trying to write state. It will not persist. Report this to the mod author",
+                        tileEntity.getClass().getName());
+            }
+        }
+        level.setTag("TileEntities", tileEntities);
+
+        List<NextTickListEntry> ticks = world.getPendingBlockUpdates(chunk, false);
+        if (ticks != null)
+        {
+            long time = world.getTotalWorldTime();
+            NBTTagList tileTicks = new NBTTagList();
+            for (NextTickListEntry entry : ticks)
+            {
+                NBTTagCompound tag = new NBTTagCompound();
+                ResourceLocation name = Block.blockRegistry.getNameForObject(entry.getBlock());
+                tag.setString("i", name == null ? "" : name.toString());
+                tag.setInteger("x", entry.position.getX());
+                tag.setInteger("y", entry.position.getY());
+                tag.setInteger("z", entry.position.getZ());
+                tag.setInteger("t", (int)(entry.scheduledTime - time));
+                tag.setInteger("p", entry.priority);
+                tileTicks.appendTag(tag);
+            }
+            level.setTag("TileTicks", tileTicks);
+        }
+    }
+
+    /**
+     * Copies the arrays of the chunk that the workers turn into the Sections, Biomes and HeightMap tags.
+     * The block storage is copied as it is, which is a plain array copy, instead of being encoded here.
+     */
+    private static ChunkSnapshot snapshot(Chunk chunk)
+    {
+        ObjectIntIdentityMap<IBlockState> stateIds = GameData.getBlockStateIDMap();
+        ExtendedBlockStorage[] storages = chunk.getBlockStorageArray();
+        SectionSnapshot[] sections = new SectionSnapshot[storages.length];
+        for (int i = 0; i < storages.length; i++)
+        {
+            ExtendedBlockStorage storage = storages[i];
+            if (storage == null)
+            {
+                continue;
+            }
+            BlockStateContainer container = storage.getData();
+            try
+            {
+                int bits = bitsField.getInt(container);
+                BitArray live = (BitArray)storageField.get(container);
+                BitArray blocks = new BitArray(bits, 4096);
+                System.arraycopy(live.getBackingLongArray(), 0, blocks.getBackingLongArray(), 0, live.getBackingLongArray().length);
+                int[] palette = null;
+                // Above 8 bits the container stores the global state ids themselves
+                if (bits <= 8)
+                {
+                    IBlockStatePalette statePalette = (IBlockStatePalette)paletteField.get(container);
+                    palette = new int[1 << bits];
+                    for (int id = 0; id < palette.length; id++)
+                    {
+                        IBlockState state = statePalette.getBlockState(id);
+                        palette[id] = state == null ? 0 : stateIds.get(state);
+                    }
+                }
+                byte[] blockLight = storage.getBlocklightArray().getData().clone();
+                byte[] skyLight = storage.getSkylightArray() != null ? storage.getSkylightArray().getData().clone() : new byte[blockLight.length];
+                sections[i] = new SectionSnapshot(storage.getYLocation(), blocks, palette, blockLight, skyLight);
+            }
+            catch (IllegalAccessException e)
+            {
+                throw Throwables.propagate(e);
+            }
+        }
+        return new ChunkSnapshot(sections, chunk.getBiomeArray().clone(), chunk.getHeightMap().clone());
+    }
+
+    /**
+     * Finds the block storage fields of BlockStateContainer by their type, their names depend on the environment.
+     *
+     * @return False if they could not be found, saves then go the vanilla way
+     */
+    private static synchronized boolean findStorageFields()
+    {
+        if (bitsField != null)
+        {
+            return true;
+        }
+        Field storage = null, palette = null, bits = null;
+        for (Field field : BlockStateContainer.class.getDeclaredFields())
+        {
+            if (Modifier.isStatic(field.getModifiers()))
+            {
+                continue;
+            }
+            if (field.getType() == BitArray.class)
+            {
+                storage = field;
+            }
+            else if (field.getType() == IBlockStatePalette.class)
+            {
+                palette = field;
+            }
+            else if (field.getType() == int.class)
+            {
+                bits = field;
+            }
+        }
+        if (storage == null || palette == null || bits == null)
+        {
+            FMLLog.warning("Could not find the block storage of BlockStateContainer, chunks will be saved the vanilla way");
+            ForgeModContainer.asyncChunkSaving = false;
+            return false;
+        }
+        storage.setAccessible(true);
+        palette.setAccessible(true);
+        bits.setAccessible(true);
+        storageField = storage;
+        paletteField = palette;
+        bitsField = bits;
+        return true;
+    }
+
+    private static class ChunkSnapshot
+    {
+        final SectionSnapshot[] sections;
+        final byte[] biomes;
+        final int[] heightMap;
+
+        ChunkSnapshot(SectionSnapshot[] sections, byte[] biomes, int[] heightMap)
+        {
+            this.sections = sections;
+            this.biomes = biomes;
+            this.heightMap = heightMap;
+        }
+
+        void write(NBTTagCompound level)
+        {
+            NBTTagList list = new NBTTagList();
+            for (SectionSnapshot section : sections)
+            {
+                if (section != null)
+                {
+                    list.appendTag(section.write());
+                }
+            }
+            level.setTag("Sections", list);
+            level.setByteArray("Biomes", biomes);
+            level.setIntArray("HeightMap", heightMap);
+        }
+    }
+
+    private static class SectionSnapshot
+    {
+        final int y;
+        final BitArray blocks;
+        final int[] palette;
+        final byte[] blockLight;
+        final byte[] skyLight;
+
+        SectionSnapshot(int y, BitArray blocks, int[] palette, byte[] blockLight, byte[] skyLight)
+        {
+            this.y = y;
+            this.blocks = blocks;
+            this.palette = palette;
+            this.blockLight = blockLight;
+            this.skyLight = skyLight;
+        }
+
+        /**
+         * Same encoding as BlockStateContainer.getDataForNBT.
+         */
+        NBTTagCompound write()
+        {
+            byte[] ids = new byte[4096];
+            NibbleArray data = new NibbleArray();
+            NibbleArray add = null;
+            for (int i = 0; i < 4096; i++)
+            {
+                int value = blocks.getAt(i);
+                int id = palette == null ? value : palette[value];
+                int x = i & 15;
+                int y = i >> 8 & 15;
+                int z = i >> 4 & 15;
+                if ((id >> 12 & 15) != 0)
+                {
+                    if (add == null)
+                    {
+                        add = new NibbleArray();
+                    }
+                    add.set(x, y, z, id >> 12 & 15);
+                }
+                ids[i] = (byte)(id >> 4 & 255);
+                data.set(x, y, z, id & 15);
+            }
+            NBTTagCompound tag = new NBTTagCompound();
+            tag.setByte("Y", (byte)(this.y >> 4 & 255));
+            tag.setByteArray("Blocks", ids);
+            tag.setByteArray("Data", data.getData());
+            if (add != null)
+            {
+                tag.setByteArray("Add", add.getData());
+            }
+            tag.setByteArray("BlockLight", blockLight);
+            tag.setByteArray("SkyLight", skyLight);
+            return tag;
+        }
+    }
+
+    private static class SaveTask implements Runnable, Supplier<NBTTagCompound>
+    {
+        private final QueuedSave key;
+        private final NBTTagCompound nbt;
+        private ChunkSnapshot snapshot;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private SaveTask(QueuedSave key, NBTTagCompound nbt, ChunkSnapshot snapshot)
+        {
+            this.key = key;
+            this.nbt = nbt;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * @return The complete chunk data, the sections are encoded by the first thread to ask for it
+         */
+        @Override
+        public synchronized NBTTagCompound get()
+        {
+            if (snapshot != null)
+            {
+                snapshot.write(nbt.getCompoundTag("Level"));
+                snapshot = null;
+            }
+            return nbt;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                if (pending.get(key) != this)
+                {
+                    return; // Superseded by a newer save of the same chunk
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+                DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes));
+                CompressedStreamTools.write(get(), out);
+                out.close();
+
+                RegionFile region = RegionFileCache.createOrLoadRegionFile(key.dir, key.x, key.z);
+                // Same lock as the region file's own methods, a newer save can't slip in between the check and the write.
+                synchronized (region)
+                {
+                    if (pending.get(key) == this)
+                    {
+                        region.writeCompressed(key.x & 31, key.z & 31, bytes.toByteArray(), bytes.size());
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                FMLLog.log(Level.ERROR, e, "Failed to save chunk (%d, %d) in %s", key.x, key.z, key.dir);
+            }
+            finally
+            {
+                pending.remove(key, this);
+                done.countDown();
+            }
+        }
+
+        private void await()
+        {
+            boolean interrupted = false;
+            while (true)
+            {
+                try
+                {
+                    done.await();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class QueuedSave
+    {
+        final File dir;
+        final int x;
+        final int z;
+
+        QueuedSave(File dir, int x, int z)
+        {
+            this.dir = dir;
+            this.x = x;
+            this.z = z;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (x * 31 + z * 29) ^ dir.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (object instanceof QueuedSave)
+            {
+                QueuedSave other = (QueuedSave) object;
+                return x == other.x && z == other.z && dir.equals(other.dir);
+            }
+
+            return false;
+        }
+    }
+}
@@ -10,6 +10,8 @@ import net.minecraft.world.WorldSettings;
 import net.minecraft.world.biome.BiomeGenBase.SpawnListEntry;
 import net.minecraftforge.fml.common.eventhandler.Cancelable;
 import net.minecraftforge.fml.common.eventhandler.Event;
+import net.minecraftforge.fml.common.eventhandler.EventBus;
+import net.minecraftforge.fml.common.eventhandler.OrderIndependent;
 
 /**
  * WorldEvent is fired when an event involving the world occurs.<br>
@@ -47,7 +49,11 @@ public class WorldEvent extends Event
      * This event does not have a result. {@link HasResult} <br>
      * <br>
      * This event is fired on the {@link MinecraftForge#EVENT_BUS}.<br>
+     * <br>
+     * This event is {@link OrderIndependent}, the server posts it with {@link EventBus#postParallel(Event)}
+     * so listeners of one priority may run concurrently. The client posts it serially.<br>
      **/
+    @OrderIndependent
     public static class Load extends WorldEvent
     {
         public Load(World world) { super(world); }
@@ -32,6 +32,7 @@ import net.minecraft.crash.CrashReport;
 import net.minecraft.crash.CrashReportCategory;
 import net.minecraft.entity.item.EntityItem;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTBase;
@@ -56,6 +57,8 @@ import net.minecraftforge.fml.common.gameevent.PlayerEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
+import net.minecraftforge.fml.common.network.PlayerSpatialIndex;
+import net.minecraftforge.fml.common.network.handshake.NetworkDispatcher;
 import net.minecraftforge.fml.relauncher.CoreModManager;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.server.FMLServerHandler;
@@ -251,6 +254,8 @@ public class FMLCommonHandler
     public void onPostServerTick()
     {
         bus().post(new TickEvent.ServerTickEvent(Phase.END));
+        NetworkDispatcher.flushBatches();
+        PlayerSpatialIndex.instance().onServerTick();
     }
 
     /**
@@ -271,6 +276,7 @@ public class FMLCommonHandler
      */
     public void onPreWorldTick(World world)
     {
+        PlayerSpatialIndex.instance().updateDimension(world.provider.getDimension());
         bus().post(new TickEvent.WorldTickEvent(Side.SERVER, Phase.START, world));
     }
 
@@ -355,6 +361,10 @@ public class FMLCommonHandler
     public void onPlayerPostTick(EntityPlayer player)
     {
         bus().post(new TickEvent.PlayerTickEvent(Phase.END, player));
+        if (player instanceof EntityPlayerMP)
+        {
+            PlayerSpatialIndex.instance().update((EntityPlayerMP)player);
+        }
     }
 
     public void registerCrashCallable(ICrashCallable callable)
@@ -549,21 +559,28 @@ public class FMLCommonHandler
 
     public void firePlayerChangedDimensionEvent(EntityPlayer player, int fromDim, int toDim)
     {
+        PlayerSpatialIndex.instance().invalidate();
         bus().post(new PlayerEvent.PlayerChangedDimensionEvent(player, fromDim, toDim));
     }
 
     public void firePlayerLoggedIn(EntityPlayer player)
     {
+        PlayerSpatialIndex.instance().invalidate();
         bus().post(new PlayerEvent.PlayerLoggedInEvent(player));
     }
 
     public void firePlayerLoggedOut(EntityPlayer player)
     {
+        if (player instanceof EntityPlayerMP)
+        {
+            PlayerSpatialIndex.instance().playerLeft((EntityPlayerMP)player);
+        }
         bus().post(new PlayerEvent.PlayerLoggedOutEvent(player));
     }
 
     public void firePlayerRespawnEvent(EntityPlayer player)
     {
+        PlayerSpatialIndex.instance().invalidate();
         bus().post(new PlayerEvent.PlayerRespawnEvent(player));
     }
 
@@ -0,0 +1,71 @@
+package net.minecraftforge.fml.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free counter that spreads updates from different threads over separate cache lines,
+ * so that hot counters updated from many threads do not contend on a single value.
+ *
+ * Reads are not atomic snapshots, {@link #sum()} may miss updates that race with it.
+ */
+public class StripedCounter
+{
+    private static final int STRIPES = stripeCount();
+    // 8 longs is one 64 byte cache line, keeps neighbouring stripes from false sharing.
+    private static final int PAD = 8;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+    /**
+     * Adds to this thread's stripe.
+     * @return the new value of the stripe, not of the whole counter.
+     */
+    public long add(long value)
+    {
+        return cells.addAndGet(index(), value);
+    }
+
+    /**
+     * @return the new value of this thread's stripe, not of the whole counter.
+     */
+    public long increment()
+    {
+        return cells.incrementAndGet(index());
+    }
+
+    public long sum()
+    {
+        long sum = 0;
+        for (int x = 0; x < STRIPES; x++)
+        {
+            sum += cells.get(x * PAD);
+        }
+        return sum;
+    }
+
+    public void reset()
+    {
+        for (int x = 0; x < STRIPES; x++)
+        {
+            cells.set(x * PAD, 0);
+        }
+    }
+
+    private static int index()
+    {
+        long id = Thread.currentThread().getId();
+        int hash = (int)(id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash >>> 16) & (STRIPES - 1)) * PAD;
+    }
+
+    private static int stripeCount()
+    {
+        int cpus = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        int ret = 1;
+        while (ret < cpus)
+        {
+            ret <<= 1;
+        }
+        return ret;
+    }
+}
@@ -14,6 +14,8 @@ import java.util.Map;
 
 import net.minecraft.launchwrapper.IClassTransformer;
 import net.minecraft.launchwrapper.LaunchClassLoader;
+import net.minecraftforge.fml.common.asm.transformers.FusedClassTransformer;
+import net.minecraftforge.fml.common.asm.transformers.TransformerTimings;
 
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -227,7 +229,15 @@ public class ASMTransformerWrapper
         {
             try
             {
-                return parent.transform(name, transformedName, basicClass);
+                if (parent instanceof FusedClassTransformer)
+                {
+                    // times its parts itself
+                    return parent.transform(name, transformedName, basicClass);
+                }
+                long start = TransformerTimings.start();
+                byte[] ret = parent.transform(name, transformedName, basicClass);
+                TransformerTimings.stop(getParentClass(), start, ret != basicClass);
+                return ret;
             }
             catch(Throwable e)
             {
@@ -241,6 +251,11 @@ public class ASMTransformerWrapper
             return "TransformerWrapper(" + getParentClass() + ", " + getCoreMod() + ")";
         }
 
+        public String getParentClassName()
+        {
+            return getParentClass();
+        }
+
         protected abstract String getParentClass();
 
         protected abstract String getCoreMod();
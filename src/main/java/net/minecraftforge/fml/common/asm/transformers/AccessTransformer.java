@@ -31,6 +31,7 @@ import java.net.URL;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -52,6 +53,9 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.CharSource;
 import com.google.common.io.LineProcessor;
 import com.google.common.io.Resources;
@@ -489,6 +493,21 @@ public class AccessTransformer implements IClassTransformer
     {
         return modifiers;
     }
+
+    /**
+     * @return A hash of all rules in the order they were read, for {@link TransformedClassCache}
+     */
+    public HashCode getRulesHash()
+    {
+        Hasher hasher = Hashing.sha1().newHasher();
+        for (Map.Entry<String, Modifier> e : modifiers.entries())
+        {
+            Modifier m = e.getValue();
+            hasher.putString(e.getKey(), Charsets.UTF_8).putString(m.name, Charsets.UTF_8).putString(m.desc, Charsets.UTF_8);
+            hasher.putInt(m.targetAccess).putBoolean(m.changeFinal).putBoolean(m.markFinal).putBoolean(m.modifyClassVisibility);
+        }
+        return hasher.hash();
+    }
     boolean isEmpty()
     {
         return modifiers.isEmpty();
@@ -14,10 +14,11 @@ import org.apache.commons.lang3.SystemUtils;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
 
 import com.google.common.collect.ImmutableSet;
 
-public class BlamingTransformer implements IClassTransformer
+public class BlamingTransformer implements IClassTransformer, IClassNodeTransformer
 {
     private static final Map<String, String> classMap = new HashMap<String, String>();
     private static final Set<String> naughtyMods = new HashSet<String>();
@@ -29,12 +30,43 @@ public class BlamingTransformer implements IClassTransformer
     {
         if (bytes == null) { return null; }
 
-        ClassReader classReader = new ClassReader(bytes);
-        VersionVisitor visitor = new VersionVisitor();
-        classReader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG);
+        accepts(name, transformedName, new ClassReader(bytes));
         return bytes;
     }
 
+    /**
+     * Reads the version straight from the header, the class is never wanted.
+     */
+    @Override
+    public boolean accepts(String name, String transformedName, ClassReader reader)
+    {
+        // minor << 16 | major, the same as ClassVisitor.visit gets
+        checkVersion(reader.readInt(4), reader.getClassName());
+        return false;
+    }
+
+    @Override
+    public boolean transform(String name, String transformedName, ClassNode classNode)
+    {
+        return false;
+    }
+
+    @Override
+    public int getWriterFlags()
+    {
+        return 0;
+    }
+
+    private static void checkVersion(int version, String name)
+    {
+        if( (version == Opcodes.V1_8 && !SystemUtils.isJavaVersionAtLeast(JavaVersion.JAVA_1_8)) ||
+            (version == Opcodes.V1_7 && !SystemUtils.isJavaVersionAtLeast(JavaVersion.JAVA_1_7)) )
+        {
+            if(classMap.containsKey(name)) blame(classMap.get(name), name);
+            else orphanNaughtyClasses.add(name);
+        }
+    }
+
     public static void blame(String modId, String cls)
     {
         naughtyClasses.add(cls);
@@ -52,12 +84,7 @@ public class BlamingTransformer implements IClassTransformer
         @Override
         public void visit(int version, int access, String name, String signature, String superName, String[] interfaces)
         {
-            if( (version == Opcodes.V1_8 && !SystemUtils.isJavaVersionAtLeast(JavaVersion.JAVA_1_8)) ||
-                (version == Opcodes.V1_7 && !SystemUtils.isJavaVersionAtLeast(JavaVersion.JAVA_1_7)) )
-            {
-                if(classMap.containsKey(name)) blame(classMap.get(name), name);
-                else orphanNaughtyClasses.add(name);
-            }
+            checkVersion(version, name);
         }
     }
 
@@ -0,0 +1,66 @@
+package net.minecraftforge.fml.common.asm.transformers;
+
+import org.objectweb.asm.ClassReader;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Looks for UTF8 entries in the constant pool of a class without parsing the rest of it. Every descriptor a class
+ * mentions, including the ones of its annotations, and the names of its attributes end up there, so a missing entry
+ * proves a class can't carry e.g. a given annotation and doesn't need to be visited at all.
+ * A present entry proves nothing, the class may only reference it.
+ */
+public final class ConstantPoolScanner
+{
+    private static final int UTF8 = 1;
+
+    private ConstantPoolScanner() {}
+
+    /**
+     * @return The value in the form it is stored in, for the ASCII names and descriptors this is meant for
+     */
+    public static byte[] utf8(String value)
+    {
+        return value.getBytes(Charsets.UTF_8);
+    }
+
+    public static boolean contains(ClassReader reader, byte[] value)
+    {
+        return scan(reader, value) != 0;
+    }
+
+    /**
+     * @return Bit i is set if values[i] is in the constant pool, at most 32 values
+     */
+    public static int scan(ClassReader reader, byte[]... values)
+    {
+        byte[] b = reader.b;
+        int found = 0;
+        int all = -1 >>> (32 - values.length);
+        for (int i = 1; i < reader.getItemCount() && found != all; i++)
+        {
+            int index = reader.getItem(i);
+            // the second slot of longs and doubles
+            if (index == 0 || b[index - 1] != UTF8) continue;
+            int length = ((b[index] & 0xFF) << 8) | (b[index + 1] & 0xFF);
+            for (int v = 0; v < values.length; v++)
+            {
+                if ((found & (1 << v)) == 0 && matches(b, index + 2, length, values[v]))
+                {
+                    found |= 1 << v;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean matches(byte[] b, int offset, int length, byte[] value)
+    {
+        if (length != value.length) return false;
+        for (int i = 0; i < length; i++)
+        {
+            if (b[offset + i] != value[i]) return false;
+        }
+        return true;
+    }
+}
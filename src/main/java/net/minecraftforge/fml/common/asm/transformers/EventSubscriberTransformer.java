@@ -15,16 +15,31 @@ import org.objectweb.asm.tree.MethodNode;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 
-public class EventSubscriberTransformer implements IClassTransformer
+public class EventSubscriberTransformer implements IClassTransformer, IClassNodeTransformer
 {
+    private static final byte[] SUBSCRIBE_EVENT = ConstantPoolScanner.utf8("Lnet/minecraftforge/fml/common/eventhandler/SubscribeEvent;");
+
     @Override
     public byte[] transform(String name, String transformedName, byte[] basicClass)
     {
-        if (basicClass == null) return null;
+        return FusedClassTransformer.transform(this, name, transformedName, basicClass);
+    }
+
+    @Override
+    public boolean accepts(String name, String transformedName, ClassReader reader)
+    {
+        return ConstantPoolScanner.contains(reader, SUBSCRIBE_EVENT);
+    }
 
-        ClassNode classNode = new ClassNode();
-        new ClassReader(basicClass).accept(classNode, 0);
+    @Override
+    public int getWriterFlags()
+    {
+        return ClassWriter.COMPUTE_MAXS;
+    }
 
+    @Override
+    public boolean transform(String name, String transformedName, ClassNode classNode)
+    {
         boolean isSubscriber = false;
 
         for (MethodNode methodNode : classNode.methods)
@@ -47,13 +62,9 @@ public class EventSubscriberTransformer implements IClassTransformer
         if (isSubscriber)
         {
             classNode.access = toPublic(classNode.access);
-
-            ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-            classNode.accept(writer);
-            return writer.toByteArray();
         }
 
-        return basicClass;
+        return isSubscriber;
     }
 
     private static int toPublic(int access)
@@ -1,6 +1,6 @@
 package net.minecraftforge.fml.common.asm.transformers;
 
-import static org.objectweb.asm.ClassWriter.COMPUTE_FRAMES;
+import static org.objectweb.asm.ClassWriter.COMPUTE_MAXS;
 import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
 import static org.objectweb.asm.Opcodes.ACC_PROTECTED;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
@@ -27,7 +27,6 @@ import net.minecraft.launchwrapper.IClassTransformer;
 import net.minecraftforge.fml.common.eventhandler.Event;
 
 import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
@@ -42,7 +41,7 @@ import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.TypeInsnNode;
 import org.objectweb.asm.tree.VarInsnNode;
 
-public class EventSubscriptionTransformer implements IClassTransformer
+public class EventSubscriptionTransformer implements IClassTransformer, IClassNodeTransformer
 {
     public EventSubscriptionTransformer()
     {
@@ -51,23 +50,22 @@ public class EventSubscriptionTransformer implements IClassTransformer
     @Override
     public byte[] transform(String name, String transformedName, byte[] bytes)
     {
-        if (bytes == null || name.equals("net.minecraftforge.fml.common.eventhandler.Event") || name.startsWith("net.minecraft.") || name.indexOf('.') == -1)
+        return FusedClassTransformer.transform(this, name, transformedName, bytes);
+    }
+
+    @Override
+    public boolean accepts(String name, String transformedName, ClassReader reader)
+    {
+        if (name.equals("net.minecraftforge.fml.common.eventhandler.Event") || name.startsWith("net.minecraft.") || name.indexOf('.') == -1 || reader.getSuperName() == null)
         {
-            return bytes;
+            return false;
         }
-        ClassReader cr = new ClassReader(bytes);
-        ClassNode classNode = new ClassNode();
-        cr.accept(classNode, 0);
-
         try
         {
-            if (buildEvents(classNode))
-            {
-                ClassWriter cw = new ClassWriter(COMPUTE_FRAMES);
-                classNode.accept(cw);
-                return cw.toByteArray();
-            }
-            return bytes;
+            // Yes, this recursively loads classes until we get this base class. THIS IS NOT A ISSUE. Coremods should handle re-entry just fine.
+            // If they do not this a COREMOD issue NOT a Forge/LaunchWrapper issue.
+            Class<?> parent = this.getClass().getClassLoader().loadClass(reader.getSuperName().replace('/', '.'));
+            return Event.class.isAssignableFrom(parent);
         }
         catch (ClassNotFoundException ex)
         {
@@ -77,20 +75,34 @@ public class EventSubscriptionTransformer implements IClassTransformer
         {
             e.printStackTrace();
         }
+        return false;
+    }
 
-        return bytes;
+    /**
+     * The only branch added, in setup(), comes with its frame, so nothing needs to be computed but the maximums.
+     */
+    @Override
+    public int getWriterFlags()
+    {
+        return COMPUTE_MAXS;
     }
 
-    private boolean buildEvents(ClassNode classNode) throws Exception
+    @Override
+    public boolean transform(String name, String transformedName, ClassNode classNode)
     {
-        // Yes, this recursively loads classes until we get this base class. THIS IS NOT A ISSUE. Coremods should handle re-entry just fine.
-        // If they do not this a COREMOD issue NOT a Forge/LaunchWrapper issue.
-        Class<?> parent = this.getClass().getClassLoader().loadClass(classNode.superName.replace('/', '.'));
-        if (!Event.class.isAssignableFrom(parent))
+        try
         {
-            return false;
+            return buildEvents(classNode);
         }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+        return false;
+    }
 
+    private boolean buildEvents(ClassNode classNode) throws Exception
+    {
         //Class<?> listenerListClazz = Class.forName("net.minecraftforge.fml.common.eventhandler.ListenerList", false, getClass().getClassLoader());
         Type tList = Type.getType("Lnet/minecraftforge/fml/common/eventhandler/ListenerList;");
 
@@ -117,6 +129,10 @@ public class EventSubscriptionTransformer implements IClassTransformer
             if (method.name.equals("<init>") && method.desc.equals(voidDesc)) hasDefaultCtr = true;
         }
 
+        // before anything is added, the class may still be written by the other transformers
+        if (hasSetup && !hasGetListenerList)
+            throw new RuntimeException("Event class defines setup() but does not define getListenerList! " + classNode.name);
+
         if (classNode.visibleAnnotations != null)
         {
             for (AnnotationNode node : classNode.visibleAnnotations)
@@ -154,10 +170,7 @@ public class EventSubscriptionTransformer implements IClassTransformer
 
         if (hasSetup)
         {
-            if (!hasGetListenerList)
-                throw new RuntimeException("Event class defines setup() but does not define getListenerList! " + classNode.name);
-            else
-                return edited;
+            return edited;
         }
 
         Type tSuper = Type.getType(classNode.superName);
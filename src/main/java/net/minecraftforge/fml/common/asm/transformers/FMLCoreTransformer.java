@@ -0,0 +1,13 @@
+package net.minecraftforge.fml.common.asm.transformers;
+
+/**
+ * FML's own transformers that look at every class, fused into one pass, see {@link FusedClassTransformer}.
+ * The parts are still usable as transformers on their own.
+ */
+public class FMLCoreTransformer extends FusedClassTransformer
+{
+    public FMLCoreTransformer()
+    {
+        super(new BlamingTransformer(), new SideTransformer(), new EventSubscriptionTransformer(), new EventSubscriberTransformer());
+    }
+}
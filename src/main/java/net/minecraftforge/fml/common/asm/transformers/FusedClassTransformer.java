@@ -0,0 +1,96 @@
+package net.minecraftforge.fml.common.asm.transformers;
+
+import net.minecraft.launchwrapper.IClassTransformer;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Runs several transformers on one parse and one write of the class instead of one each.
+ * Every part first looks at the class header and constant pool, only if one of them wants the class it is parsed into
+ * a tree that all interested parts change in turn, and only if one of them changed it it is written out, once.
+ * Time spent is recorded per part in {@link TransformerTimings}, parsing and writing under this transformer's name.
+ */
+public abstract class FusedClassTransformer implements IClassTransformer
+{
+    private final IClassNodeTransformer[] parts;
+    private final String[] names;
+    private final String parseName;
+    private final String writeName;
+
+    protected FusedClassTransformer(IClassNodeTransformer... parts)
+    {
+        this.parts = parts;
+        this.names = new String[parts.length];
+        for (int i = 0; i < parts.length; i++)
+        {
+            names[i] = parts[i].getClass().getSimpleName();
+        }
+        this.parseName = getClass().getSimpleName() + " (parse)";
+        this.writeName = getClass().getSimpleName() + " (write)";
+    }
+
+    @Override
+    public byte[] transform(String name, String transformedName, byte[] bytes)
+    {
+        if (bytes == null) { return null; }
+
+        ClassReader reader = new ClassReader(bytes);
+        boolean[] wanted = new boolean[parts.length];
+        boolean any = false;
+        for (int i = 0; i < parts.length; i++)
+        {
+            long start = TransformerTimings.start();
+            wanted[i] = parts[i].accepts(name, transformedName, reader);
+            TransformerTimings.stop(names[i], start, false);
+            any |= wanted[i];
+        }
+        if (!any) { return bytes; }
+
+        long start = TransformerTimings.start();
+        ClassNode classNode = new ClassNode();
+        reader.accept(classNode, 0);
+        TransformerTimings.stop(parseName, start, false);
+
+        int flags = 0;
+        boolean changed = false;
+        for (int i = 0; i < parts.length; i++)
+        {
+            if (!wanted[i]) continue;
+            start = TransformerTimings.start();
+            boolean partChanged = parts[i].transform(name, transformedName, classNode);
+            TransformerTimings.stop(names[i], start, partChanged);
+            if (partChanged)
+            {
+                changed = true;
+                flags |= parts[i].getWriterFlags();
+            }
+        }
+        if (!changed) { return bytes; }
+
+        start = TransformerTimings.start();
+        ClassWriter writer = new ClassWriter(flags);
+        classNode.accept(writer);
+        byte[] ret = writer.toByteArray();
+        TransformerTimings.stop(writeName, start, true);
+        return ret;
+    }
+
+    /**
+     * Runs a single part the way it would run on its own, for the parts that are still registered by themselves.
+     */
+    public static byte[] transform(IClassNodeTransformer part, String name, String transformedName, byte[] bytes)
+    {
+        if (bytes == null) { return null; }
+
+        ClassReader reader = new ClassReader(bytes);
+        if (!part.accepts(name, transformedName, reader)) { return bytes; }
+        ClassNode classNode = new ClassNode();
+        reader.accept(classNode, 0);
+        if (!part.transform(name, transformedName, classNode)) { return bytes; }
+        ClassWriter writer = new ClassWriter(part.getWriterFlags());
+        classNode.accept(writer);
+        return writer.toByteArray();
+    }
+}
@@ -0,0 +1,26 @@
+package net.minecraftforge.fml.common.asm.transformers;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * A transformer that can run as a part of a {@link FusedClassTransformer}, on a class tree shared with the other parts.
+ */
+public interface IClassNodeTransformer
+{
+    /**
+     * Decides from the class header and the constant pool, see {@link ConstantPoolScanner}, whether the class needs
+     * this transformer. Called before the class is parsed, which is skipped if no part wants the class.
+     */
+    boolean accepts(String name, String transformedName, ClassReader reader);
+
+    /**
+     * @return Whether the class was changed
+     */
+    boolean transform(String name, String transformedName, ClassNode classNode);
+
+    /**
+     * @return The {@link org.objectweb.asm.ClassWriter} flags the class needs to be written with once this transformer changed it
+     */
+    int getWriterFlags();
+}
@@ -27,19 +27,34 @@ import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.MethodNode;
 
-public class SideTransformer implements IClassTransformer
+public class SideTransformer implements IClassTransformer, IClassNodeTransformer
 {
     private static String SIDE = FMLLaunchHandler.side().name();
     private static final boolean DEBUG = false;
+    private static final byte[] SIDE_ONLY = ConstantPoolScanner.utf8(Type.getDescriptor(SideOnly.class));
+
     @Override
     public byte[] transform(String name, String transformedName, byte[] bytes)
     {
-        if (bytes == null) { return null; }
+        return FusedClassTransformer.transform(this, name, transformedName, bytes);
+    }
+
+    @Override
+    public boolean accepts(String name, String transformedName, ClassReader reader)
+    {
+        return ConstantPoolScanner.contains(reader, SIDE_ONLY);
+    }
 
-        ClassNode classNode = new ClassNode();
-        ClassReader classReader = new ClassReader(bytes);
-        classReader.accept(classNode, 0);
+    @Override
+    public int getWriterFlags()
+    {
+        return ClassWriter.COMPUTE_MAXS;
+    }
 
+    @Override
+    public boolean transform(String name, String transformedName, ClassNode classNode)
+    {
+        boolean changed = false;
         if (remove(classNode.visibleAnnotations, SIDE))
         {
             if (DEBUG)
@@ -60,6 +75,7 @@ public class SideTransformer implements IClassTransformer
                     System.out.println(String.format("Removing Field: %s.%s", classNode.name, field.name));
                 }
                 fields.remove();
+                changed = true;
             }
         }
         Iterator<MethodNode> methods = classNode.methods.iterator();
@@ -73,12 +89,10 @@ public class SideTransformer implements IClassTransformer
                     System.out.println(String.format("Removing Method: %s.%s%s", classNode.name, method.name, method.desc));
                 }
                 methods.remove();
+                changed = true;
             }
         }
-
-        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-        classNode.accept(writer);
-        return writer.toByteArray();
+        return changed;
     }
 
     private boolean remove(List<AnnotationNode> anns, String side)
@@ -0,0 +1,605 @@
+package net.minecraftforge.fml.common.asm.transformers;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.minecraft.launchwrapper.IClassTransformer;
+import net.minecraft.launchwrapper.Launch;
+import net.minecraft.launchwrapper.LaunchClassLoader;
+import net.minecraftforge.fml.common.asm.ASMTransformerWrapper;
+import net.minecraftforge.fml.relauncher.FMLLaunchHandler;
+import net.minecraftforge.fml.relauncher.FMLRelaunchLog;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.Level;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Keeps the final bytes of transformed classes between launches, so a class whose bytes didn't change since the
+ * last launch skips binary patching, deobfuscation, access transformers, side stripping and every coremod transformer.
+ * Enabled with -Dfml.classCache=true, never in a deobfuscated environment.
+ *
+ * The cache file is only used when its fingerprint matches. The fingerprint covers the ordered list of transformers
+ * and the jar or class file each of them comes from, the rules of every access transformer, the side, the Java version,
+ * the contents of the config folder, the files in the mods folder and the jars on the class path, the latter two for
+ * the class hierarchy that frame computation looks at. Within the file every class is stored with a hash of its untransformed bytes, a class is
+ * only served from the cache if that still matches.
+ *
+ * Every registered transformer is wrapped in place, so the transformer list keeps its order and length. On a hit the
+ * wrappers pass the class through and the last one returns the cached bytes, so transformers that do more than change
+ * the class, e.g. record that it was loaded, don't see cached classes. Transformers registered later run as usual.
+ *
+ * Only an index of the file is kept in memory, a class is read when it is requested and dropped from the index once
+ * it was served. Newly transformed classes are appended to the file right away. On shutdown the file is rewritten
+ * without stale entries, once mod loading completed also without classes that were not loaded in this run.
+ */
+public class TransformedClassCache
+{
+    private static final int MAGIC = 0x464D4C43;
+    private static final int VERSION = 2;
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    private static TransformedClassCache installed;
+
+    private final File file;
+    private final String fingerprint;
+    private final RandomAccessFile data;
+    private final FileChannel channel;
+    // Classes in the file that were not requested yet
+    private final Map<String, Location> index;
+    // Classes served or stored in this run, what is kept when the file is rewritten
+    private final Map<String, Location> used = Maps.newConcurrentMap();
+    private final ThreadLocal<Deque<Lookup>> lookups = new ThreadLocal<Deque<Lookup>>()
+    {
+        @Override
+        protected Deque<Lookup> initialValue()
+        {
+            return new ArrayDeque<Lookup>();
+        }
+    };
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private long end;
+    private long fileEntryBytes;
+    private volatile boolean pruneUnused;
+
+    private TransformedClassCache(File file, String fingerprint, RandomAccessFile data, Map<String, Location> index, long end, long fileEntryBytes)
+    {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        this.data = data;
+        this.channel = data.getChannel();
+        this.index = index;
+        this.end = end;
+        this.fileEntryBytes = fileEntryBytes;
+    }
+
+    /**
+     * Wraps the transformers registered so far, see the class description.
+     */
+    @SuppressWarnings("unchecked")
+    public static void install(LaunchClassLoader classLoader, File gameDir)
+    {
+        if (!Boolean.parseBoolean(System.getProperty("fml.classCache", "false")) || Boolean.TRUE.equals(Launch.blackboard.get("fml.deobfuscatedEnvironment")))
+        {
+            return;
+        }
+        try
+        {
+            Field field = LaunchClassLoader.class.getDeclaredField("transformers");
+            field.setAccessible(true);
+            List<IClassTransformer> list = (List<IClassTransformer>)field.get(classLoader);
+            if (list.isEmpty())
+            {
+                return;
+            }
+            long start = System.nanoTime();
+            TransformedClassCache cache = open(new File(gameDir, "classcache/transformed.bin"), fingerprint(list, classLoader, gameDir));
+            FMLRelaunchLog.fine("Indexed %d transformed classes in the class cache in %d ms", cache.size(), (System.nanoTime() - start) / 1000000);
+            List<IClassTransformer> wrapped = cache.wrap(list);
+            for (int i = 0; i < wrapped.size(); i++)
+            {
+                list.set(i, wrapped.get(i));
+            }
+            installed = cache;
+            Runtime.getRuntime().addShutdownHook(new Thread("FML class cache")
+            {
+                @Override
+                public void run()
+                {
+                    installed.close();
+                }
+            });
+        }
+        catch (Exception e)
+        {
+            FMLRelaunchLog.log(Level.ERROR, e, "Could not install the transformed class cache, classes will be transformed on every launch");
+        }
+    }
+
+    /**
+     * Called once mods are loaded, logs the hit rate and lets the file be pruned of classes this run didn't load.
+     */
+    public static void loadingComplete()
+    {
+        if (installed != null)
+        {
+            installed.pruneUnused = true;
+            FMLRelaunchLog.fine("Class cache: %d classes served, %d transformed", installed.hits.get(), installed.misses.get());
+        }
+    }
+
+    /**
+     * Indexes the cache file. A missing or unreadable file or one with a different fingerprint gives an empty cache,
+     * a file cut short by a crash is truncated after its last complete entry.
+     */
+    public static TransformedClassCache open(File file, String fingerprint) throws IOException
+    {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+        {
+            throw new IOException("Could not create the class cache directory " + dir);
+        }
+        Map<String, Location> index = Maps.newConcurrentMap();
+        long end = 0;
+        long entryBytes = 0;
+        if (file.isFile())
+        {
+            DataInputStream in = null;
+            try
+            {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 0x10000));
+                if (in.readInt() == MAGIC && in.readInt() == VERSION && in.readUTF().equals(fingerprint))
+                {
+                    end = 8 + 2 + fingerprint.getBytes(Charsets.UTF_8).length;
+                    while (true)
+                    {
+                        long start = end;
+                        int nameLength;
+                        try
+                        {
+                            nameLength = in.readInt();
+                        }
+                        catch (EOFException e)
+                        {
+                            break;
+                        }
+                        byte[] name = new byte[nameLength];
+                        in.readFully(name);
+                        long hash = in.readLong();
+                        int length = in.readInt();
+                        ByteStreams.skipFully(in, length);
+                        end = start + 4 + nameLength + 8 + 4 + length;
+                        entryBytes += end - start;
+                        // A class stored again supersedes its older entry
+                        index.put(new String(name, Charsets.UTF_8), new Location(hash, end - length, length));
+                    }
+                }
+            }
+            catch (EOFException e)
+            {
+                // The last entry is incomplete, end still points behind the one before
+            }
+            catch (IOException e)
+            {
+                FMLRelaunchLog.log(Level.WARN, e, "Could not read the transformed class cache %s, classes will be transformed again", file);
+                index.clear();
+                end = 0;
+                entryBytes = 0;
+            }
+            finally
+            {
+                IOUtils.closeQuietly(in);
+            }
+        }
+        RandomAccessFile data = new RandomAccessFile(file, "rw");
+        if (end == 0)
+        {
+            data.setLength(0);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeUTF(fingerprint);
+            end = data.length();
+        }
+        else
+        {
+            data.setLength(end);
+        }
+        return new TransformedClassCache(file, fingerprint, data, index, end, entryBytes);
+    }
+
+    /**
+     * Describes everything the output of the transformers depends on besides the class itself.
+     */
+    public static String fingerprint(List<IClassTransformer> transformers, ClassLoader classLoader, File gameDir)
+    {
+        Hasher hasher = Hashing.sha1().newHasher();
+        hasher.putString(String.valueOf(FMLLaunchHandler.side()), Charsets.UTF_8);
+        hasher.putString(System.getProperty("FORGE_FORCE_FRAME_RECALC", "false"), Charsets.UTF_8);
+        hasher.putString(System.getProperty("java.version", ""), Charsets.UTF_8);
+        for (IClassTransformer transformer : transformers)
+        {
+            String name = transformer instanceof ASMTransformerWrapper.TransformerWrapper ? ((ASMTransformerWrapper.TransformerWrapper)transformer).getParentClassName() : transformer.getClass().getName();
+            hasher.putString(name, Charsets.UTF_8);
+            hasher.putString(getVersion(name, classLoader), Charsets.UTF_8);
+            if (transformer instanceof AccessTransformer)
+            {
+                hasher.putBytes(((AccessTransformer)transformer).getRulesHash().asBytes());
+            }
+        }
+        // Coremods configured through files, and the mod classes frame computation may look up.
+        putFiles(hasher, new File(gameDir, "config"));
+        putFiles(hasher, new File(gameDir, "mods"));
+        if (classLoader instanceof URLClassLoader)
+        {
+            for (URL url : ((URLClassLoader)classLoader).getURLs())
+            {
+                hasher.putString(url.toString(), Charsets.UTF_8);
+                if (url.getProtocol().equals("file"))
+                {
+                    try
+                    {
+                        File source = new File(url.toURI());
+                        hasher.putLong(source.length()).putLong(source.lastModified());
+                    }
+                    catch (Exception e)
+                    {
+                        // the URL alone then
+                    }
+                }
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putFiles(Hasher hasher, File dir)
+    {
+        File[] files = dir.listFiles();
+        if (files == null)
+        {
+            return;
+        }
+        Arrays.sort(files);
+        for (File f : files)
+        {
+            hasher.putString(f.getName(), Charsets.UTF_8);
+            if (f.isDirectory())
+            {
+                putFiles(hasher, f);
+            }
+            else
+            {
+                hasher.putLong(f.length()).putLong(f.lastModified());
+            }
+        }
+    }
+
+    /**
+     * @return Size and modification time of the jar or class file the class comes from
+     */
+    private static String getVersion(String className, ClassLoader classLoader)
+    {
+        URL url = classLoader.getResource(className.replace('.', '/') + ".class");
+        if (url == null)
+        {
+            return "missing";
+        }
+        File source = null;
+        try
+        {
+            if (url.getProtocol().equals("jar"))
+            {
+                String path = url.getPath();
+                source = new File(new URL(path.substring(0, path.indexOf("!/"))).toURI());
+            }
+            else if (url.getProtocol().equals("file"))
+            {
+                source = new File(url.toURI());
+            }
+        }
+        catch (Exception e)
+        {
+            // fall through to the URL
+        }
+        return source == null ? url.toString() : source.getName() + ":" + source.length() + ":" + source.lastModified();
+    }
+
+    /**
+     * @return The number of classes in the file that were not requested yet
+     */
+    public int size()
+    {
+        return index.size();
+    }
+
+    /**
+     * @return The transformers, each wrapped to take part in the cache, in the same order
+     */
+    public List<IClassTransformer> wrap(List<IClassTransformer> transformers)
+    {
+        List<IClassTransformer> ret = Lists.newArrayListWithCapacity(transformers.size());
+        for (int i = 0; i < transformers.size(); i++)
+        {
+            ret.add(new CachingTransformer(transformers.get(i), i == 0, i == transformers.size() - 1));
+        }
+        return ret;
+    }
+
+    /**
+     * Run by the first wrapper, looks the class up.
+     */
+    private Lookup begin(String name, byte[] bytes)
+    {
+        if (bytes == null)
+        {
+            return new Lookup(name, 0, false);
+        }
+        Lookup lookup = new Lookup(name, HASH.hashBytes(bytes).asLong(), true);
+        Location location = index.remove(name);
+        if (location != null && location.hash == lookup.hash)
+        {
+            try
+            {
+                ByteBuffer buf = ByteBuffer.allocate(location.length);
+                while (buf.hasRemaining())
+                {
+                    if (channel.read(buf, location.offset + buf.position()) < 0)
+                    {
+                        throw new EOFException();
+                    }
+                }
+                lookup.cached = buf.array();
+                used.put(name, location);
+                hits.incrementAndGet();
+            }
+            catch (IOException e)
+            {
+                FMLRelaunchLog.log(Level.WARN, e, "Could not read %s from the transformed class cache", name);
+            }
+        }
+        return lookup;
+    }
+
+    /**
+     * Run by the last wrapper on a miss, appends the transformed class to the file.
+     */
+    private void store(String name, long hash, byte[] bytes)
+    {
+        misses.incrementAndGet();
+        byte[] nameBytes = name.getBytes(Charsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(4 + nameBytes.length + 8 + 4 + bytes.length);
+        buf.putInt(nameBytes.length).put(nameBytes).putLong(hash).putInt(bytes.length).put(bytes);
+        buf.flip();
+        synchronized (this)
+        {
+            if (!channel.isOpen())
+            {
+                return;
+            }
+            try
+            {
+                long start = end;
+                while (buf.hasRemaining())
+                {
+                    channel.write(buf, start + buf.position());
+                }
+                end = start + buf.limit();
+                fileEntryBytes += buf.limit();
+                used.put(name, new Location(hash, end - bytes.length, bytes.length));
+            }
+            catch (IOException e)
+            {
+                FMLRelaunchLog.log(Level.WARN, e, "Could not write %s to the transformed class cache", name);
+            }
+        }
+    }
+
+    /**
+     * Closes the file, rewriting it first if most of it is stale or, once mod loading completed, unused.
+     */
+    public synchronized void close()
+    {
+        if (!channel.isOpen())
+        {
+            return;
+        }
+        Map<String, Location> keep = Maps.newHashMap(used);
+        if (!pruneUnused)
+        {
+            for (Map.Entry<String, Location> e : index.entrySet())
+            {
+                if (!keep.containsKey(e.getKey()))
+                {
+                    keep.put(e.getKey(), e.getValue());
+                }
+            }
+        }
+        long keepBytes = 0;
+        for (Map.Entry<String, Location> e : keep.entrySet())
+        {
+            keepBytes += 4 + e.getKey().getBytes(Charsets.UTF_8).length + 8 + 4 + e.getValue().length;
+        }
+        try
+        {
+            if (fileEntryBytes - keepBytes > keepBytes)
+            {
+                compact(keep);
+            }
+        }
+        catch (IOException e)
+        {
+            FMLRelaunchLog.log(Level.WARN, e, "Could not rewrite the transformed class cache %s", file);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(data);
+        }
+    }
+
+    private void compact(Map<String, Location> keep) throws IOException
+    {
+        File tmp = new File(file.getPath() + ".tmp");
+        RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+        try
+        {
+            out.setLength(0);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint);
+            for (Map.Entry<String, Location> e : keep.entrySet())
+            {
+                byte[] name = e.getKey().getBytes(Charsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+                out.writeLong(e.getValue().hash);
+                out.writeInt(e.getValue().length);
+                long copied = 0;
+                while (copied < e.getValue().length)
+                {
+                    copied += channel.transferTo(e.getValue().offset + copied, e.getValue().length - copied, out.getChannel().position(out.length()));
+                }
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        data.close();
+        if (file.exists() && !file.delete() || !tmp.renameTo(file))
+        {
+            FMLRelaunchLog.warning("Could not replace the transformed class cache %s", file);
+            tmp.delete();
+        }
+    }
+
+    private static final class Location
+    {
+        final long hash;
+        final long offset;
+        final int length;
+
+        Location(long hash, long offset, int length)
+        {
+            this.hash = hash;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The state of one class while it passes through the wrapped transformers. Classes loaded by a transformer
+     * are looked up while the outer one is still in flight, so every thread keeps a stack of them.
+     */
+    private static final class Lookup
+    {
+        final String name;
+        final long hash;
+        final boolean cacheable;
+        byte[] cached;
+
+        Lookup(String name, long hash, boolean cacheable)
+        {
+            this.name = name;
+            this.hash = hash;
+            this.cacheable = cacheable;
+        }
+    }
+
+    private class CachingTransformer implements IClassTransformer
+    {
+        private final IClassTransformer parent;
+        private final boolean first;
+        private final boolean last;
+
+        CachingTransformer(IClassTransformer parent, boolean first, boolean last)
+        {
+            this.parent = parent;
+            this.first = first;
+            this.last = last;
+        }
+
+        public IClassTransformer getParent()
+        {
+            return parent;
+        }
+
+        @Override
+        public byte[] transform(String name, String transformedName, byte[] bytes)
+        {
+            Deque<Lookup> stack = lookups.get();
+            if (first)
+            {
+                // Left over if a caller ran only part of the transformers on this class
+                if (!stack.isEmpty() && stack.peek().name.equals(name))
+                {
+                    stack.pop();
+                }
+                stack.push(begin(name, bytes));
+            }
+            Lookup lookup = stack.peek();
+            if (lookup == null || !lookup.name.equals(name))
+            {
+                return parent.transform(name, transformedName, bytes);
+            }
+            try
+            {
+                if (lookup.cached == null)
+                {
+                    bytes = parent.transform(name, transformedName, bytes);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                stack.pop();
+                throw e;
+            }
+            catch (Error e)
+            {
+                stack.pop();
+                throw e;
+            }
+            if (!last)
+            {
+                return bytes;
+            }
+            stack.pop();
+            if (lookup.cached != null)
+            {
+                return lookup.cached;
+            }
+            if (lookup.cacheable && bytes != null)
+            {
+                store(name, lookup.hash, bytes);
+            }
+            return bytes;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "TransformedClassCache(" + parent + ")";
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package net.minecraftforge.fml.common.asm.transformers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.minecraftforge.fml.relauncher.FMLRelaunchLog;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Time spent in class transformers, per transformer. Recorded by {@link FusedClassTransformer} for its parts and
+ * its shared parsing and writing, and by the wrappers of coremod transformers. Logged once mods are loaded.
+ *
+ * A transformer can load other classes, which runs the whole transformer chain for them on the same thread.
+ * Only self time is recorded: time spent in timings nested within another is taken off the outer one.
+ */
+public final class TransformerTimings
+{
+    private static final ConcurrentMap<String, Timing> timings = Maps.newConcurrentMap();
+    private static final ThreadLocal<Frames> frames = new ThreadLocal<Frames>()
+    {
+        @Override
+        protected Frames initialValue()
+        {
+            return new Frames();
+        }
+    };
+
+    private TransformerTimings() {}
+
+    /**
+     * Starts timing on the current thread.
+     *
+     * @return The start time to hand to {@link #stop(String, long, boolean)}
+     */
+    public static long start()
+    {
+        long now = System.nanoTime();
+        frames.get().push(now);
+        return now;
+    }
+
+    /**
+     * Records the time since start, less the time of the timings started and stopped in between on this thread.
+     * Timings left open in between, by an exception, are dropped.
+     */
+    public static void stop(String name, long start, boolean changed)
+    {
+        long elapsed = System.nanoTime() - start;
+        add(name, elapsed - frames.get().pop(start, elapsed), changed);
+    }
+
+    private static void add(String name, long nanos, boolean changed)
+    {
+        Timing timing = timings.get(name);
+        if (timing == null)
+        {
+            Timing fresh = new Timing();
+            timing = timings.putIfAbsent(name, fresh);
+            if (timing == null) timing = fresh;
+        }
+        timing.calls.incrementAndGet();
+        timing.nanos.addAndGet(nanos);
+        if (changed)
+        {
+            timing.changed.incrementAndGet();
+        }
+    }
+
+    public static Map<String, Timing> getTimings()
+    {
+        return ImmutableMap.copyOf(timings);
+    }
+
+    /**
+     * Logs the totals, the slowest transformers first.
+     */
+    public static void log()
+    {
+        List<Map.Entry<String, Timing>> entries = Lists.newArrayList(getTimings().entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Timing>>()
+        {
+            @Override
+            public int compare(Map.Entry<String, Timing> a, Map.Entry<String, Timing> b)
+            {
+                long x = a.getValue().getNanos(), y = b.getValue().getNanos();
+                return x < y ? 1 : x > y ? -1 : 0;
+            }
+        });
+        long total = 0;
+        for (Map.Entry<String, Timing> e : entries)
+        {
+            total += e.getValue().getNanos();
+            FMLRelaunchLog.fine("Class transformer %s: %s", e.getKey(), e.getValue());
+        }
+        FMLRelaunchLog.info("Timed class transformers took %d ms in total", TimeUnit.NANOSECONDS.toMillis(total));
+    }
+
+    private static final class Frames
+    {
+        private long[] starts = new long[8];
+        private long[] nested = new long[8];
+        private int depth;
+
+        void push(long start)
+        {
+            if (depth == starts.length)
+            {
+                starts = Arrays.copyOf(starts, depth * 2);
+                nested = Arrays.copyOf(nested, depth * 2);
+            }
+            starts[depth] = start;
+            nested[depth] = 0;
+            depth++;
+        }
+
+        /**
+         * @return The nested time of the frame, which is then charged to the frame around it
+         */
+        long pop(long start, long elapsed)
+        {
+            int i = depth - 1;
+            while (i >= 0 && starts[i] != start)
+            {
+                i--;
+            }
+            if (i < 0)
+            {
+                return 0;
+            }
+            depth = i;
+            if (i > 0)
+            {
+                nested[i - 1] += elapsed;
+            }
+            return nested[i];
+        }
+    }
+
+    public static final class Timing
+    {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong changed = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+
+        public long getCalls()
+        {
+            return calls.get();
+        }
+
+        /**
+         * @return How many of the calls changed the class
+         */
+        public long getChanged()
+        {
+            return changed.get();
+        }
+
+        public long getNanos()
+        {
+            return nanos.get();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%d ms, %d classes, %d changed", TimeUnit.NANOSECONDS.toMillis(getNanos()), getCalls(), getChanged());
+        }
+    }
+}
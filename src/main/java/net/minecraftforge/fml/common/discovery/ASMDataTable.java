@@ -20,6 +20,7 @@ import net.minecraftforge.fml.common.ModContainer;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Lists;
@@ -94,13 +95,14 @@ public class ASMDataTable
             return container.getSource().equals(data.candidate.getModContainer());
         }
     }
-    private SetMultimap<String, ASMData> globalAnnotationData = HashMultimap.create();
+    // Filled from the threads of the ModDiscoverer
+    private SetMultimap<String, ASMData> globalAnnotationData = Multimaps.synchronizedSetMultimap(HashMultimap.<String, ASMData>create());
     private Map<ModContainer, SetMultimap<String,ASMData>> containerAnnotationData;
 
     private List<ModContainer> containers = Lists.newArrayList();
-    private SetMultimap<String,ModCandidate> packageMap = HashMultimap.create();
+    private SetMultimap<String,ModCandidate> packageMap = Multimaps.synchronizedSetMultimap(HashMultimap.<String, ModCandidate>create());
 
-    public SetMultimap<String,ASMData> getAnnotationsFor(ModContainer container)
+    public synchronized SetMultimap<String,ASMData> getAnnotationsFor(ModContainer container)
     {
         if (containerAnnotationData == null)
         {
@@ -130,6 +132,11 @@ public class ASMDataTable
         this.containers.add(container);
     }
 
+    List<ModContainer> getContainers()
+    {
+        return ImmutableList.copyOf(containers);
+    }
+
     public void registerPackage(ModCandidate modCandidate, String pkg)
     {
         this.packageMap.put(pkg,modCandidate);
@@ -12,8 +12,14 @@
 
 package net.minecraftforge.fml.common.discovery;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.jar.JarFile;
 
 import net.minecraftforge.fml.common.FMLLog;
@@ -28,10 +34,13 @@ import org.apache.logging.log4j.Level;
 import java.util.regex.Matcher;
 import java.util.zip.ZipEntry;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 
 public class JarDiscoverer implements ITypeDiscoverer
 {
+    private static final int CHUNK_SIZE = 64;
+
     @Override
     public List<ModContainer> discover(ModCandidate candidate, ASMDataTable table)
     {
@@ -54,6 +63,7 @@ public class JarDiscoverer implements ITypeDiscoverer
                 FMLLog.fine("The mod container %s appears to be missing an mcmod.info file", candidate.getModContainer().getName());
                 mc = MetadataCollection.from(null, "");
             }
+            List<ZipEntry> classes = Lists.newArrayList();
             for (ZipEntry ze : Collections.list(jar.entries()))
             {
                 if (ze.getName()!=null && ze.getName().startsWith("__MACOSX"))
@@ -63,28 +73,30 @@ public class JarDiscoverer implements ITypeDiscoverer
                 Matcher match = classFile.matcher(ze.getName());
                 if (match.matches())
                 {
-                    ASMModParser modParser;
-                    try
-                    {
-                        modParser = new ASMModParser(jar.getInputStream(ze));
-                        candidate.addClassEntry(ze.getName());
-                    }
-                    catch (LoaderException e)
-                    {
-                        FMLLog.log(Level.ERROR, e, "There was a problem reading the entry %s in the jar %s - probably a corrupt zip", ze.getName(), candidate.getModContainer().getPath());
-                        jar.close();
-                        throw e;
-                    }
-                    modParser.validate();
-                    modParser.sendToTable(table, candidate);
-                    ModContainer container = ModContainerFactory.instance().build(modParser, candidate.getModContainer(), candidate);
-                    if (container!=null)
-                    {
-                        table.addContainer(container);
-                        foundMods.add(container);
-                        container.bindMetadata(mc);
-                        container.setClassVersion(modParser.getClassVersion());
-                    }
+                    classes.add(ze);
+                }
+            }
+            Object[] parsed = parse(jar, classes, candidate.getExecutor());
+            // In entry order, the outcome is the same as parsing one class after the other
+            for (int i = 0; i < classes.size(); i++)
+            {
+                ZipEntry ze = classes.get(i);
+                if (parsed[i] instanceof LoaderException)
+                {
+                    FMLLog.log(Level.ERROR, (LoaderException)parsed[i], "There was a problem reading the entry %s in the jar %s - probably a corrupt zip", ze.getName(), candidate.getModContainer().getPath());
+                    jar.close();
+                    throw (LoaderException)parsed[i];
+                }
+                ASMModParser modParser = (ASMModParser)parsed[i];
+                candidate.addClassEntry(ze.getName());
+                modParser.validate();
+                modParser.sendToTable(table, candidate);
+                ModContainer container = ModContainerFactory.instance().build(modParser, candidate.getModContainer(), candidate);
+                if (container!=null)
+                {
+                    foundMods.add(container);
+                    container.bindMetadata(mc);
+                    container.setClassVersion(modParser.getClassVersion());
                 }
             }
         }
@@ -108,4 +120,72 @@ public class JarDiscoverer implements ITypeDiscoverer
         return foundMods;
     }
 
+    /**
+     * Parses the class files, in chunks on the executor if there is one.
+     *
+     * @return For each entry its {@link ASMModParser}, or the {@link LoaderException} reading it failed with
+     */
+    private Object[] parse(final JarFile jar, final List<ZipEntry> classes, ExecutorService executor) throws IOException
+    {
+        final Object[] parsed = new Object[classes.size()];
+        if (executor == null)
+        {
+            parse(jar, classes, parsed, 0, classes.size());
+            return parsed;
+        }
+        List<Future<Void>> chunks = Lists.newArrayList();
+        for (int start = 0; start < classes.size(); start += CHUNK_SIZE)
+        {
+            final int from = start;
+            final int to = Math.min(start + CHUNK_SIZE, classes.size());
+            chunks.add(executor.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws IOException
+                {
+                    parse(jar, classes, parsed, from, to);
+                    return null;
+                }
+            }));
+        }
+        try
+        {
+            for (Future<Void> chunk : chunks)
+            {
+                chunk.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new LoaderException(e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+        return parsed;
+    }
+
+    private void parse(JarFile jar, List<ZipEntry> classes, Object[] parsed, int from, int to) throws IOException
+    {
+        for (int i = from; i < to; i++)
+        {
+            // ZipFile is safe to read from several threads
+            InputStream in = jar.getInputStream(classes.get(i));
+            try
+            {
+                parsed[i] = new ASMModParser(in);
+            }
+            catch (LoaderException e)
+            {
+                parsed[i] = e;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+    }
 }
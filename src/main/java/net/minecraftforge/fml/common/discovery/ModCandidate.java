@@ -15,6 +15,7 @@ package net.minecraftforge.fml.common.discovery;
 import java.io.File;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import net.minecraftforge.fml.common.FMLLog;
 import net.minecraftforge.fml.common.ModContainer;
@@ -37,6 +38,7 @@ public class ModCandidate
     private List<ModContainer> mods;
     private List<String> packages = Lists.newArrayList();
     private ASMDataTable table;
+    private ExecutorService executor;
 
     public ModCandidate(File classPathRoot, File modContainer, ContainerType sourceType)
     {
@@ -66,8 +68,17 @@ public class ModCandidate
         return sourceType;
     }
     public List<ModContainer> explore(ASMDataTable table)
+    {
+        return explore(table, null);
+    }
+
+    /**
+     * @param executor Where the class files are parsed, or null to parse them on the calling thread
+     */
+    public List<ModContainer> explore(ASMDataTable table, ExecutorService executor)
     {
         this.table = table;
+        this.executor = executor;
         this.mods = sourceType.findMods(this, table);
         if (!baseModCandidateTypes.isEmpty())
         {
@@ -123,4 +134,9 @@ public class ModCandidate
     {
         return packages;
     }
+
+    ExecutorService getExecutor()
+    {
+        return executor;
+    }
 }
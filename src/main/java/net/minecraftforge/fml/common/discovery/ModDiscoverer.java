@@ -14,6 +14,11 @@ package net.minecraftforge.fml.common.discovery;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,6 +35,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.ObjectArrays;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class ModDiscoverer
 {
@@ -126,29 +132,73 @@ public class ModDiscoverer
     public List<ModContainer> identifyMods()
     {
         List<ModContainer> modList = Lists.newArrayList();
+        if (candidates.isEmpty())
+        {
+            return modList;
+        }
 
-        for (ModCandidate candidate : candidates)
+        // Candidates are explored on one pool and parse their classes on the other, so a candidate waiting for its
+        // classes never holds up the threads that parse them.
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService candidatePool = Executors.newFixedThreadPool(Math.min(candidates.size(), threads), new ThreadFactoryBuilder().setNameFormat("Mod Discoverer #%d").setDaemon(true).build());
+        final ExecutorService parserPool = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Mod Class Parser #%d").setDaemon(true).build());
+        try
         {
-            try
+            List<Future<List<ModContainer>>> results = Lists.newArrayList();
+            for (final ModCandidate candidate : candidates)
+            {
+                results.add(candidatePool.submit(new Callable<List<ModContainer>>()
+                {
+                    @Override
+                    public List<ModContainer> call()
+                    {
+                        return candidate.explore(dataTable, parserPool);
+                    }
+                }));
+            }
+            // Collected in candidate order, so the mod list and the data table's containers are the same as when
+            // exploring one after the other
+            for (int i = 0; i < candidates.size(); i++)
             {
-                List<ModContainer> mods = candidate.explore(dataTable);
-                if (mods.isEmpty() && !candidate.isClasspath())
+                ModCandidate candidate = candidates.get(i);
+                try
                 {
-                    nonModLibs.add(candidate.getModContainer());
+                    List<ModContainer> mods = results.get(i).get();
+                    if (mods.isEmpty() && !candidate.isClasspath())
+                    {
+                        nonModLibs.add(candidate.getModContainer());
+                    }
+                    else
+                    {
+                        for (ModContainer mod : mods)
+                        {
+                            dataTable.addContainer(mod);
+                        }
+                        modList.addAll(mods);
+                    }
                 }
-                else
+                catch (ExecutionException e)
                 {
-                    modList.addAll(mods);
+                    if (e.getCause() instanceof LoaderException)
+                    {
+                        FMLLog.log(Level.WARN, e.getCause(), "Identified a problem with the mod candidate %s, ignoring this source", candidate.getModContainer());
+                    }
+                    else
+                    {
+                        Throwables.propagate(e.getCause());
+                    }
                 }
             }
-            catch (LoaderException le)
-            {
-                FMLLog.log(Level.WARN, le, "Identified a problem with the mod candidate %s, ignoring this source", candidate.getModContainer());
-            }
-            catch (Throwable t)
-            {
-                Throwables.propagate(t);
-            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            Throwables.propagate(e);
+        }
+        finally
+        {
+            candidatePool.shutdownNow();
+            parserPool.shutdownNow();
         }
 
         return modList;
@@ -164,7 +214,7 @@ public class ModDiscoverer
         return nonModLibs;
     }
 
-    private void addCandidate(ModCandidate candidate)
+    void addCandidate(ModCandidate candidate)
     {
         for (ModCandidate c : candidates)
         {
@@ -20,6 +20,7 @@ import java.util.List;
 
 import net.minecraftforge.fml.common.FMLLog;
 import net.minecraftforge.fml.common.LoaderException;
+import net.minecraftforge.fml.common.asm.transformers.ConstantPoolScanner;
 import net.minecraftforge.fml.common.discovery.ASMDataTable;
 import net.minecraftforge.fml.common.discovery.ModCandidate;
 
@@ -33,6 +34,8 @@ import com.google.common.collect.Lists;
 
 public class ASMModParser
 {
+    private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = ConstantPoolScanner.utf8("RuntimeVisibleAnnotations");
+    private static final byte[] RUNTIME_INVISIBLE_ANNOTATIONS = ConstantPoolScanner.utf8("RuntimeInvisibleAnnotations");
 
     private Type asmType;
     private int classVersion;
@@ -50,7 +53,17 @@ public class ASMModParser
         try
         {
             ClassReader reader = new ClassReader(stream);
-            reader.accept(new ModClassVisitor(this), 0);
+            if (ConstantPoolScanner.scan(reader, RUNTIME_VISIBLE_ANNOTATIONS, RUNTIME_INVISIBLE_ANNOTATIONS) == 0)
+            {
+                // No annotations on the class or any member, the header is all there is to read.
+                // The version is what ClassVisitor.visit gets, minor << 16 | major.
+                beginNewTypeName(reader.getClassName(), reader.readInt(4), reader.getSuperName());
+            }
+            else
+            {
+                // Only annotations are read, never code
+                reader.accept(new ModClassVisitor(this), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            }
         }
         catch (Exception ex)
         {
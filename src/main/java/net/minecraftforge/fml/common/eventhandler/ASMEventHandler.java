@@ -3,54 +3,114 @@ package net.minecraftforge.fml.common.eventhandler;
 import static org.objectweb.asm.Opcodes.*;
 
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.minecraftforge.fml.common.ModContainer;
 
 import org.apache.logging.log4j.ThreadContext;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
 
 
 public class ASMEventHandler implements IEventListener
 {
-    private static int IDs = 0;
+    private static final AtomicInteger IDs = new AtomicInteger();
     private static final String HANDLER_DESC = Type.getInternalName(IEventListener.class);
     private static final String HANDLER_FUNC_DESC = Type.getMethodDescriptor(IEventListener.class.getDeclaredMethods()[0]);
+    private static final String EVENT_DESC = Type.getInternalName(Event.class);
     private static final ASMClassLoader LOADER = new ASMClassLoader();
-    private static final HashMap<Method, Class<?>> cache = Maps.newHashMap();
+    private static final ConcurrentMap<Method, Class<?>> cache = Maps.newConcurrentMap();
     private static final boolean GETCONTEXT = Boolean.parseBoolean(System.getProperty("fml.LogContext", "false"));
 
+    /**
+     * Default factory, generates one small class per subscriber method.
+     * Generated classes are shared by every target instance of the same method.
+     */
+    public static final IEventHandlerFactory ASM_FACTORY = new IEventHandlerFactory()
+    {
+        @Override
+        public IEventListener create(Object target, Method method) throws Exception
+        {
+            return (IEventListener)createWrapperClass(method).getConstructor(Object.class).newInstance(target);
+        }
+    };
+    private static volatile IEventHandlerFactory factory = "reflection".equals(System.getProperty("fml.eventHandlerFactory")) ? new ReflectionEventHandlerFactory() : ASM_FACTORY;
+
     private final IEventListener handler;
     private final SubscribeEvent subInfo;
     private ModContainer owner;
     private String readable;
+    // Only allocated once the listener is called with profiling enabled
+    private volatile EventProfiler.Stats stats;
 
     public ASMEventHandler(Object target, Method method, ModContainer owner) throws Exception
     {
         this.owner = owner;
-        handler = (IEventListener)createWrapper(method).getConstructor(Object.class).newInstance(target);
+        handler = factory.create(target, method);
         subInfo = method.getAnnotation(SubscribeEvent.class);
         readable = "ASM: " + target + " " + method.getName() + Type.getMethodDescriptor(method);
+        EventProfiler.INSTANCE.track(this);
     }
 
     @Override
     public void invoke(Event event)
+    {
+        if (EventProfiler.enabled)
+        {
+            EventProfiler.invoke(this, event);
+        }
+        else
+        {
+            invokeDirect(event);
+        }
+    }
+
+    void invokeDirect(Event event)
     {
         if (GETCONTEXT)
+        {
             ThreadContext.put("mod", owner == null ? "" : owner.getName());
-        if (handler != null)
+            handler.invoke(event);
+            ThreadContext.remove("mod");
+        }
+        else
         {
-            if (!event.isCancelable() || !event.isCanceled() || subInfo.receiveCanceled())
+            // Canceled state is filtered inside the generated wrapper, see createWrapper
+            handler.invoke(event);
+        }
+    }
+
+    EventProfiler.Stats getStats()
+    {
+        EventProfiler.Stats ret = stats;
+        if (ret == null)
+        {
+            synchronized (this)
             {
-                handler.invoke(event);
+                ret = stats;
+                if (ret == null)
+                {
+                    ret = stats = new EventProfiler.Stats();
+                }
             }
         }
-        if (GETCONTEXT)
-            ThreadContext.remove("mod");
+        return ret;
+    }
+
+    EventProfiler.Stats peekStats()
+    {
+        return stats;
+    }
+
+    public ModContainer getOwner()
+    {
+        return owner;
     }
 
     public EventPriority getPriority()
@@ -58,13 +118,46 @@ public class ASMEventHandler implements IEventListener
         return subInfo.priority();
     }
 
+    /**
+     * Replaces the factory used to build the listeners of any handler registered after this call.
+     */
+    public static void setHandlerFactory(IEventHandlerFactory handlerFactory)
+    {
+        Preconditions.checkArgument(handlerFactory != null, "Event handler factory can not be null");
+        factory = handlerFactory;
+    }
+
+    public static IEventHandlerFactory getHandlerFactory()
+    {
+        return factory;
+    }
+
     public Class<?> createWrapper(Method callback)
     {
-        if (cache.containsKey(callback))
+        return createWrapperClass(callback);
+    }
+
+    private static Class<?> createWrapperClass(Method callback)
+    {
+        Class<?> ret = cache.get(callback);
+        if (ret != null)
+        {
+            return ret;
+        }
+        synchronized (cache)
         {
-            return cache.get(callback);
+            ret = cache.get(callback);
+            if (ret == null)
+            {
+                ret = generateWrapper(callback);
+                cache.put(callback, ret);
+            }
+            return ret;
         }
+    }
 
+    private static Class<?> generateWrapper(Method callback)
+    {
         ClassWriter cw = new ClassWriter(0);
         MethodVisitor mv;
 
@@ -72,6 +165,8 @@ public class ASMEventHandler implements IEventListener
         String desc = name.replace('.',  '/');
         String instType = Type.getInternalName(callback.getDeclaringClass());
         String eventType = Type.getInternalName(callback.getParameterTypes()[0]);
+        SubscribeEvent info = callback.getAnnotation(SubscribeEvent.class);
+        boolean receiveCanceled = info != null && info.receiveCanceled();
 
         /*
         System.out.println("Name:     " + name);
@@ -102,6 +197,17 @@ public class ASMEventHandler implements IEventListener
         {
             mv = cw.visitMethod(ACC_PUBLIC, "invoke", HANDLER_FUNC_DESC, null, null);
             mv.visitCode();
+            if (!receiveCanceled)
+            {
+                // if (event.isCanceled()) return;
+                // isCanceled can only ever be true for cancelable events, so this covers isCancelable as well.
+                Label call = new Label();
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitMethodInsn(INVOKEVIRTUAL, EVENT_DESC, "isCanceled", "()Z", false);
+                mv.visitJumpInsn(IFEQ, call);
+                mv.visitInsn(RETURN);
+                mv.visitLabel(call);
+            }
             mv.visitVarInsn(ALOAD, 0);
             mv.visitFieldInsn(GETFIELD, desc, "instance", "Ljava/lang/Object;");
             mv.visitTypeInsn(CHECKCAST, instType);
@@ -113,14 +219,12 @@ public class ASMEventHandler implements IEventListener
             mv.visitEnd();
         }
         cw.visitEnd();
-        Class<?> ret = LOADER.define(name, cw.toByteArray());
-        cache.put(callback, ret);
-        return ret;
+        return LOADER.define(name, cw.toByteArray());
     }
 
-    private String getUniqueName(Method callback)
+    private static String getUniqueName(Method callback)
     {
-        return String.format("%s_%d_%s_%s_%s", getClass().getName(), IDs++,
+        return String.format("%s_%d_%s_%s_%s", ASMEventHandler.class.getName(), IDs.getAndIncrement(),
                 callback.getDeclaringClass().getSimpleName(),
                 callback.getName(),
                 callback.getParameterTypes()[0].getSimpleName());
@@ -3,9 +3,17 @@ package net.minecraftforge.fml.common.eventhandler;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.annotation.Nonnull;
 
@@ -17,12 +25,22 @@ import org.apache.logging.log4j.Level;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Longs;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class EventBus implements IEventExceptionHandler
 {
     private static int maxID = 0;
+    private static final ConcurrentMap<Class<?>, ImmutableList<Method>> subscriberCache = Maps.newConcurrentMap();
+    private static final Map<String, long[]> registrationTimings = Maps.newHashMap();
+    private static final ConcurrentMap<Class<?>, Boolean> orderIndependent = Maps.newConcurrentMap();
+    private static final ThreadLocal<Boolean> parallelDispatchThread = new ThreadLocal<Boolean>();
+    private static ExecutorService parallelExecutor;
 
     private ConcurrentHashMap<Object, ArrayList<IEventListener>> listeners = new ConcurrentHashMap<Object, ArrayList<IEventListener>>();
     private Map<Object,ModContainer> listenerOwners = new MapMaker().weakKeys().weakValues().makeMap();
@@ -56,45 +74,131 @@ public class EventBus implements IEventExceptionHandler
             activeModContainer = Loader.instance().getMinecraftModContainer();
         }
         listenerOwners.put(target, activeModContainer);
-        Set<? extends Class<?>> supers = TypeToken.of(target.getClass()).getTypes().rawTypes();
-        for (Method method : target.getClass().getMethods())
+        long start = System.nanoTime();
+        ImmutableList<Method> subscribers = findSubscribers(target.getClass());
+        for (Method method : subscribers)
         {
-            for (Class<?> cls : supers)
+            register(method.getParameterTypes()[0], target, method, activeModContainer);
+        }
+        recordRegistration(activeModContainer, subscribers.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * Finds every {@link SubscribeEvent} method of the class, the result is cached per class
+     * so that registering many instances of the same type only scans it once.
+     *
+     * A public method is a subscriber if any declaration of it in the type hierarchy carries the annotation,
+     * the first annotated declaration is the one that gets registered.
+     */
+    static ImmutableList<Method> findSubscribers(Class<?> cls)
+    {
+        ImmutableList<Method> ret = subscriberCache.get(cls);
+        if (ret != null)
+        {
+            return ret;
+        }
+
+        Map<List<Object>, Method> annotated = Maps.newHashMap();
+        for (Class<?> sup : TypeToken.of(cls).getTypes().rawTypes())
+        {
+            for (Method real : sup.getDeclaredMethods())
             {
-                try
+                if (real.isAnnotationPresent(SubscribeEvent.class))
                 {
-                    Method real = cls.getDeclaredMethod(method.getName(), method.getParameterTypes());
-                    if (real.isAnnotationPresent(SubscribeEvent.class))
+                    List<Object> key = signature(real);
+                    if (!annotated.containsKey(key))
                     {
-                        Class<?>[] parameterTypes = method.getParameterTypes();
-                        if (parameterTypes.length != 1)
-                        {
-                            throw new IllegalArgumentException(
-                                "Method " + method + " has @SubscribeEvent annotation, but requires " + parameterTypes.length +
-                                " arguments.  Event handler methods must require a single argument."
-                            );
-                        }
-
-                        Class<?> eventType = parameterTypes[0];
-
-                        if (!Event.class.isAssignableFrom(eventType))
-                        {
-                            throw new IllegalArgumentException("Method " + method + " has @SubscribeEvent annotation, but takes a argument that is not an Event " + eventType);
-                        }
-
-                        register(eventType, target, real, activeModContainer);
-                        break;
+                        annotated.put(key, real);
                     }
                 }
-                catch (NoSuchMethodException e)
+            }
+        }
+
+        ImmutableList.Builder<Method> builder = ImmutableList.builder();
+        if (!annotated.isEmpty())
+        {
+            for (Method method : cls.getMethods())
+            {
+                Method real = annotated.get(signature(method));
+                if (real == null)
                 {
-                    ;
+                    continue;
                 }
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                if (parameterTypes.length != 1)
+                {
+                    throw new IllegalArgumentException(
+                        "Method " + method + " has @SubscribeEvent annotation, but requires " + parameterTypes.length +
+                        " arguments.  Event handler methods must require a single argument."
+                    );
+                }
+
+                Class<?> eventType = parameterTypes[0];
+
+                if (!Event.class.isAssignableFrom(eventType))
+                {
+                    throw new IllegalArgumentException("Method " + method + " has @SubscribeEvent annotation, but takes a argument that is not an Event " + eventType);
+                }
+                builder.add(real);
+            }
+        }
+        ret = builder.build();
+        subscriberCache.put(cls, ret);
+        return ret;
+    }
+
+    private static List<Object> signature(Method method)
+    {
+        return ImmutableList.<Object>builder().add(method.getName()).add((Object[])method.getParameterTypes()).build();
+    }
+
+    private static void recordRegistration(ModContainer owner, int handlers, long nanos)
+    {
+        String modId = owner.getModId();
+        synchronized (registrationTimings)
+        {
+            long[] timing = registrationTimings.get(modId);
+            if (timing == null)
+            {
+                timing = new long[2];
+                registrationTimings.put(modId, timing);
             }
+            timing[0] += handlers;
+            timing[1] += nanos;
         }
     }
 
-    private void register(Class<?> eventType, Object target, Method method, ModContainer owner)
+    /**
+     * Logs the number of handlers and the time spent registering them, per mod, slowest first.
+     * Covers every bus, called once mod loading has completed.
+     */
+    public static void logRegistrationTimings()
+    {
+        List<Map.Entry<String, long[]>> entries;
+        synchronized (registrationTimings)
+        {
+            entries = Lists.newArrayList();
+            for (Map.Entry<String, long[]> entry : registrationTimings.entrySet())
+            {
+                entries.add(Maps.immutableEntry(entry.getKey(), entry.getValue().clone()));
+            }
+        }
+        Collections.sort(entries, new Comparator<Map.Entry<String, long[]>>()
+        {
+            @Override
+            public int compare(Map.Entry<String, long[]> o1, Map.Entry<String, long[]> o2)
+            {
+                return Longs.compare(o2.getValue()[1], o1.getValue()[1]);
+            }
+        });
+        FMLLog.fine("Event handler registration timings:");
+        for (Map.Entry<String, long[]> entry : entries)
+        {
+            FMLLog.fine("    %s: %d handlers in %.3fms", entry.getKey(), entry.getValue()[0], entry.getValue()[1] / 1000000.0);
+        }
+    }
+
+    void register(Class<?> eventType, Object target, Method method, ModContainer owner)
     {
         try
         {
@@ -129,6 +233,16 @@ public class EventBus implements IEventExceptionHandler
         }
     }
 
+    /**
+     * Fires the event to all registered listeners.
+     *
+     * The listener array is a snapshot owned by the event's {@link ListenerList}, it is
+     * only rebuilt when listeners are registered or unregistered, so posting does not allocate.
+     * Canceled events are filtered by the generated handlers themselves.
+     *
+     * @param event The event to fire
+     * @return True if the event was canceled
+     */
     public boolean post(Event event)
     {
         IEventListener[] listeners = event.getListenerList().getListeners(busID);
@@ -145,7 +259,163 @@ public class EventBus implements IEventExceptionHandler
             exceptionHandler.handleException(this, event, listeners, index, throwable);
             Throwables.propagate(throwable);
         }
-        return (event.isCancelable() ? event.isCanceled() : false);
+        return event.isCanceled();
+    }
+
+    /**
+     * Fires an {@link OrderIndependent} event, running the listeners of each priority concurrently.
+     *
+     * Priorities are still processed in order, every listener of one priority has finished before
+     * the next priority starts. If listeners throw, the exception handler is called for each failure
+     * in listener order once the priority has completed, and the first failure is propagated.
+     *
+     * Listeners of the same priority can't see each other's cancelation or result, so cancelable events
+     * and events with a {@link Event.HasResult result} are posted serially as with {@link #post(Event)},
+     * as are events that are not marked {@link OrderIndependent} and events posted from within a parallel listener.
+     *
+     * @param event The event to fire
+     * @return True if the event was canceled
+     */
+    public boolean postParallel(Event event)
+    {
+        if (event.isCancelable() || event.hasResult() || !isOrderIndependent(event.getClass()) || parallelDispatchThread.get() != null)
+        {
+            return post(event);
+        }
+
+        IEventListener[] listeners = event.getListenerList().getListeners(busID);
+        int index = 0;
+        while (index < listeners.length)
+        {
+            if (listeners[index] instanceof EventPriority)
+            {
+                try
+                {
+                    listeners[index].invoke(event);
+                }
+                catch (Throwable throwable)
+                {
+                    exceptionHandler.handleException(this, event, listeners, index, throwable);
+                    Throwables.propagate(throwable);
+                }
+                index++;
+                continue;
+            }
+            int end = index + 1;
+            while (end < listeners.length && !(listeners[end] instanceof EventPriority))
+            {
+                end++;
+            }
+            postBand(event, listeners, index, end);
+            index = end;
+        }
+        return event.isCanceled();
+    }
+
+    private void postBand(final Event event, final IEventListener[] listeners, int start, int end)
+    {
+        Throwable[] failures = new Throwable[end - start];
+        List<Future<?>> tasks = Lists.newArrayListWithCapacity(end - start - 1);
+        for (int x = start + 1; x < end; x++)
+        {
+            final IEventListener listener = listeners[x];
+            tasks.add(getParallelExecutor().submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    parallelDispatchThread.set(Boolean.TRUE);
+                    try
+                    {
+                        listener.invoke(event);
+                    }
+                    finally
+                    {
+                        parallelDispatchThread.remove();
+                    }
+                }
+            }));
+        }
+
+        // The posting thread takes the first listener instead of idling.
+        parallelDispatchThread.set(Boolean.TRUE);
+        try
+        {
+            listeners[start].invoke(event);
+        }
+        catch (Throwable throwable)
+        {
+            failures[0] = throwable;
+        }
+        finally
+        {
+            parallelDispatchThread.remove();
+        }
+
+        boolean interrupted = false;
+        for (int x = 0; x < tasks.size(); x++)
+        {
+            Future<?> task = tasks.get(x);
+            while (true)
+            {
+                try
+                {
+                    task.get();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    failures[x + 1] = e.getCause();
+                    break;
+                }
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable first = null;
+        for (int x = 0; x < failures.length; x++)
+        {
+            if (failures[x] != null)
+            {
+                exceptionHandler.handleException(this, event, listeners, start + x, failures[x]);
+                if (first == null)
+                {
+                    first = failures[x];
+                }
+            }
+        }
+        if (first != null)
+        {
+            Throwables.propagate(first);
+        }
+    }
+
+    private static boolean isOrderIndependent(Class<?> eventType)
+    {
+        Boolean ret = orderIndependent.get(eventType);
+        if (ret == null)
+        {
+            ret = eventType.isAnnotationPresent(OrderIndependent.class);
+            orderIndependent.put(eventType, ret);
+        }
+        return ret;
+    }
+
+    private static synchronized ExecutorService getParallelExecutor()
+    {
+        if (parallelExecutor == null)
+        {
+            ThreadFactory factory = new ThreadFactoryBuilder().setNameFormat("FML Event Dispatch #%d").setDaemon(true).build();
+            parallelExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), factory);
+        }
+        return parallelExecutor;
     }
 
     @Override
@@ -0,0 +1,199 @@
+package net.minecraftforge.fml.common.eventhandler;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import javax.management.ObjectName;
+
+import net.minecraftforge.fml.common.FMLLog;
+import net.minecraftforge.fml.common.ModContainer;
+import net.minecraftforge.fml.common.StripedCounter;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.primitives.Longs;
+
+/**
+ * Counts invocations of every {@link ASMEventHandler} and times a sample of them,
+ * so that expensive listeners can be traced back to the mod that registered them.
+ *
+ * While disabled the only cost on the posting path is a single flag check per listener.
+ * Exposed through /forge profile events and JMX.
+ */
+public class EventProfiler implements EventProfilerMBean
+{
+    public static final EventProfiler INSTANCE = new EventProfiler();
+    /** Every 2^SAMPLE_SHIFT invocation of a listener, per thread stripe, is timed. */
+    private static final int SAMPLE_SHIFT = 4;
+    private static final long SAMPLE_MASK = (1 << SAMPLE_SHIFT) - 1;
+
+    static volatile boolean enabled = false;
+    private final Set<ASMEventHandler> handlers = Collections.newSetFromMap(new MapMaker().weakKeys().<ASMEventHandler, Boolean>makeMap());
+
+    private EventProfiler()
+    {
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("net.minecraftforge:type=EventProfiler"));
+        }
+        catch (Exception e)
+        {
+            FMLLog.fine("Unable to register the event profiler MBean: %s", e);
+        }
+    }
+
+    void track(ASMEventHandler handler)
+    {
+        handlers.add(handler);
+    }
+
+    /**
+     * Called by the listener in place of a plain invoke while profiling is enabled.
+     */
+    static void invoke(ASMEventHandler handler, Event event)
+    {
+        Stats stats = handler.getStats();
+        if ((stats.calls.increment() & SAMPLE_MASK) != 0)
+        {
+            handler.invokeDirect(event);
+            return;
+        }
+        long start = System.nanoTime();
+        handler.invokeDirect(event);
+        stats.sampledNanos.add(System.nanoTime() - start);
+        stats.samples.increment();
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean value)
+    {
+        enabled = value;
+    }
+
+    @Override
+    public void reset()
+    {
+        for (ASMEventHandler handler : handlers)
+        {
+            Stats stats = handler.peekStats();
+            if (stats != null)
+            {
+                stats.calls.reset();
+                stats.samples.reset();
+                stats.sampledNanos.reset();
+            }
+        }
+    }
+
+    @Override
+    public String[] getReport()
+    {
+        List<Entry> entries = getEntries();
+        String[] ret = new String[entries.size()];
+        for (int x = 0; x < ret.length; x++)
+        {
+            ret[x] = entries.get(x).toString();
+        }
+        return ret;
+    }
+
+    /**
+     * @return A snapshot of every listener that was called since the last reset, most expensive first.
+     */
+    public List<Entry> getEntries()
+    {
+        List<Entry> ret = Lists.newArrayList();
+        for (ASMEventHandler handler : handlers)
+        {
+            Stats stats = handler.peekStats();
+            if (stats == null)
+            {
+                continue;
+            }
+            long calls = stats.calls.sum();
+            if (calls == 0)
+            {
+                continue;
+            }
+            long samples = stats.samples.sum();
+            long nanos = stats.sampledNanos.sum();
+            long average = samples == 0 ? 0 : nanos / samples;
+            ret.add(new Entry(handler.getOwner(), handler.toString(), calls, average));
+        }
+        Collections.sort(ret, new Comparator<Entry>()
+        {
+            @Override
+            public int compare(Entry o1, Entry o2)
+            {
+                return Longs.compare(o2.getEstimatedNanos(), o1.getEstimatedNanos());
+            }
+        });
+        return ret;
+    }
+
+    static class Stats
+    {
+        final StripedCounter calls = new StripedCounter();
+        final StripedCounter samples = new StripedCounter();
+        final StripedCounter sampledNanos = new StripedCounter();
+    }
+
+    public static class Entry
+    {
+        private final ModContainer owner;
+        private final String listener;
+        private final long calls;
+        private final long averageNanos;
+
+        private Entry(ModContainer owner, String listener, long calls, long averageNanos)
+        {
+            this.owner = owner;
+            this.listener = listener;
+            this.calls = calls;
+            this.averageNanos = averageNanos;
+        }
+
+        public String getModId()
+        {
+            return owner == null ? "unknown" : owner.getModId();
+        }
+
+        public String getListener()
+        {
+            return listener;
+        }
+
+        public long getCalls()
+        {
+            return calls;
+        }
+
+        public long getAverageNanos()
+        {
+            return averageNanos;
+        }
+
+        /**
+         * @return The sampled average scaled up to every call
+         */
+        public long getEstimatedNanos()
+        {
+            return averageNanos * calls;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s: %s calls=%d avg=%.3fus total=%.3fms", getModId(), listener, calls, averageNanos / 1000.0, getEstimatedNanos() / 1000000.0);
+        }
+    }
+}
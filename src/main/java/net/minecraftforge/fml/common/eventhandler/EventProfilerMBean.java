@@ -0,0 +1,18 @@
+package net.minecraftforge.fml.common.eventhandler;
+
+/**
+ * JMX view of the {@link EventProfiler}, registered as net.minecraftforge:type=EventProfiler
+ */
+public interface EventProfilerMBean
+{
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+
+    /**
+     * @return One line per listener, most expensive first.
+     */
+    String[] getReport();
+}
@@ -0,0 +1,15 @@
+package net.minecraftforge.fml.common.eventhandler;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates the raw listener that calls a single {@link SubscribeEvent} method on its target.
+ *
+ * The returned listener is expected to skip canceled events unless the method's
+ * {@link SubscribeEvent#receiveCanceled()} is set.
+ * Implementations must be thread safe, registration can happen from any thread.
+ */
+public interface IEventHandlerFactory
+{
+    IEventListener create(Object target, Method method) throws Exception;
+}
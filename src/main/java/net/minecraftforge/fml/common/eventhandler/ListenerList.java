@@ -116,10 +116,11 @@ public class ListenerList
 
     private class ListenerListInst
     {
-        private boolean rebuild = true;
-        private IEventListener[] listeners;
+        private volatile boolean rebuild = true;
+        private volatile IEventListener[] listeners;
         private ArrayList<ArrayList<IEventListener>> priorities;
         private ListenerListInst parent;
+        private List<ListenerListInst> children;
 
         private ListenerListInst()
         {
@@ -141,12 +142,17 @@ public class ListenerList
             priorities.clear();
             parent = null;
             listeners = null;
+            if (children != null)
+            {
+                children.clear();
+            }
         }
 
         private ListenerListInst(ListenerListInst parent)
         {
             this();
             this.parent = parent;
+            this.parent.addChild(this);
         }
 
         /**
@@ -175,25 +181,57 @@ public class ListenerList
          * List is returned in proper priority order.
          *
          * Automatically rebuilds the internal Array cache if its information is out of date.
+         * The returned array is an immutable snapshot, it is only replaced when a listener
+         * is registered or unregistered on this list or one of its parents.
          *
          * @return Array containing listeners
          */
         public IEventListener[] getListeners()
         {
-            if (shouldRebuild()) buildCache();
+            if (rebuild) buildCache();
             return listeners;
         }
 
         protected boolean shouldRebuild()
         {
-            return rebuild || (parent != null && parent.shouldRebuild());
+            return rebuild;
+        }
+
+        /**
+         * Marks this list, and every child list that includes our listeners, as out of date.
+         * Done eagerly on registration so that posting never has to walk the parent chain.
+         */
+        protected void forceRebuild()
+        {
+            this.rebuild = true;
+            if (children != null)
+            {
+                for (ListenerListInst child : children)
+                {
+                    child.forceRebuild();
+                }
+            }
+        }
+
+        private void addChild(ListenerListInst child)
+        {
+            if (children == null)
+            {
+                children = new ArrayList<ListenerListInst>(2);
+            }
+            children.add(child);
         }
 
         /**
          * Rebuild the local Array of listeners, returns early if there is no work to do.
          */
-        private void buildCache()
+        private synchronized void buildCache()
         {
+            if (!rebuild)
+            {
+                return;
+            }
+
             if(parent != null && parent.shouldRebuild())
             {
                 parent.buildCache();
@@ -216,7 +254,7 @@ public class ListenerList
         public void register(EventPriority priority, IEventListener listener)
         {
             priorities.get(priority.ordinal()).add(listener);
-            rebuild = true;
+            forceRebuild();
         }
 
         public void unregister(IEventListener listener)
@@ -225,7 +263,7 @@ public class ListenerList
             {
                 if (list.remove(listener))
                 {
-                    rebuild = true;
+                    forceRebuild();
                 }
             }
         }
@@ -0,0 +1,18 @@
+package net.minecraftforge.fml.common.eventhandler;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an event whose listeners are pure observers: they do not depend on each other's
+ * side effects within a priority, so {@link EventBus#postParallel(Event)} may run them concurrently.
+ *
+ * Listeners of such events must be thread safe. Cancelable events and events with a result are always posted serially.
+ * Not inherited, every event class has to opt in on its own.
+ */
+@Retention(value = RUNTIME)
+@Target(value = TYPE)
+public @interface OrderIndependent{}
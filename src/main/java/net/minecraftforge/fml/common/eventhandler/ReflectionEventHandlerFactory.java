@@ -0,0 +1,46 @@
+package net.minecraftforge.fml.common.eventhandler;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import com.google.common.base.Throwables;
+
+/**
+ * Handler factory that calls subscribers through {@link Method#invoke}.
+ *
+ * Slower to post than the generated handlers but defines no classes at all,
+ * enable with -Dfml.eventHandlerFactory=reflection
+ */
+public class ReflectionEventHandlerFactory implements IEventHandlerFactory
+{
+    @Override
+    public IEventListener create(final Object target, final Method method) throws Exception
+    {
+        method.setAccessible(true);
+        SubscribeEvent info = method.getAnnotation(SubscribeEvent.class);
+        final boolean receiveCanceled = info != null && info.receiveCanceled();
+        return new IEventListener()
+        {
+            @Override
+            public void invoke(Event event)
+            {
+                if (!receiveCanceled && event.isCanceled())
+                {
+                    return;
+                }
+                try
+                {
+                    method.invoke(target, event);
+                }
+                catch (InvocationTargetException e)
+                {
+                    throw Throwables.propagate(e.getCause());
+                }
+                catch (IllegalAccessException e)
+                {
+                    throw Throwables.propagate(e);
+                }
+            }
+        };
+    }
+}
@@ -6,14 +6,18 @@ import java.util.List;
 
 import net.minecraft.launchwrapper.ITweaker;
 import net.minecraft.launchwrapper.LaunchClassLoader;
+import net.minecraftforge.fml.common.asm.transformers.TransformedClassCache;
 import net.minecraftforge.fml.relauncher.CoreModManager;
 import net.minecraftforge.fml.relauncher.FMLInjectionData;
 import net.minecraftforge.fml.relauncher.FMLRelaunchLog;
 
 public class FMLDeobfTweaker implements ITweaker {
+    private File gameDir;
+
     @Override
     public void acceptOptions(List<String> args, File gameDir, File assetsDir, String profile)
     {
+        this.gameDir = gameDir;
     }
 
     @Override
@@ -28,6 +32,8 @@ public class FMLDeobfTweaker implements ITweaker {
         }
         classLoader.registerTransformer("net.minecraftforge.fml.common.asm.transformers.ModAccessTransformer");
         classLoader.registerTransformer("net.minecraftforge.fml.common.asm.transformers.ItemStackTransformer");
+        // Every transformer is registered now, wrap them for the class cache
+        TransformedClassCache.install(classLoader, gameDir != null ? gameDir : new File("."));
         try
         {
             FMLRelaunchLog.fine("Validating minecraft");
@@ -1,8 +1,8 @@
 package net.minecraftforge.fml.common.network;
 
-import gnu.trove.map.hash.TByteObjectHashMap;
 import gnu.trove.map.hash.TObjectByteHashMap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
@@ -10,6 +10,7 @@ import io.netty.handler.codec.MessageToMessageCodec;
 import io.netty.util.AttributeKey;
 
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
 import java.util.List;
 
 import net.minecraft.network.PacketBuffer;
@@ -20,8 +21,11 @@ import org.apache.logging.log4j.Level;
 
 @Sharable
 public abstract class FMLIndexedMessageToMessageCodec<A> extends MessageToMessageCodec<FMLProxyPacket, A> {
-    private TByteObjectHashMap<Class<? extends A>> discriminators = new TByteObjectHashMap<Class<? extends A>>();
     private TObjectByteHashMap<Class<? extends A>> types = new TObjectByteHashMap<Class<? extends A>>();
+    @SuppressWarnings("unchecked")
+    private IMessageFactory<? extends A>[] factories = new IMessageFactory[256];
+    // Most messages fit, larger ones grow the pooled buffer instead of reallocating an unpooled one
+    private static final int INITIAL_ENCODE_CAPACITY = 256;
 
     /**
      * Make this accessible to subclasses
@@ -38,8 +42,22 @@ public abstract class FMLIndexedMessageToMessageCodec<A> extends MessageToMessag
 
     public FMLIndexedMessageToMessageCodec<A> addDiscriminator(int discriminator, Class<? extends A> type)
     {
-        discriminators.put((byte)discriminator, type);
+        return addReflectiveDiscriminator(discriminator, type);
+    }
+
+    private <T extends A> FMLIndexedMessageToMessageCodec<A> addReflectiveDiscriminator(int discriminator, Class<T> type)
+    {
+        return addDiscriminator(discriminator, type, new ConstructorFactory<T>(type));
+    }
+
+    /**
+     * Registers the message type with a factory used to create the instances incoming messages are decoded into,
+     * use this for message types without a no argument constructor or to reuse or pool instances.
+     */
+    public <T extends A> FMLIndexedMessageToMessageCodec<A> addDiscriminator(int discriminator, Class<T> type, IMessageFactory<? extends T> factory)
+    {
         types.put(type, (byte)discriminator);
+        factories[discriminator & 0xFF] = factory;
         return this;
     }
 
@@ -48,11 +66,25 @@ public abstract class FMLIndexedMessageToMessageCodec<A> extends MessageToMessag
     @Override
     protected final void encode(ChannelHandlerContext ctx, A msg, List<Object> out) throws Exception
     {
-        PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
-        byte discriminator = types.get(msg.getClass());
-        buffer.writeByte(discriminator);
-        encodeInto(ctx, msg, buffer);
-        FMLProxyPacket proxy = new FMLProxyPacket(buffer/*.copy()*/, ctx.channel().attr(NetworkRegistry.FML_CHANNEL).get());
+        ByteBuf scratch = PooledByteBufAllocator.DEFAULT.heapBuffer(INITIAL_ENCODE_CAPACITY);
+        PacketBuffer buffer;
+        try
+        {
+            PacketBuffer target = new PacketBuffer(scratch);
+            byte discriminator = types.get(msg.getClass());
+            target.writeByte(discriminator);
+            encodeInto(ctx, msg, target);
+            // The payload is shared by every recipient and ends up in vanilla packets which never release it,
+            // so it gets its own exactly sized array and the pooled buffer goes straight back.
+            byte[] data = new byte[scratch.readableBytes()];
+            scratch.getBytes(scratch.readerIndex(), data);
+            buffer = new PacketBuffer(Unpooled.wrappedBuffer(data));
+        }
+        finally
+        {
+            scratch.release();
+        }
+        FMLProxyPacket proxy = new FMLProxyPacket(buffer, ctx.channel().attr(NetworkRegistry.FML_CHANNEL).get());
         WeakReference<FMLProxyPacket> ref = ctx.attr(INBOUNDPACKETTRACKER).get().get();
         FMLProxyPacket old = ref == null ? null : ref.get();
         if (old != null)
@@ -74,12 +106,12 @@ public abstract class FMLIndexedMessageToMessageCodec<A> extends MessageToMessag
             FMLLog.log(Level.ERROR, "The FMLIndexedCodec has received an empty buffer on channel %s, likely a result of a LAN server issue. Pipeline parts : %s", ctx.channel().attr(NetworkRegistry.FML_CHANNEL), ctx.pipeline().toString());
         }
         byte discriminator = payload.readByte();
-        Class<? extends A> clazz = discriminators.get(discriminator);
-        if(clazz == null)
+        IMessageFactory<? extends A> factory = factories[discriminator & 0xFF];
+        if(factory == null)
         {
             throw new NullPointerException("Undefined message for discriminator " + discriminator + " in channel " + msg.channel());
         }
-        A newMsg = clazz.newInstance();
+        A newMsg = factory.create();
         ctx.attr(INBOUNDPACKETTRACKER).get().set(new WeakReference<FMLProxyPacket>(msg));
         decodeInto(ctx, payload.slice(), newMsg);
         out.add(newMsg);
@@ -100,4 +132,39 @@ public abstract class FMLIndexedMessageToMessageCodec<A> extends MessageToMessag
         FMLLog.log(Level.ERROR, cause, "FMLIndexedMessageCodec exception caught");
         super.exceptionCaught(ctx, cause);
     }
+
+    /**
+     * Creates the message instances incoming packets are decoded into.
+     */
+    public interface IMessageFactory<T>
+    {
+        T create() throws Exception;
+    }
+
+    /**
+     * The default factory, looks the constructor up once instead of going through {@link Class#newInstance()} for every packet.
+     * The lookup is deferred to the first message, types that are only ever sent don't need a no argument constructor.
+     */
+    private static class ConstructorFactory<T> implements IMessageFactory<T>
+    {
+        private final Class<? extends T> type;
+        private Constructor<? extends T> constructor;
+
+        private ConstructorFactory(Class<? extends T> type)
+        {
+            this.type = type;
+        }
+
+        @Override
+        public T create() throws Exception
+        {
+            if (constructor == null)
+            {
+                Constructor<? extends T> ctr = type.getDeclaredConstructor();
+                ctr.setAccessible(true);
+                constructor = ctr;
+            }
+            return constructor.newInstance();
+        }
+    }
 }
@@ -6,6 +6,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.AttributeKey;
 
+import java.util.Collection;
 import java.util.List;
 
 import net.minecraft.entity.player.EntityPlayerMP;
@@ -23,6 +24,10 @@ import com.google.common.collect.Sets;
 public class FMLOutboundHandler extends ChannelOutboundHandlerAdapter {
     public static final AttributeKey<OutboundTarget> FML_MESSAGETARGET = AttributeKey.valueOf("fml:outboundTarget");
     public static final AttributeKey<Object> FML_MESSAGETARGETARGS = AttributeKey.valueOf("fml:outboundTargetArgs");
+    /**
+     * If set to true, packets are queued on each target's {@link NetworkDispatcher} and sent together at the end of the server tick.
+     */
+    public static final AttributeKey<Boolean> FML_MESSAGEBATCHED = AttributeKey.valueOf("fml:outboundBatched");
     public enum OutboundTarget {
         /**
          * The packet is sent nowhere. It will be on the {@link EmbeddedChannel#outboundMessages()} Queue.
@@ -154,22 +159,12 @@ public class FMLOutboundHandler extends ChannelOutboundHandlerAdapter {
             @Override
             public List<NetworkDispatcher> selectNetworks(Object args, ChannelHandlerContext context, FMLProxyPacket packet)
             {
-                int dimension = (Integer)args;
-                ImmutableList.Builder<NetworkDispatcher> builder = ImmutableList.builder();
-                for (EntityPlayerMP player : FMLCommonHandler.instance().getMinecraftServerInstance().getPlayerList().getPlayerList())
-                {
-                    if (dimension == player.dimension)
-                    {
-                        NetworkDispatcher dispatcher = player.playerNetServerHandler.netManager.channel().attr(NetworkDispatcher.FML_DISPATCHER).get();
-                        // Null dispatchers may exist for fake players - skip them
-                        if (dispatcher != null) builder.add(dispatcher);
-                    }
-                }
-                return builder.build();
+                return PlayerSpatialIndex.instance().selectDimension((Integer)args);
             }
         },
         /**
          * The packet is sent to all players within range of the {@link TargetPoint} argument supplied.
+         * The argument may also be a collection of TargetPoints, each player within range of any of them gets the packet once.
          *
          * @author cpw
          *
@@ -179,7 +174,17 @@ public class FMLOutboundHandler extends ChannelOutboundHandlerAdapter {
             @Override
             public void validateArgs(Object args)
             {
-                if (!(args instanceof TargetPoint))
+                if (args instanceof Collection)
+                {
+                    for (Object point : (Collection<?>)args)
+                    {
+                        if (!(point instanceof TargetPoint))
+                        {
+                            throw new RuntimeException("ALLAROUNDPOINT expects a collection of TargetPoint arguments");
+                        }
+                    }
+                }
+                else if (!(args instanceof TargetPoint))
                 {
                     throw new RuntimeException("ALLAROUNDPOINT expects a TargetPoint argument");
                 }
@@ -188,24 +193,13 @@ public class FMLOutboundHandler extends ChannelOutboundHandlerAdapter {
             @Override
             public List<NetworkDispatcher> selectNetworks(Object args, ChannelHandlerContext context, FMLProxyPacket packet)
             {
-                TargetPoint tp = (TargetPoint)args;
-                ImmutableList.Builder<NetworkDispatcher> builder = ImmutableList.builder();
-                for (EntityPlayerMP player : FMLCommonHandler.instance().getMinecraftServerInstance().getPlayerList().getPlayerList())
+                if (args instanceof TargetPoint)
                 {
-                    if (player.dimension == tp.dimension)
-                    {
-                        double d4 = tp.x - player.posX;
-                        double d5 = tp.y - player.posY;
-                        double d6 = tp.z - player.posZ;
-
-                        if (d4 * d4 + d5 * d5 + d6 * d6 < tp.range * tp.range)
-                        {
-                            NetworkDispatcher dispatcher = player.playerNetServerHandler.netManager.channel().attr(NetworkDispatcher.FML_DISPATCHER).get();
-                            if (dispatcher != null) builder.add(dispatcher);
-                        }
-                    }
+                    return PlayerSpatialIndex.instance().selectAround((TargetPoint)args);
                 }
-                return builder.build();
+                @SuppressWarnings("unchecked")
+                Collection<TargetPoint> points = (Collection<TargetPoint>)args;
+                return PlayerSpatialIndex.instance().selectAround(points);
             }
         },
         /**
@@ -278,9 +272,17 @@ public class FMLOutboundHandler extends ChannelOutboundHandlerAdapter {
             ctx.write(msg, promise);
             return;
         }
+        boolean batched = Boolean.TRUE.equals(ctx.channel().attr(FML_MESSAGEBATCHED).get());
         for (NetworkDispatcher targetDispatcher : dispatchers)
         {
-            targetDispatcher.sendProxy((FMLProxyPacket) msg);
+            if (batched)
+            {
+                targetDispatcher.queueProxy((FMLProxyPacket) msg);
+            }
+            else
+            {
+                targetDispatcher.sendProxy((FMLProxyPacket) msg);
+            }
         }
     }
 
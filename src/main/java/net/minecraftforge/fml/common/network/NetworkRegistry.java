@@ -35,6 +35,7 @@ import net.minecraftforge.fml.common.ModContainer;
 import net.minecraftforge.fml.common.discovery.ASMDataTable;
 import net.minecraftforge.fml.common.network.FMLOutboundHandler.OutboundTarget;
 import net.minecraftforge.fml.common.network.handshake.NetworkDispatcher;
+import net.minecraftforge.fml.common.network.internal.FMLCompressedPayload;
 import net.minecraftforge.fml.common.network.internal.FMLProxyPacket;
 import net.minecraftforge.fml.common.network.internal.NetworkModHolder;
 import net.minecraftforge.fml.common.network.simpleimpl.SimpleNetworkWrapper;
@@ -277,6 +278,21 @@ public enum NetworkRegistry
         return channels.get(source).containsKey(channelName);
     }
 
+    /**
+     * Compress the server to client payloads of a channel. Call this on both sides, with the same dictionary.
+     * Clients without support for compression get the payloads as they are.
+     *
+     * @param channelName The name
+     * @param threshold Payloads smaller than this many bytes are not deflated
+     * @param dictionary Preset deflate dictionary holding byte sequences common to the channel's payloads, or null
+     * @param delta Encode each payload against the previous one on the channel sent to the same player,
+     *              for channels that resend mostly unchanged state
+     */
+    public void setCompression(String channelName, int threshold, byte[] dictionary, boolean delta)
+    {
+        FMLCompressedPayload.register(channelName, threshold, dictionary, delta);
+    }
+
     /**
      * INTERNAL method for registering a mod as a network capable thing
      * @param fmlModContainer The fml mod container
@@ -0,0 +1,362 @@
+package net.minecraftforge.fml.common.network;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.network.INetHandler;
+import net.minecraft.network.NetHandlerPlayServer;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.network.Packet;
+import net.minecraft.network.play.server.SPacketPlayerPosLook;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.minecraftforge.fml.common.network.NetworkRegistry.TargetPoint;
+import net.minecraftforge.fml.common.network.handshake.NetworkDispatcher;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Indexes the players on the server by dimension and chunk column, so {@link FMLOutboundHandler.OutboundTarget#ALLAROUNDPOINT}
+ * and {@link FMLOutboundHandler.OutboundTarget#DIMENSION} only look at the players that can possibly be in range.
+ *
+ * Players are moved between columns before each world tick, once the movement packets of the tick have been applied,
+ * at the end of their own tick, and as soon as the server teleports them. Players riding something move with it during
+ * the world tick, so they are always checked by distance. Logins, logouts, respawns and dimension changes rebuild the index
+ * from the player list the next time it is queried. Candidates are still checked against their current position, so the
+ * grid only decides which players are looked at.
+ */
+public class PlayerSpatialIndex
+{
+    private static final PlayerSpatialIndex INSTANCE = new PlayerSpatialIndex();
+
+    private final TIntObjectHashMap<Dimension> dimensions = new TIntObjectHashMap<Dimension>();
+    private final Map<EntityPlayerMP, Entry> entries = new IdentityHashMap<EntityPlayerMP, Entry>();
+    private boolean dirty = true;
+    private boolean departed;
+    private int query;
+
+    public static PlayerSpatialIndex instance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Rebuild the index before the next query, called whenever players join, leave or switch dimension.
+     */
+    public synchronized void invalidate()
+    {
+        dirty = true;
+    }
+
+    /**
+     * A leaving player is dropped right away, and the index is rebuilt once the player list no longer contains it.
+     */
+    public synchronized void playerLeft(EntityPlayerMP player)
+    {
+        Entry entry = entries.remove(player);
+        if (entry != null)
+        {
+            dimensions.get(entry.dimension).remove(entry);
+        }
+        departed = true;
+    }
+
+    public synchronized void onServerTick()
+    {
+        if (departed)
+        {
+            departed = false;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Moves the player to its current chunk column, called at the end of each player tick.
+     */
+    public synchronized void update(EntityPlayerMP player)
+    {
+        if (dirty)
+        {
+            return;
+        }
+        Entry entry = entries.get(player);
+        // Fake players and players that are not in the list yet
+        if (entry == null)
+        {
+            return;
+        }
+        move(entry);
+    }
+
+    /**
+     * Moves every player of the dimension to its current chunk column, called before the world ticks.
+     */
+    public synchronized void updateDimension(int dimension)
+    {
+        if (dirty)
+        {
+            return;
+        }
+        Dimension dim = dimensions.get(dimension);
+        if (dim == null)
+        {
+            return;
+        }
+        for (Entry entry : dim.players.toArray(new Entry[dim.players.size()]))
+        {
+            move(entry);
+        }
+    }
+
+    /**
+     * Called for every packet a connection dispatches. The server tells the client about every teleport, so the
+     * player is moved right away instead of at the end of its next tick.
+     */
+    public void onPacketSent(NetworkManager manager, Packet<?> packet)
+    {
+        if (packet instanceof SPacketPlayerPosLook)
+        {
+            INetHandler handler = manager.getNetHandler();
+            if (handler instanceof NetHandlerPlayServer)
+            {
+                update(((NetHandlerPlayServer)handler).playerEntity);
+            }
+        }
+    }
+
+    private void move(Entry entry)
+    {
+        EntityPlayerMP player = entry.player;
+        long key = columnKey(player.posX, player.posZ);
+        boolean riding = player.isRiding();
+        if (entry.dimension == player.dimension && entry.key == key && entry.riding == riding)
+        {
+            return;
+        }
+        dimensions.get(entry.dimension).remove(entry);
+        entry.dimension = player.dimension;
+        entry.key = key;
+        entry.riding = riding;
+        getDimension(entry.dimension).add(entry);
+    }
+
+    /**
+     * @return The dispatchers of all players in the dimension
+     */
+    public synchronized List<NetworkDispatcher> selectDimension(int dimension)
+    {
+        begin();
+        ImmutableList.Builder<NetworkDispatcher> ret = ImmutableList.builder();
+        Dimension dim = dimensions.get(dimension);
+        if (dim != null)
+        {
+            for (Entry entry : dim.players)
+            {
+                addDispatcher(ret, entry);
+            }
+        }
+        return ret.build();
+    }
+
+    /**
+     * @return The dispatchers of all players within range of the point
+     */
+    public synchronized List<NetworkDispatcher> selectAround(TargetPoint point)
+    {
+        begin();
+        ImmutableList.Builder<NetworkDispatcher> ret = ImmutableList.builder();
+        selectAround(ret, point);
+        return ret.build();
+    }
+
+    /**
+     * @return The dispatchers of all players within range of any of the points, each player is included once
+     */
+    public synchronized List<NetworkDispatcher> selectAround(Collection<TargetPoint> points)
+    {
+        begin();
+        ImmutableList.Builder<NetworkDispatcher> ret = ImmutableList.builder();
+        for (TargetPoint point : points)
+        {
+            selectAround(ret, point);
+        }
+        return ret.build();
+    }
+
+    private void selectAround(ImmutableList.Builder<NetworkDispatcher> ret, TargetPoint tp)
+    {
+        Dimension dim = dimensions.get(tp.dimension);
+        if (dim == null)
+        {
+            return;
+        }
+        int minX = MathHelper.floor_double(tp.x - tp.range) >> 4;
+        int maxX = MathHelper.floor_double(tp.x + tp.range) >> 4;
+        int minZ = MathHelper.floor_double(tp.z - tp.range) >> 4;
+        int maxZ = MathHelper.floor_double(tp.z + tp.range) >> 4;
+        long columns = (long)(maxX - minX + 1) * (maxZ - minZ + 1);
+        if (columns >= dim.players.size())
+        {
+            // Huge ranges cover more columns than there are players, looking at every player is cheaper
+            for (Entry entry : dim.players)
+            {
+                addInRange(ret, entry, tp);
+            }
+            return;
+        }
+        for (int x = minX; x <= maxX; x++)
+        {
+            for (int z = minZ; z <= maxZ; z++)
+            {
+                List<Entry> column = dim.columns.get(ChunkCoordIntPair.chunkXZ2Int(x, z));
+                if (column == null)
+                {
+                    continue;
+                }
+                for (int i = 0; i < column.size(); i++)
+                {
+                    addInRange(ret, column.get(i), tp);
+                }
+            }
+        }
+        for (int i = 0; i < dim.riding.size(); i++)
+        {
+            addInRange(ret, dim.riding.get(i), tp);
+        }
+    }
+
+    private void addInRange(ImmutableList.Builder<NetworkDispatcher> ret, Entry entry, TargetPoint tp)
+    {
+        if (entry.query == query)
+        {
+            return;
+        }
+        EntityPlayerMP player = entry.player;
+        double d4 = tp.x - player.posX;
+        double d5 = tp.y - player.posY;
+        double d6 = tp.z - player.posZ;
+
+        if (d4 * d4 + d5 * d5 + d6 * d6 < tp.range * tp.range)
+        {
+            addDispatcher(ret, entry);
+        }
+    }
+
+    private void addDispatcher(ImmutableList.Builder<NetworkDispatcher> ret, Entry entry)
+    {
+        entry.query = query;
+        NetworkDispatcher dispatcher = entry.player.playerNetServerHandler.netManager.channel().attr(NetworkDispatcher.FML_DISPATCHER).get();
+        // Null dispatchers may exist for fake players - skip them
+        if (dispatcher != null) ret.add(dispatcher);
+    }
+
+    private void begin()
+    {
+        if (dirty)
+        {
+            rebuild();
+        }
+        query++;
+    }
+
+    private void rebuild()
+    {
+        dirty = false;
+        dimensions.clear();
+        entries.clear();
+        MinecraftServer server = FMLCommonHandler.instance().getMinecraftServerInstance();
+        if (server == null || server.getPlayerList() == null)
+        {
+            return;
+        }
+        for (EntityPlayerMP player : server.getPlayerList().getPlayerList())
+        {
+            Entry entry = new Entry(player, player.dimension, columnKey(player.posX, player.posZ), player.isRiding());
+            entries.put(player, entry);
+            getDimension(entry.dimension).add(entry);
+        }
+    }
+
+    private Dimension getDimension(int dimension)
+    {
+        Dimension dim = dimensions.get(dimension);
+        if (dim == null)
+        {
+            dim = new Dimension();
+            dimensions.put(dimension, dim);
+        }
+        return dim;
+    }
+
+    private static long columnKey(double x, double z)
+    {
+        return ChunkCoordIntPair.chunkXZ2Int(MathHelper.floor_double(x) >> 4, MathHelper.floor_double(z) >> 4);
+    }
+
+    private static class Dimension
+    {
+        final List<Entry> players = Lists.newArrayList();
+        final TLongObjectHashMap<List<Entry>> columns = new TLongObjectHashMap<List<Entry>>();
+        final List<Entry> riding = Lists.newArrayList();
+
+        void add(Entry entry)
+        {
+            players.add(entry);
+            if (entry.riding)
+            {
+                riding.add(entry);
+            }
+            List<Entry> column = columns.get(entry.key);
+            if (column == null)
+            {
+                column = Lists.newArrayListWithCapacity(2);
+                columns.put(entry.key, column);
+            }
+            column.add(entry);
+        }
+
+        void remove(Entry entry)
+        {
+            players.remove(entry);
+            if (entry.riding)
+            {
+                riding.remove(entry);
+            }
+            List<Entry> column = columns.get(entry.key);
+            if (column != null)
+            {
+                column.remove(entry);
+                if (column.isEmpty())
+                {
+                    columns.remove(entry.key);
+                }
+            }
+        }
+    }
+
+    private static class Entry
+    {
+        final EntityPlayerMP player;
+        int dimension;
+        long key;
+        boolean riding;
+        int query;
+
+        Entry(EntityPlayerMP player, int dimension, long key, boolean riding)
+        {
+            this.player = player;
+            this.dimension = dimension;
+            this.key = key;
+            this.riding = riding;
+        }
+    }
+}
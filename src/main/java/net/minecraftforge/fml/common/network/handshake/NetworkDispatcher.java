@@ -1,5 +1,6 @@
 package net.minecraftforge.fml.common.network.handshake;
 
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandler;
@@ -14,9 +15,11 @@ import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.nbt.NBTTagCompound;
@@ -42,6 +45,8 @@ import net.minecraftforge.fml.common.network.FMLNetworkException;
 import net.minecraftforge.fml.common.network.FMLOutboundHandler;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.fml.common.network.PacketLoggingHandler;
+import net.minecraftforge.fml.common.network.internal.FMLBatchedPayload;
+import net.minecraftforge.fml.common.network.internal.FMLCompressedPayload;
 import net.minecraftforge.fml.common.network.internal.FMLMessage;
 import net.minecraftforge.fml.common.network.internal.FMLNetworkHandler;
 import net.minecraftforge.fml.common.network.internal.FMLProxyPacket;
@@ -50,6 +55,12 @@ import net.minecraftforge.fml.relauncher.Side;
 
 import org.apache.logging.log4j.Level;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
 public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> implements ChannelOutboundHandler {
     private static boolean DEBUG_HANDSHAKE = Boolean.parseBoolean(System.getProperty("fml.debugNetworkHandshake", "false"));
     private static enum ConnectionState {
@@ -93,6 +104,13 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
     private INetHandler netHandler;
     private Map<String,String> modList;
     private int overrideLoginDim;
+    private final List<FMLProxyPacket> batch = Lists.newArrayList();
+    // Set once the client registers the compressed payload channel
+    private volatile FMLCompressedPayload.Encoder compression;
+    // Set once the client registers the batched payload channel
+    private volatile boolean batching;
+    private final FMLCompressedPayload.Decoder decompression = new FMLCompressedPayload.Decoder();
+    private static final Set<NetworkDispatcher> pendingBatches = Sets.newSetFromMap(Maps.<NetworkDispatcher, Boolean>newConcurrentMap());
 
     public NetworkDispatcher(NetworkManager manager)
     {
@@ -330,9 +348,9 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
     private boolean handleClientSideCustomPacket(SPacketCustomPayload msg, ChannelHandlerContext context)
     {
         String channelName = msg.getChannelName();
-        if ("FML|MP".equals(channelName))
+        try
         {
-            try
+            if ("FML|MP".equals(channelName))
             {
                 if (multipart == null)
                 {
@@ -342,24 +360,43 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
                 {
                     multipart.processPart(msg.getBufferData());
                 }
-            }
-            catch (IOException e)
-            {
-                this.kickWithMessage(e.getMessage());
-                multipart = null;
-                return true;
-            }
 
-            if (multipart.isComplete())
+                if (multipart.isComplete())
+                {
+                    msg = multipart.complete();
+                    channelName = msg.getChannelName();
+                    multipart = null;
+                }
+                else
+                {
+                    return true; // Haven't received all so return till we have.
+                }
+            }
+            else if (FMLCompressedPayload.CHANNEL.equals(channelName))
             {
-                msg = multipart;
+                FMLProxyPacket decoded = decompression.decode(msg.getBufferData());
+                msg = new ReassembledPayload(decoded.channel(), (PacketBuffer)decoded.payload());
                 channelName = msg.getChannelName();
-                multipart = null;
             }
-            else
+        }
+        catch (IOException e)
+        {
+            this.kickWithMessage(e.getMessage());
+            multipart = null;
+            return true;
+        }
+        if (FMLBatchedPayload.CHANNEL.equals(channelName))
+        {
+            for (FMLProxyPacket proxy : FMLBatchedPayload.unpack(msg.getBufferData()))
             {
-                return true; // Haven't received all so return till we have.
+                if (NetworkRegistry.INSTANCE.hasChannel(proxy.channel(), Side.CLIENT))
+                {
+                    proxy.setTarget(Side.CLIENT);
+                    proxy.setDispatcher(this);
+                    context.fireChannelRead(proxy);
+                }
             }
+            return true;
         }
         if ("FML|HS".equals(channelName) || "REGISTER".equals(channelName) || "UNREGISTER".equals(channelName))
         {
@@ -401,6 +438,20 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
             }
         }
         String channelName = msg.getChannelName();
+        if ("REGISTER".equals(channelName))
+        {
+            for (String channel : msg.getBufferData().toString(Charsets.UTF_8).split("\0"))
+            {
+                if (FMLCompressedPayload.CHANNEL.equals(channel) && compression == null && !manager.isLocalChannel())
+                {
+                    compression = new FMLCompressedPayload.Encoder();
+                }
+                else if (FMLBatchedPayload.CHANNEL.equals(channel))
+                {
+                    batching = true;
+                }
+            }
+        }
         if ("FML|HS".equals(channelName) || "REGISTER".equals(channelName) || "UNREGISTER".equals(channelName))
         {
             FMLProxyPacket proxy = new FMLProxyPacket(msg);
@@ -436,6 +487,55 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
         manager.sendPacket(msg);
     }
 
+    /**
+     * Holds the packet back until the end of the server tick, when everything queued for this connection
+     * is sent as one custom payload. Packets sent directly in the meantime will arrive first.
+     * Sent right away if the client did not register the batched payload channel.
+     */
+    public void queueProxy(FMLProxyPacket msg)
+    {
+        if (side == Side.CLIENT || !batching)
+        {
+            // Batches are only understood by clients that registered for them
+            sendProxy(msg);
+            return;
+        }
+        synchronized (batch)
+        {
+            batch.add(msg);
+        }
+        pendingBatches.add(this);
+    }
+
+    private void flushBatch()
+    {
+        List<FMLProxyPacket> packets;
+        synchronized (batch)
+        {
+            if (batch.isEmpty())
+            {
+                return;
+            }
+            packets = ImmutableList.copyOf(batch);
+            batch.clear();
+        }
+        sendProxy(packets.size() == 1 ? packets.get(0) : FMLBatchedPayload.pack(packets));
+    }
+
+    /**
+     * Sends the packets queued by {@link #queueProxy(FMLProxyPacket)}, called at the end of every server tick.
+     */
+    public static void flushBatches()
+    {
+        Iterator<NetworkDispatcher> itr = pendingBatches.iterator();
+        while (itr.hasNext())
+        {
+            NetworkDispatcher dispatcher = itr.next();
+            itr.remove();
+            dispatcher.flushBatch();
+        }
+    }
+
     public void rejectHandshake(String result)
     {
         kickWithMessage(result);
@@ -508,7 +608,12 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
             }
             else
             {
-                List<Packet<INetHandlerPlayClient>> parts = ((FMLProxyPacket)msg).toS3FPackets();
+                FMLProxyPacket pkt = (FMLProxyPacket)msg;
+                if (compression != null)
+                {
+                    pkt = compression.encode(pkt);
+                }
+                List<Packet<INetHandlerPlayClient>> parts = pkt.toS3FPackets();
                 for (Packet<INetHandlerPlayClient> pkt : parts)
                 {
                     ctx.write(pkt, promise);
@@ -588,26 +693,33 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
         return this.overrideLoginDim != 0 ? this.overrideLoginDim : packetIn.getDimension();
     }
 
-    private class MultiPartCustomPayload extends SPacketCustomPayload
+    /**
+     * Reassembles a payload split by {@link FMLProxyPacket#toS3FPackets()}. The parts are kept as they arrived instead of being
+     * copied into one array, and compressed payloads are inflated part by part.
+     */
+    private class MultiPartCustomPayload
     {
         private String channel;
-        private byte[] data;
-        private PacketBuffer data_buf = null;
+        private CompositeByteBuf parts;
+        private FMLCompressedPayload.Stream stream;
+        private int length;
+        private int received = 0;
         private int part_count = 0;
         private int part_expected = 0;
-        private int offset = 0;
 
         private MultiPartCustomPayload(PacketBuffer preamble) throws IOException
         {
             channel = preamble.readStringFromBuffer(20);
             part_count = preamble.readUnsignedByte();
-            int length = preamble.readInt();
+            length = preamble.readInt();
             if (length <= 0 || length >= FMLProxyPacket.MAX_LENGTH)
             {
                 throw new IOException("The received FML MultiPart packet outside of valid length bounds, Max: " + FMLProxyPacket.MAX_LENGTH + ", Received: " + length);
             }
-            data = new byte[length];
-            data_buf = new PacketBuffer(Unpooled.wrappedBuffer(data));
+            if (!FMLCompressedPayload.CHANNEL.equals(channel))
+            {
+                parts = Unpooled.compositeBuffer(part_count);
+            }
         }
 
         public void processPart(PacketBuffer input) throws IOException
@@ -617,10 +729,26 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
             {
                 throw new IOException("Received FML MultiPart packet out of order, Expected " + part_expected + " Got " + part);
             }
-            int len = input.readableBytes() - 1;
-            input.readBytes(data, offset, len);
+            int len = input.readableBytes();
+            if (len > length - received)
+            {
+                throw new IOException("Received more FML MultiPart data than announced, Max: " + length + ", Received: " + (received + len));
+            }
+            if (parts != null)
+            {
+                parts.addComponent(input.readSlice(len));
+                parts.writerIndex(parts.writerIndex() + len);
+            }
+            else if (stream == null)
+            {
+                stream = decompression.begin(input);
+            }
+            else
+            {
+                stream.feed(input);
+            }
             part_expected++;
-            offset += len;
+            received += len;
         }
 
         public boolean isComplete()
@@ -628,6 +756,35 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
             return part_expected == part_count;
         }
 
+        public SPacketCustomPayload complete() throws IOException
+        {
+            if (received != length)
+            {
+                throw new IOException("Incomplete FML MultiPart packet, Expected " + length + " Got " + received);
+            }
+            if (stream != null)
+            {
+                FMLProxyPacket decoded = stream.finish();
+                return new ReassembledPayload(decoded.channel(), (PacketBuffer)decoded.payload());
+            }
+            return new ReassembledPayload(channel, new PacketBuffer(parts));
+        }
+    }
+
+    /**
+     * Carries a reassembled or decompressed payload, which may be larger than vanilla allows a custom payload to be.
+     */
+    private static class ReassembledPayload extends SPacketCustomPayload
+    {
+        private final String channel;
+        private final PacketBuffer data;
+
+        private ReassembledPayload(String channel, PacketBuffer data)
+        {
+            this.channel = channel;
+            this.data = data;
+        }
+
         @Override
         public String getChannelName() // getChannel
         {
@@ -637,7 +794,7 @@ public class NetworkDispatcher extends SimpleChannelInboundHandler<Packet<?>> im
         @Override
         public PacketBuffer getBufferData() // getData
         {
-            return this.data_buf;
+            return this.data;
         }
     }
 }
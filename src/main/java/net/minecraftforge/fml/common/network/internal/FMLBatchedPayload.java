@@ -0,0 +1,56 @@
+package net.minecraftforge.fml.common.network.internal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.List;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Packs the proxy packets queued for one connection during a tick into a single custom payload, and unpacks them again.
+ * Each entry is the channel name followed by the length of the payload and the payload itself.
+ * Large batches are split like any other payload, see {@link FMLProxyPacket#toS3FPackets()}.
+ */
+public class FMLBatchedPayload
+{
+    public static final String CHANNEL = "FML|MB";
+
+    public static FMLProxyPacket pack(List<FMLProxyPacket> packets)
+    {
+        int size = 0;
+        for (FMLProxyPacket packet : packets)
+        {
+            // Channel names are at most 20 characters, so a generous upper bound for the two headers
+            size += 64 + packet.payload().readableBytes();
+        }
+        PacketBuffer buffer = new PacketBuffer(Unpooled.buffer(size));
+        for (FMLProxyPacket packet : packets)
+        {
+            ByteBuf payload = packet.payload();
+            ByteBufUtils.writeUTF8String(buffer, packet.channel());
+            ByteBufUtils.writeVarInt(buffer, payload.readableBytes(), 5);
+            buffer.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+        }
+        return new FMLProxyPacket(buffer, CHANNEL);
+    }
+
+    /**
+     * @return The packed packets, their payloads are slices of the supplied buffer
+     */
+    public static List<FMLProxyPacket> unpack(ByteBuf batch)
+    {
+        List<FMLProxyPacket> ret = Lists.newArrayList();
+        ByteBuf buffer = batch.duplicate();
+        while (buffer.isReadable())
+        {
+            String channel = ByteBufUtils.readUTF8String(buffer);
+            int length = ByteBufUtils.readVarInt(buffer, 5);
+            ret.add(new FMLProxyPacket(new PacketBuffer(buffer.readSlice(length)), channel));
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,309 @@
+package net.minecraftforge.fml.common.network.internal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Compresses the payloads of channels that opted in through {@link #register(String, int, byte[], boolean)}.
+ * A compressed payload travels on its own channel as the original channel name, a flag byte, the length of the
+ * original payload and the possibly deflated data. Large ones are split like any other payload, see {@link FMLProxyPacket#toS3FPackets()}.
+ *
+ * Channels with delta encoding send every payload in this form, XORed against the last payload of the same channel
+ * for the same connection, so unchanged bytes turn into runs of zeros that deflate to almost nothing.
+ *
+ * Only server to client payloads are compressed, and only for clients that listed {@link #CHANNEL} when registering their channels.
+ */
+public class FMLCompressedPayload
+{
+    public static final String CHANNEL = "FML|CP";
+    /**
+     * Threshold used for FML's own channels.
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private static final int DEFLATED = 1;
+    private static final int DELTA = 2;
+
+    private static final Map<String, Settings> settings = Maps.newConcurrentMap();
+    private static final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>()
+    {
+        @Override
+        protected Deflater initialValue()
+        {
+            return new Deflater();
+        }
+    };
+
+    static
+    {
+        register("FML|HS", DEFAULT_THRESHOLD, null, false);
+        register(FMLBatchedPayload.CHANNEL, DEFAULT_THRESHOLD, null, false);
+    }
+
+    /**
+     * Opt a channel in to compression. Both sides have to register the channel with the same dictionary.
+     *
+     * @param channel The channel name
+     * @param threshold Payloads smaller than this are sent as they are, unless delta encoding is on
+     * @param dictionary Preset deflate dictionary, typically the byte sequences common to the channel's payloads, or null
+     * @param delta Encode each payload against the previous one sent to the same player
+     */
+    public static void register(String channel, int threshold, byte[] dictionary, boolean delta)
+    {
+        settings.put(channel, new Settings(threshold, dictionary == null ? null : dictionary.clone(), delta));
+    }
+
+    public static boolean isRegistered(String channel)
+    {
+        return settings.containsKey(channel);
+    }
+
+    private static class Settings
+    {
+        final int threshold;
+        final byte[] dictionary;
+        final boolean delta;
+
+        Settings(int threshold, byte[] dictionary, boolean delta)
+        {
+            this.threshold = threshold;
+            this.dictionary = dictionary;
+            this.delta = delta;
+        }
+    }
+
+    /**
+     * Sending side state of one connection. Only used from the connection's event loop.
+     */
+    public static class Encoder
+    {
+        private final Map<String, byte[]> lastSent = Maps.newHashMap();
+
+        /**
+         * @return The compressed packet, or the packet itself if its channel is not compressed or the payload is too small
+         */
+        public FMLProxyPacket encode(FMLProxyPacket packet)
+        {
+            Settings channel = settings.get(packet.channel());
+            ByteBuf payload = packet.payload();
+            int length = payload.readableBytes();
+            if (channel == null || (!channel.delta && length < channel.threshold))
+            {
+                return packet;
+            }
+            byte[] raw = new byte[length];
+            payload.getBytes(payload.readerIndex(), raw);
+            byte[] input = raw;
+            int flags = 0;
+            if (channel.delta)
+            {
+                byte[] previous = lastSent.put(packet.channel(), raw);
+                if (previous != null)
+                {
+                    input = xor(raw.clone(), previous);
+                    flags |= DELTA;
+                }
+            }
+            byte[] data = input;
+            int dataLength = input.length;
+            if (length >= channel.threshold)
+            {
+                Deflater deflater = deflaters.get();
+                deflater.reset();
+                if (channel.dictionary != null)
+                {
+                    deflater.setDictionary(channel.dictionary);
+                }
+                deflater.setInput(input);
+                deflater.finish();
+                // Only worth it if it actually shrinks, otherwise the data is stored
+                byte[] out = new byte[length];
+                int written = 0;
+                while (!deflater.finished() && written < out.length)
+                {
+                    written += deflater.deflate(out, written, out.length - written);
+                }
+                if (deflater.finished() && written < length)
+                {
+                    data = out;
+                    dataLength = written;
+                    flags |= DEFLATED;
+                }
+            }
+            PacketBuffer buffer = new PacketBuffer(Unpooled.buffer(dataLength + 32));
+            ByteBufUtils.writeUTF8String(buffer, packet.channel());
+            buffer.writeByte(flags);
+            ByteBufUtils.writeVarInt(buffer, length, 5);
+            buffer.writeBytes(data, 0, dataLength);
+            return new FMLProxyPacket(buffer, CHANNEL);
+        }
+    }
+
+    /**
+     * Receiving side state of one connection. Only used from the connection's event loop.
+     */
+    public static class Decoder
+    {
+        private final Map<String, byte[]> lastReceived = Maps.newHashMap();
+        private final Inflater inflater = new Inflater();
+
+        public FMLProxyPacket decode(ByteBuf data) throws IOException
+        {
+            Stream stream = begin(data);
+            return stream.finish();
+        }
+
+        /**
+         * Starts decoding a payload that arrives in parts, the header has to be in the first part.
+         * Each part is inflated as it arrives, so the compressed payload is never held as a whole.
+         * Only one stream of a decoder can be in progress at a time.
+         */
+        public Stream begin(ByteBuf first) throws IOException
+        {
+            String channel = ByteBufUtils.readUTF8String(first);
+            int flags = first.readUnsignedByte();
+            int length = ByteBufUtils.readVarInt(first, 5);
+            if (length < 0 || length >= FMLProxyPacket.MAX_LENGTH)
+            {
+                throw new IOException("The received FML compressed packet outside of valid length bounds, Max: " + FMLProxyPacket.MAX_LENGTH + ", Received: " + length);
+            }
+            Settings channelSettings = settings.get(channel);
+            if (channelSettings == null)
+            {
+                throw new IOException("Received FML compressed packet for channel " + channel + ", which is not registered for compression");
+            }
+            Stream stream = new Stream(this, channel, channelSettings, flags, length);
+            stream.feed(first);
+            return stream;
+        }
+    }
+
+    public static class Stream
+    {
+        private final Decoder decoder;
+        private final String channel;
+        private final Settings settings;
+        private final int flags;
+        private final byte[] out;
+        private final Inflater inflater;
+        private int written;
+
+        private Stream(Decoder decoder, String channel, Settings settings, int flags, int length)
+        {
+            this.decoder = decoder;
+            this.channel = channel;
+            this.settings = settings;
+            this.flags = flags;
+            this.out = new byte[length];
+            if ((flags & DEFLATED) != 0)
+            {
+                this.inflater = decoder.inflater;
+                this.inflater.reset();
+            }
+            else
+            {
+                this.inflater = null;
+            }
+        }
+
+        public void feed(ByteBuf data) throws IOException
+        {
+            int length = data.readableBytes();
+            if (inflater == null)
+            {
+                if (length > out.length - written)
+                {
+                    throw new IOException("Received more data than announced for FML compressed packet on channel " + channel);
+                }
+                data.readBytes(out, written, length);
+                written += length;
+                return;
+            }
+            byte[] input;
+            int offset;
+            if (data.hasArray())
+            {
+                input = data.array();
+                offset = data.arrayOffset() + data.readerIndex();
+            }
+            else
+            {
+                input = new byte[length];
+                data.getBytes(data.readerIndex(), input);
+                offset = 0;
+            }
+            data.skipBytes(length);
+            inflater.setInput(input, offset, length);
+            try
+            {
+                while (!inflater.finished())
+                {
+                    int count = inflater.inflate(out, written, out.length - written);
+                    written += count;
+                    if (count == 0)
+                    {
+                        if (inflater.needsDictionary())
+                        {
+                            if (settings.dictionary == null)
+                            {
+                                throw new IOException("FML compressed packet on channel " + channel + " needs a dictionary, but none is registered");
+                            }
+                            inflater.setDictionary(settings.dictionary);
+                        }
+                        else if (inflater.needsInput() || written == out.length)
+                        {
+                            break;
+                        }
+                    }
+                }
+            }
+            catch (DataFormatException e)
+            {
+                throw new IOException("Invalid FML compressed packet on channel " + channel, e);
+            }
+        }
+
+        public FMLProxyPacket finish() throws IOException
+        {
+            if (written != out.length || (inflater != null && !inflater.finished()))
+            {
+                throw new IOException("Incomplete FML compressed packet on channel " + channel + ", Expected " + out.length + " Got " + written);
+            }
+            if ((flags & DELTA) != 0)
+            {
+                byte[] previous = decoder.lastReceived.get(channel);
+                if (previous == null)
+                {
+                    throw new IOException("Received FML delta packet on channel " + channel + " without a previous packet");
+                }
+                xor(out, previous);
+            }
+            if (settings.delta)
+            {
+                decoder.lastReceived.put(channel, out);
+            }
+            return new FMLProxyPacket(new PacketBuffer(Unpooled.wrappedBuffer(out)), channel);
+        }
+    }
+
+    private static byte[] xor(byte[] data, byte[] previous)
+    {
+        int length = Math.min(data.length, previous.length);
+        for (int x = 0; x < length; x++)
+        {
+            data[x] ^= previous[x];
+        }
+        return data;
+    }
+}
@@ -130,14 +130,16 @@ public class FMLProxyPacket implements Packet<INetHandler> {
     public List<Packet<INetHandlerPlayClient>> toS3FPackets() throws IOException
     {
         List<Packet<INetHandlerPlayClient>> ret = Lists.newArrayList();
-        byte[] data = payload.array();
 
-        if (data.length < PART_SIZE)
+        if (payload.readableBytes() < PART_SIZE)
         {
             ret.add(new SPacketCustomPayload(channel, new PacketBuffer(payload.duplicate())));
         }
         else
         {
+            // Only the written bytes, the backing array of a growable buffer is usually larger
+            byte[] data = new byte[payload.readableBytes()];
+            payload.getBytes(payload.readerIndex(), data);
             int parts = (int)Math.ceil(data.length / (double)(PART_SIZE - 1)); //We add a byte header so -1
             if (parts > 255)
             {
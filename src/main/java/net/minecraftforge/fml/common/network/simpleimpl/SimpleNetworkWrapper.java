@@ -3,6 +3,7 @@ package net.minecraftforge.fml.common.network.simpleimpl;
 import io.netty.channel.ChannelFutureListener;
 
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.EnumMap;
 
 import com.google.common.base.Throwables;
@@ -18,6 +19,7 @@ import net.minecraft.tileentity.TileEntity;
 import net.minecraftforge.fml.common.FMLLog;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
 import net.minecraftforge.fml.common.network.FMLEmbeddedChannel;
+import net.minecraftforge.fml.common.network.FMLIndexedMessageToMessageCodec;
 import net.minecraftforge.fml.common.network.FMLOutboundHandler;
 import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.fml.common.network.NetworkRegistry.TargetPoint;
@@ -162,6 +164,27 @@ public class SimpleNetworkWrapper {
     public <REQ extends IMessage, REPLY extends IMessage> void registerMessage(IMessageHandler<? super REQ, ? extends REPLY> messageHandler, Class<REQ> requestMessageType, int discriminator, Side side)
     {
         packetCodec.addDiscriminator(discriminator, requestMessageType);
+        addHandler(messageHandler, requestMessageType, side);
+    }
+
+    /**
+     * Register a message and it's associated handler, with a factory creating the message instances incoming packets are read into.
+     * Use this for messages without a no argument constructor, or to avoid the reflective construction.
+     *
+     * @param messageHandler the message handler instance
+     * @param requestMessageType the message type
+     * @param messageFactory creates a new message of the requestMessageType for each incoming packet
+     * @param discriminator a discriminator byte
+     * @param side the side for the handler
+     */
+    public <REQ extends IMessage, REPLY extends IMessage> void registerMessage(IMessageHandler<? super REQ, ? extends REPLY> messageHandler, Class<REQ> requestMessageType, FMLIndexedMessageToMessageCodec.IMessageFactory<? extends REQ> messageFactory, int discriminator, Side side)
+    {
+        packetCodec.addDiscriminator(discriminator, requestMessageType, messageFactory);
+        addHandler(messageHandler, requestMessageType, side);
+    }
+
+    private <REQ extends IMessage, REPLY extends IMessage> void addHandler(IMessageHandler<? super REQ, ? extends REPLY> messageHandler, Class<REQ> requestMessageType, Side side)
+    {
         FMLEmbeddedChannel channel = channels.get(side);
         String type = channel.findChannelHandlerNameForType(SimpleIndexedCodec.class);
         if (side == Side.SERVER)
@@ -243,6 +266,21 @@ public class SimpleNetworkWrapper {
         channels.get(Side.SERVER).writeAndFlush(message).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
     }
 
+    /**
+     * Send this message to everyone within range of any of the points.
+     * The message is encoded once, and players within range of several points receive it once.
+     * The {@link IMessageHandler} for this message type should be on the CLIENT side.
+     *
+     * @param message The message to send
+     * @param points The {@link TargetPoint}s around which to send
+     */
+    public void sendToAllAround(IMessage message, Collection<NetworkRegistry.TargetPoint> points)
+    {
+        channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGET).set(FMLOutboundHandler.OutboundTarget.ALLAROUNDPOINT);
+        channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGETARGS).set(points);
+        channels.get(Side.SERVER).writeAndFlush(message).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+    }
+
     /**
      * Send this message to everyone within the supplied dimension.
      * The {@link IMessageHandler} for this message type should be on the CLIENT side.
@@ -268,4 +306,71 @@ public class SimpleNetworkWrapper {
         channels.get(Side.CLIENT).attr(FMLOutboundHandler.FML_MESSAGETARGET).set(FMLOutboundHandler.OutboundTarget.TOSERVER);
         channels.get(Side.CLIENT).writeAndFlush(message).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
     }
+
+    /**
+     * Queue this message for the specified player. Everything queued for a player during a server tick is sent
+     * as a single packet at the end of the tick, which is much cheaper than sending many small messages one by one.
+     * Messages sent directly in the meantime will arrive first.
+     * The {@link IMessageHandler} for this message type should be on the CLIENT side.
+     *
+     * @param message The message to send
+     * @param player The player to send it to
+     */
+    public void queueTo(IMessage message, EntityPlayerMP player)
+    {
+        channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGET).set(FMLOutboundHandler.OutboundTarget.PLAYER);
+        channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGETARGS).set(player);
+        writeBatched(message);
+    }
+
+    /**
+     * Queue this message for everyone, see {@link #queueTo(IMessage, EntityPlayerMP)}.
+     *
+     * @param message The message to send
+     */
+    public void queueToAll(IMessage message)
+    {
+        channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGET).set(FMLOutboundHandler.OutboundTarget.ALL);
+        writeBatched(message);
+    }
+
+    /**
+     * Queue this message for everyone within a certain range of a point, see {@link #queueTo(IMessage, EntityPlayerMP)}.
+     *
+     * @param message The message to send
+     * @param point The {@link TargetPoint} around which to send
+     */
+    public void queueToAllAround(IMessage message, NetworkRegistry.TargetPoint point)
+    {
+        channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGET).set(FMLOutboundHandler.OutboundTarget.ALLAROUNDPOINT);
+        channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGETARGS).set(point);
+        writeBatched(message);
+    }
+
+    /**
+     * Queue this message for everyone within the supplied dimension, see {@link #queueTo(IMessage, EntityPlayerMP)}.
+     *
+     * @param message The message to send
+     * @param dimensionId The dimension id to target
+     */
+    public void queueToDimension(IMessage message, int dimensionId)
+    {
+        channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGET).set(FMLOutboundHandler.OutboundTarget.DIMENSION);
+        channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGETARGS).set(dimensionId);
+        writeBatched(message);
+    }
+
+    private void writeBatched(IMessage message)
+    {
+        FMLEmbeddedChannel channel = channels.get(Side.SERVER);
+        channel.attr(FMLOutboundHandler.FML_MESSAGEBATCHED).set(Boolean.TRUE);
+        try
+        {
+            channel.writeAndFlush(message).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+        }
+        finally
+        {
+            channel.attr(FMLOutboundHandler.FML_MESSAGEBATCHED).remove();
+        }
+    }
 }
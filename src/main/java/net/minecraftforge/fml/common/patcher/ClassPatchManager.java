@@ -7,24 +7,29 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Level;
 
 import net.minecraft.launchwrapper.LaunchClassLoader;
+import net.minecraftforge.fml.common.asm.transformers.TransformerTimings;
 import net.minecraftforge.fml.relauncher.FMLRelaunchLog;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.repackage.com.nothome.delta.GDiffPatcher;
 import LZMA.LzmaInputStream;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
-import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.hash.Hashing;
@@ -38,10 +43,9 @@ public class ClassPatchManager {
     public static final boolean dumpPatched = Boolean.parseBoolean(System.getProperty("fml.dumpPatchedClasses", "false"));
     public static final boolean DEBUG = Boolean.parseBoolean(System.getProperty("fml.debugClassPatchManager", "false"));
 
-    private GDiffPatcher patcher = new GDiffPatcher();
-    private ListMultimap<String, ClassPatch> patches;
+    private volatile ListMultimap<String, PatchEntry> patches;
 
-    private Map<String,byte[]> patchedClasses = Maps.newHashMap();
+    private final ConcurrentMap<String,byte[]> patchedClasses = Maps.newConcurrentMap();
     private File tempDir;
     private ClassPatchManager()
     {
@@ -59,24 +63,32 @@ public class ClassPatchManager {
     }
     public byte[] applyPatch(String name, String mappedName, byte[] inputData)
     {
+        ListMultimap<String, PatchEntry> patches = this.patches;
         if (patches == null)
         {
             return inputData;
         }
-        if (patchedClasses.containsKey(name))
+        byte[] patched = patchedClasses.get(name);
+        if (patched != null)
         {
-            return patchedClasses.get(name);
+            return patched;
         }
-        List<ClassPatch> list = patches.get(name);
+        List<PatchEntry> list = patches.get(name);
         if (list.isEmpty())
         {
             return inputData;
         }
+        long start = TransformerTimings.start();
         boolean ignoredError = false;
         if (DEBUG)
             FMLRelaunchLog.fine("Runtime patching class %s (input size %d), found %d patch%s", mappedName, (inputData == null ? 0 : inputData.length), list.size(), list.size()!=1 ? "es" : "");
-        for (ClassPatch patch: list)
+        for (PatchEntry entry : list)
         {
+            ClassPatch patch = entry.get();
+            if (patch == null)
+            {
+                continue;
+            }
             if (!patch.targetClassName.equals(mappedName) && !patch.sourceClassName.equals(name))
             {
                 FMLRelaunchLog.warning("Binary patch found %s for wrong class %s", patch.targetClassName, mappedName);
@@ -113,17 +125,15 @@ public class ClassPatchManager {
                     }
                 }
             }
-            synchronized (patcher)
+            try
             {
-                try
-                {
-                    inputData = patcher.patch(inputData, patch.patch);
-                }
-                catch (IOException e)
-                {
-                    FMLRelaunchLog.log(Level.ERROR, e, "Encountered problem runtime patching class %s", name);
-                    continue;
-                }
+                // stateless, no lock or per-thread patcher needed
+                inputData = GDiffPatcher.patchDirect(inputData, patch.patch);
+            }
+            catch (IOException e)
+            {
+                FMLRelaunchLog.log(Level.ERROR, e, "Encountered problem runtime patching class %s", name);
+                continue;
             }
         }
         if (!ignoredError && DEBUG)
@@ -141,14 +151,21 @@ public class ClassPatchManager {
                 FMLRelaunchLog.log(Level.ERROR, e, "Failed to write %s to %s", mappedName, tempDir.getAbsolutePath());
             }
         }
-        patchedClasses.put(name,inputData);
-        return inputData;
+        // another thread may have patched the same class meanwhile, everyone gets the same bytes
+        patched = patchedClasses.putIfAbsent(name, inputData);
+        TransformerTimings.stop("ClassPatchManager (apply)", start, true);
+        return patched != null ? patched : inputData;
     }
 
+    /**
+     * Reads the binary patches of the side. The patch set is unpacked into memory and only indexed by class here,
+     * a patch is decoded the first time its class is loaded.
+     */
     public void setup(Side side)
     {
+        long start = System.nanoTime();
         Pattern binpatchMatcher = Pattern.compile(String.format("binpatch/%s/.*.binpatch", side.toString().toLowerCase(Locale.ENGLISH)));
-        JarInputStream jis;
+        byte[] jarBytes;
         try
         {
             InputStream binpatchesCompressed = getClass().getResourceAsStream("/binpatches.pack.lzma");
@@ -158,10 +175,14 @@ public class ClassPatchManager {
                 return;
             }
             LzmaInputStream binpatchesDecompressed = new LzmaInputStream(binpatchesCompressed);
-            ByteArrayOutputStream jarBytes = new ByteArrayOutputStream();
-            JarOutputStream jos = new JarOutputStream(jarBytes);
-            Pack200.newUnpacker().unpack(binpatchesDecompressed, jos);
-            jis = new JarInputStream(new ByteArrayInputStream(jarBytes.toByteArray()));
+            ByteArrayOutputStream jarOut = new ByteArrayOutputStream(0x100000);
+            JarOutputStream jos = new JarOutputStream(jarOut);
+            Pack200.Unpacker unpacker = Pack200.newUnpacker();
+            // stored entries can be indexed in place, without inflating every patch
+            unpacker.properties().put(Pack200.Unpacker.DEFLATE_HINT, Pack200.Unpacker.FALSE);
+            unpacker.unpack(binpatchesDecompressed, jos);
+            jos.close();
+            jarBytes = jarOut.toByteArray();
         }
         catch (Exception e)
         {
@@ -169,67 +190,171 @@ public class ClassPatchManager {
             throw Throwables.propagate(e);
         }
 
-        patches = ArrayListMultimap.create();
+        ImmutableListMultimap.Builder<String, PatchEntry> builder = ImmutableListMultimap.builder();
+        if (!indexStored(jarBytes, binpatchMatcher, builder))
+        {
+            builder = ImmutableListMultimap.builder();
+            indexJar(jarBytes, binpatchMatcher, builder);
+        }
+        patchedClasses.clear();
+        patches = builder.build();
+        FMLRelaunchLog.fine("Read %d binary patches in %d ms", patches.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (DEBUG)
+            FMLRelaunchLog.fine("Patch list :\n\t%s", Joiner.on("\t\n").join(patches.asMap().entrySet()));
+    }
 
-        do
+    /**
+     * Walks the local headers of a jar whose entries are all stored, the patch entries point into the jar bytes.
+     *
+     * @return false if an entry is compressed, nothing useful was indexed then
+     */
+    private boolean indexStored(byte[] jar, Pattern binpatchMatcher, ImmutableListMultimap.Builder<String, PatchEntry> builder)
+    {
+        int pos = 0;
+        while (pos + 30 <= jar.length && readIntLE(jar, pos) == 0x04034b50)
         {
-            try
+            int flags = readShortLE(jar, pos + 6);
+            int method = readShortLE(jar, pos + 8);
+            // sizes after the data
+            if (method != ZipEntry.STORED || (flags & 8) != 0)
+            {
+                return false;
+            }
+            int size = readIntLE(jar, pos + 18);
+            int nameLength = readShortLE(jar, pos + 26);
+            int extraLength = readShortLE(jar, pos + 28);
+            String entryName = new String(jar, pos + 30, nameLength, Charsets.UTF_8);
+            int data = pos + 30 + nameLength + extraLength;
+            if (binpatchMatcher.matcher(entryName).matches())
+            {
+                addEntry(entryName, jar, data, size, builder);
+            }
+            pos = data + size;
+        }
+        return true;
+    }
+
+    private void indexJar(byte[] jar, Pattern binpatchMatcher, ImmutableListMultimap.Builder<String, PatchEntry> builder)
+    {
+        JarInputStream jis = null;
+        try
+        {
+            jis = new JarInputStream(new ByteArrayInputStream(jar));
+            JarEntry entry;
+            while ((entry = jis.getNextJarEntry()) != null)
             {
-                JarEntry entry = jis.getNextJarEntry();
-                if (entry == null)
-                {
-                    break;
-                }
                 if (binpatchMatcher.matcher(entry.getName()).matches())
                 {
-                    ClassPatch cp = readPatch(entry, jis);
-                    if (cp != null)
-                    {
-                        patches.put(cp.sourceClassName, cp);
-                    }
+                    byte[] data = ByteStreams.toByteArray(jis);
+                    addEntry(entry.getName(), data, 0, data.length, builder);
                 }
                 else
                 {
                     jis.closeEntry();
                 }
             }
-            catch (IOException e)
-            {
-            }
-        } while (true);
-        FMLRelaunchLog.fine("Read %d binary patches", patches.size());
-        if (DEBUG)
-            FMLRelaunchLog.fine("Patch list :\n\t%s", Joiner.on("\t\n").join(patches.asMap().entrySet()));
-        patchedClasses.clear();
+        }
+        catch (IOException e)
+        {
+            FMLRelaunchLog.log(Level.WARN, e, "Unable to read the binary patch set completely");
+        }
+        finally
+        {
+            IOUtils.closeQuietly(jis);
+        }
     }
 
-    private ClassPatch readPatch(JarEntry patchEntry, JarInputStream jis)
+    private void addEntry(String entryName, byte[] data, int offset, int length, ImmutableListMultimap.Builder<String, PatchEntry> builder)
     {
-        if (DEBUG)
-            FMLRelaunchLog.finer("Reading patch data from %s", patchEntry.getName());
-        ByteArrayDataInput input;
         try
         {
-            input = ByteStreams.newDataInput(ByteStreams.toByteArray(jis));
+            ByteArrayDataInput input = ByteStreams.newDataInput(data, offset);
+            input.readUTF();
+            builder.put(input.readUTF(), new PatchEntry(entryName, data, offset, length));
         }
-        catch (IOException e)
+        catch (IllegalStateException e)
+        {
+            FMLRelaunchLog.log(Level.WARN, e, "Unable to read binpatch file %s - ignoring", entryName);
+        }
+    }
+
+    private static int readShortLE(byte[] b, int pos)
+    {
+        return (b[pos] & 0xFF) | (b[pos + 1] & 0xFF) << 8;
+    }
+
+    private static int readIntLE(byte[] b, int pos)
+    {
+        return readShortLE(b, pos) | readShortLE(b, pos + 2) << 16;
+    }
+
+    /**
+     * A binary patch in the unpacked patch set, decoded on first use.
+     */
+    private static final class PatchEntry
+    {
+        private final String entryName;
+        private final byte[] data;
+        private final int offset;
+        private final int length;
+        private volatile ClassPatch patch;
+        private volatile boolean failed;
+
+        PatchEntry(String entryName, byte[] data, int offset, int length)
         {
-            FMLRelaunchLog.log(Level.WARN, e, "Unable to read binpatch file %s - ignoring", patchEntry.getName());
-            return null;
+            this.entryName = entryName;
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
         }
-        String name = input.readUTF();
-        String sourceClassName = input.readUTF();
-        String targetClassName = input.readUTF();
-        boolean exists = input.readBoolean();
-        int inputChecksum = 0;
-        if (exists)
+
+        /**
+         * @return The patch, or null if it can't be read
+         */
+        ClassPatch get()
+        {
+            ClassPatch ret = patch;
+            if (ret == null && !failed)
+            {
+                ret = readPatch();
+                patch = ret;
+                failed = ret == null;
+            }
+            return ret;
+        }
+
+        private ClassPatch readPatch()
         {
-            inputChecksum = input.readInt();
+            if (DEBUG)
+                FMLRelaunchLog.finer("Reading patch data from %s", entryName);
+            try
+            {
+                ByteArrayDataInput input = ByteStreams.newDataInput(data, offset);
+                String name = input.readUTF();
+                String sourceClassName = input.readUTF();
+                String targetClassName = input.readUTF();
+                boolean exists = input.readBoolean();
+                int inputChecksum = 0;
+                if (exists)
+                {
+                    inputChecksum = input.readInt();
+                }
+                int patchLength = input.readInt();
+                byte[] patchBytes = new byte[patchLength];
+                input.readFully(patchBytes);
+                return new ClassPatch(name, sourceClassName, targetClassName, exists, inputChecksum, patchBytes);
+            }
+            catch (IllegalStateException e)
+            {
+                FMLRelaunchLog.log(Level.WARN, e, "Unable to read binpatch file %s - ignoring", entryName);
+                return null;
+            }
         }
-        int patchLength = input.readInt();
-        byte[] patchBytes = new byte[patchLength];
-        input.readFully(patchBytes);
 
-        return new ClassPatch(name, sourceClassName, targetClassName, exists, inputChecksum, patchBytes);
+        @Override
+        public String toString()
+        {
+            return entryName + " size " + length;
+        }
     }
 }
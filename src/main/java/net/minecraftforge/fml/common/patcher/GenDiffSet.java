@@ -10,6 +10,7 @@ import java.util.jar.JarFile;
 
 import net.minecraftforge.fml.common.asm.transformers.deobf.FMLDeobfuscatingRemapper;
 import net.minecraftforge.fml.repackage.com.nothome.delta.Delta;
+import net.minecraftforge.fml.repackage.com.nothome.delta.GDiffPatcher;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -64,7 +65,11 @@ public class GenDiffSet {
                 byte[] patchedBytes = Files.toByteArray(targetFile);
 
                 byte[] diff = delta.compute(vanillaBytes, patchedBytes);
-
+                // the same way ClassPatchManager applies it at runtime
+                if (!Arrays.equals(GDiffPatcher.patchDirect(vanillaBytes, diff), patchedBytes))
+                {
+                    throw new IOException(String.format("Patch for %s (%s) does not reproduce the target class", name, targetClassName));
+                }
 
                 ByteArrayDataOutput diffOut = ByteStreams.newDataOutput(diff.length + 50);
                 // Original name
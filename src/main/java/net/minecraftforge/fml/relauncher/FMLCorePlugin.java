@@ -20,10 +20,8 @@ public class FMLCorePlugin implements IFMLLoadingPlugin
     public String[] getASMTransformerClass()
     {
         return new String[] {
-                             "net.minecraftforge.fml.common.asm.transformers.BlamingTransformer",
-                             "net.minecraftforge.fml.common.asm.transformers.SideTransformer",
-                             "net.minecraftforge.fml.common.asm.transformers.EventSubscriptionTransformer",
-                             "net.minecraftforge.fml.common.asm.transformers.EventSubscriberTransformer",
+                             // Blaming, Side, EventSubscription and EventSubscriber in one pass
+                             "net.minecraftforge.fml.common.asm.transformers.FMLCoreTransformer",
                             };
     }
 
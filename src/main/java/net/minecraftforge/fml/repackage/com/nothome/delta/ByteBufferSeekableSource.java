@@ -71,11 +71,12 @@ public class ByteBufferSeekableSource implements SeekableSource {
     public int read(ByteBuffer dest) throws IOException {
         if (!cur.hasRemaining())
             return -1;
-        int c = 0;
-        while (cur.hasRemaining() && dest.hasRemaining()) {
-            dest.put(cur.get());
-            c++;
-        }
+        // one bulk copy instead of a get and put per byte
+        int c = Math.min(cur.remaining(), dest.remaining());
+        ByteBuffer chunk = cur.duplicate();
+        chunk.limit(chunk.position() + c);
+        dest.put(chunk);
+        cur.position(cur.position() + c);
         return c;
     }
     
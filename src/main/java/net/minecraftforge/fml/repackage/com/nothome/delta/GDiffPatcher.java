@@ -105,6 +105,149 @@ public class GDiffPatcher {
         return os.toByteArray();
     }
 
+    /**
+     * Patches in memory straight from array to array. The commands are read twice, first to size the output
+     * and check every range, then to fill it with one array copy per COPY or DATA command.
+     * Keeps no state, so unlike the other methods it can be called from several threads at once.
+     */
+    public static byte[] patchDirect(byte[] source, byte[] patch) throws IOException {
+        return patchDirect(source, patch, 0, patch.length);
+    }
+
+    /**
+     * Same as {@link #patchDirect(byte[], byte[])} with the patch in a part of the given array.
+     */
+    public static byte[] patchDirect(byte[] source, byte[] patch, int offset, int length) throws IOException {
+        int end = offset + length;
+        // the magic string is 'd1 ff d1 ff' + the version number
+        if (length < 5 ||
+                (patch[offset] & 0xFF) != 0xd1 ||
+                (patch[offset + 1] & 0xFF) != 0xff ||
+                (patch[offset + 2] & 0xFF) != 0xd1 ||
+                (patch[offset + 3] & 0xFF) != 0xff ||
+                (patch[offset + 4] & 0xFF) != 0x04) {
+
+            throw new PatchException("magic string not found, aborting!");
+        }
+        byte[] output = new byte[run(source, patch, offset + 5, end, null)];
+        run(source, patch, offset + 5, end, output);
+        return output;
+    }
+
+    /**
+     * Runs the commands from p to the EOF command, copying into output if it isn't null.
+     *
+     * @return The length of the output
+     */
+    private static int run(byte[] source, byte[] patch, int p, int end, byte[] output) throws IOException {
+        int size = 0;
+        while (true) {
+            need(p, 1, end);
+            int command = patch[p++] & 0xFF;
+            if (command == EOF)
+                return size;
+            int length;
+            long offset;
+
+            if (command <= DATA_MAX) {
+                length = command;
+            } else {
+                switch (command) {
+                case DATA_USHORT:
+                    need(p, 2, end);
+                    length = readUnsignedShort(patch, p);
+                    p += 2;
+                    break;
+                case DATA_INT:
+                    need(p, 4, end);
+                    length = readInt(patch, p);
+                    p += 4;
+                    break;
+                case COPY_USHORT_UBYTE:
+                    need(p, 3, end);
+                    offset = readUnsignedShort(patch, p);
+                    length = patch[p + 2] & 0xFF;
+                    p += 3;
+                    size = copy(source, offset, length, output, size);
+                    continue;
+                case COPY_USHORT_USHORT:
+                    need(p, 4, end);
+                    offset = readUnsignedShort(patch, p);
+                    length = readUnsignedShort(patch, p + 2);
+                    p += 4;
+                    size = copy(source, offset, length, output, size);
+                    continue;
+                case COPY_USHORT_INT:
+                    need(p, 6, end);
+                    offset = readUnsignedShort(patch, p);
+                    length = readInt(patch, p + 2);
+                    p += 6;
+                    size = copy(source, offset, length, output, size);
+                    continue;
+                case COPY_INT_UBYTE:
+                    need(p, 5, end);
+                    offset = readInt(patch, p);
+                    length = patch[p + 4] & 0xFF;
+                    p += 5;
+                    size = copy(source, offset, length, output, size);
+                    continue;
+                case COPY_INT_USHORT:
+                    need(p, 6, end);
+                    offset = readInt(patch, p);
+                    length = readUnsignedShort(patch, p + 4);
+                    p += 6;
+                    size = copy(source, offset, length, output, size);
+                    continue;
+                case COPY_INT_INT:
+                    need(p, 8, end);
+                    offset = readInt(patch, p);
+                    length = readInt(patch, p + 4);
+                    p += 8;
+                    size = copy(source, offset, length, output, size);
+                    continue;
+                case COPY_LONG_INT:
+                    need(p, 12, end);
+                    offset = ((long)readInt(patch, p) << 32) | (readInt(patch, p + 4) & 0xFFFFFFFFL);
+                    length = readInt(patch, p + 8);
+                    p += 12;
+                    size = copy(source, offset, length, output, size);
+                    continue;
+                default:
+                    throw new IllegalStateException("command " + command);
+                }
+            }
+            // DATA, length bytes following
+            if (length < 0)
+                throw new PatchException("invalid data length " + length);
+            need(p, length, end);
+            if (output != null)
+                System.arraycopy(patch, p, output, size, length);
+            p += length;
+            size += length;
+        }
+    }
+
+    private static int copy(byte[] source, long offset, int length, byte[] output, int size) throws IOException {
+        if (length < 0 || offset < 0 || offset + length > source.length)
+            throw new EOFException("in copy " + offset + " " + length);
+        if (output != null)
+            System.arraycopy(source, (int)offset, output, size, length);
+        return size + length;
+    }
+
+    private static void need(int p, int count, int end) throws EOFException {
+        if (count > end - p)
+            throw new EOFException("patch ends within a command");
+    }
+
+    private static int readUnsignedShort(byte[] b, int p) {
+        return (b[p] & 0xFF) << 8 | (b[p + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] b, int p) {
+        return (b[p] & 0xFF) << 24 | (b[p + 1] & 0xFF) << 16 | (b[p + 2] & 0xFF) << 8 | (b[p + 3] & 0xFF);
+    }
+
     /**
      * Patches to an output stream.
      */
@@ -1,12 +1,14 @@
 package net.minecraftforge.oredict;
 
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import net.minecraft.block.BlockPrismarine;
 import net.minecraft.util.ResourceLocation;
@@ -25,7 +27,6 @@ import net.minecraftforge.common.MinecraftForge;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 
 import net.minecraftforge.fml.common.FMLLog;
 import net.minecraftforge.fml.common.Loader;
@@ -39,7 +40,10 @@ public class OreDictionary
     private static Map<String, Integer>  nameToId = new HashMap<String, Integer>(128);
     private static List<List<ItemStack>> idToStack = Lists.newArrayList();
     private static List<List<ItemStack>> idToStackUn = Lists.newArrayList();
-    private static Map<Integer, List<Integer>> stackToId = Maps.newHashMapWithExpectedSize((int)(128 * 0.75));
+    // Baked lookup tables, both keyed by the registry id of the item, or'd with (meta + 1) << 16 unless registered with the wildcard value
+    private static TIntObjectHashMap<BitSet> stackToId = new TIntObjectHashMap<BitSet>(128);
+    private static List<TIntHashSet> idToKeys = Lists.newArrayList();
+    private static final int[] NO_IDS = new int[0];
     public static final ImmutableList<ItemStack> EMPTY_LIST = ImmutableList.of();
 
     /**
@@ -386,6 +390,7 @@ public class OreDictionary
             List<ItemStack> back = Lists.newArrayList();
             idToStack.add(back);
             idToStackUn.add(Collections.unmodifiableList(back));
+            idToKeys.add(new TIntHashSet());
         }
         return val;
     }
@@ -412,8 +417,6 @@ public class OreDictionary
     {
         if (stack == null || stack.getItem() == null) throw new IllegalArgumentException("Stack can not be null!");
 
-        Set<Integer> set = new HashSet<Integer>();
-
         // HACK: use the registry name's ID. It is unique and it knows about substitutions. Fallback to a -1 value (what Item.getIDForItem would have returned) in the case where the registry is not aware of the item yet
         // IT should be noted that -1 will fail the gate further down, if an entry already exists with value -1 for this name. This is what is broken and being warned about.
         // APPARENTLY it's quite common to do this. OreDictionary should be considered alongside Recipes - you can't make them properly until you've registered with the game.
@@ -422,24 +425,60 @@ public class OreDictionary
         if (registryName == null)
         {
             FMLLog.log(Level.DEBUG, "Attempted to find the oreIDs for an unregistered object (%s). This won't work very well.", stack);
-            return new int[0];
+            return NO_IDS;
         }
         else
         {
             id = GameData.getItemRegistry().getId(registryName);
         }
-        List<Integer> ids = stackToId.get(id);
-        if (ids != null) set.addAll(ids);
-        ids = stackToId.get(id | ((stack.getItemDamage() + 1) << 16));
-        if (ids != null) set.addAll(ids);
-
-        Integer[] tmp = set.toArray(new Integer[set.size()]);
-        int[] ret = new int[tmp.length];
-        for (int x = 0; x < tmp.length; x++)
-            ret[x] = tmp[x];
+        BitSet wildcard = stackToId.get(id);
+        BitSet exact = stackToId.get(id | ((stack.getItemDamage() + 1) << 16));
+        if (wildcard == null && exact == null) return NO_IDS;
+        if (wildcard == null) return toArray(exact);
+        if (exact == null) return toArray(wildcard);
+
+        BitSet set = (BitSet)wildcard.clone();
+        set.or(exact);
+        return toArray(set);
+    }
+
+    private static int[] toArray(BitSet set)
+    {
+        int[] ret = new int[set.cardinality()];
+        int x = 0;
+        for (int id = set.nextSetBit(0); id >= 0; id = set.nextSetBit(id + 1))
+            ret[x++] = id;
         return ret;
     }
 
+    /**
+     * Tests if the stack is registered to the ore, without allocating. Equivalent to testing the result of
+     * {@link #getOreIDs(ItemStack)} for the ore id, or to a non strict {@link #itemMatches} against every entry of {@link #getOres(String)}.
+     *
+     * @param oreId The ore ID, see getOreID
+     * @param stack The stack to test, may be null
+     * @return If the item of the stack is registered for this ore with either the wildcard value or the damage of the stack
+     */
+    public static boolean matches(int oreId, ItemStack stack)
+    {
+        if (stack == null || stack.getItem() == null || oreId < 0 || oreId >= idToKeys.size()) return false;
+        ResourceLocation registryName = stack.getItem().delegate.name();
+        if (registryName == null) return false;
+
+        TIntHashSet keys = idToKeys.get(oreId);
+        int id = GameData.getItemRegistry().getId(registryName);
+        return keys.contains(id) || keys.contains(id | ((stack.getItemDamage() + 1) << 16));
+    }
+
+    /**
+     * Same as {@link #matches(int, ItemStack)}, does not create an entry for unknown names.
+     */
+    public static boolean matches(String name, ItemStack stack)
+    {
+        Integer id = nameToId.get(name);
+        return id != null && matches(id, stack);
+    }
+
     /**
      * Retrieves the ArrayList of items that are registered to this ore type.
      * Creates the list as empty if it did not exist.
@@ -598,14 +637,7 @@ public class OreDictionary
         }
 
         //Add things to the baked version, and prevent duplicates
-        List<Integer> ids = stackToId.get(hash);
-        if (ids != null && ids.contains(oreID)) return;
-        if (ids == null)
-        {
-            ids = Lists.newArrayList();
-            stackToId.put(hash, ids);
-        }
-        ids.add(oreID);
+        if (!addKey(hash, oreID)) return;
 
         //Add to the unbaked version
         ore = ore.copy();
@@ -639,6 +671,10 @@ public class OreDictionary
     {
         //System.out.println("Baking OreDictionary:");
         stackToId.clear();
+        for (TIntHashSet keys : idToKeys)
+        {
+            keys.clear();
+        }
         for (int id = 0; id < idToStack.size(); id++)
         {
             List<ItemStack> ores = idToStack.get(id);
@@ -661,15 +697,29 @@ public class OreDictionary
                 {
                     hash |= ((ore.getItemDamage() + 1) << 16); // +1 so meta 0 is significant
                 }
-                List<Integer> ids = stackToId.get(hash);
-                if (ids == null)
-                {
-                    ids = Lists.newArrayList();
-                    stackToId.put(hash, ids);
-                }
-                ids.add(id);
+                addKey(hash, id);
                 //System.out.println(id + " " + getOreName(id) + " " + Integer.toHexString(hash) + " " + ore);
             }
         }
     }
+
+    /**
+     * @return False if the key was already registered for the ore
+     */
+    private static boolean addKey(int key, int oreID)
+    {
+        BitSet ids = stackToId.get(key);
+        if (ids == null)
+        {
+            ids = new BitSet();
+            stackToId.put(key, ids);
+        }
+        else if (ids.get(oreID))
+        {
+            return false;
+        }
+        ids.set(oreID);
+        idToKeys.get(oreID).add(key);
+        return true;
+    }
 }
@@ -11,6 +11,8 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.text.TextComponentTranslation;
 import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.chunkio.ChunkIOExecutor;
+import net.minecraftforge.fml.common.eventhandler.EventProfiler;
 import net.minecraftforge.server.ForgeTimeTracker;
 
 public class ForgeCommand extends CommandBase {
@@ -57,6 +59,10 @@ public class ForgeCommand extends CommandBase {
         {
             handleTracking(server, sender, args);
         }
+        else if ("profile".equals(args[0]))
+        {
+            handleProfiling(server, sender, args);
+        }
         else
         {
             throw new WrongUsageException("commands.forge.usage");
@@ -68,7 +74,7 @@ public class ForgeCommand extends CommandBase {
     {
         if (args.length == 1)
         {
-            return getListOfStringsMatchingLastWord(args, "tps", "track");
+            return getListOfStringsMatchingLastWord(args, "tps", "track", "profile");
         }
         else if (args.length == 2)
         {
@@ -79,6 +85,14 @@ public class ForgeCommand extends CommandBase {
             {
                 return getListOfStringsMatchingLastWord(args, "te");
             }
+            else if ("profile".equals(args[0]))
+            {
+                return getListOfStringsMatchingLastWord(args, "events");
+            }
+        }
+        else if (args.length == 3 && "profile".equals(args[0]))
+        {
+            return getListOfStringsMatchingLastWord(args, "start", "stop", "reset", "report");
         }
         return null;
     }
@@ -102,6 +116,47 @@ public class ForgeCommand extends CommandBase {
         }
     }
 
+    private void handleProfiling(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+    {
+        if (args.length < 3 || !"events".equals(args[1]))
+        {
+            throw new WrongUsageException("commands.forge.usage.profile");
+        }
+        String action = args[2];
+
+        if ("start".equals(action))
+        {
+            EventProfiler.INSTANCE.setEnabled(true);
+            sender.addChatMessage(new TextComponentTranslation("commands.forge.profile.events.started"));
+        }
+        else if ("stop".equals(action))
+        {
+            EventProfiler.INSTANCE.setEnabled(false);
+            sender.addChatMessage(new TextComponentTranslation("commands.forge.profile.events.stopped"));
+        }
+        else if ("reset".equals(action))
+        {
+            EventProfiler.INSTANCE.reset();
+            sender.addChatMessage(new TextComponentTranslation("commands.forge.profile.events.reset"));
+        }
+        else if ("report".equals(action))
+        {
+            int count = args.length > 3 ? parseInt(args[3], 1, 100) : 10;
+            List<EventProfiler.Entry> entries = EventProfiler.INSTANCE.getEntries();
+            count = Math.min(count, entries.size());
+            sender.addChatMessage(new TextComponentTranslation("commands.forge.profile.events.header", count, entries.size()));
+            for (EventProfiler.Entry entry : entries.subList(0, count))
+            {
+                sender.addChatMessage(new TextComponentTranslation("commands.forge.profile.events.entry", entry.getModId(), entry.getListener(), entry.getCalls(),
+                        timeFormatter.format(entry.getAverageNanos() / 1000.0), timeFormatter.format(entry.getEstimatedNanos() / 1000000.0)));
+            }
+        }
+        else
+        {
+            throw new WrongUsageException("commands.forge.usage.profile");
+        }
+    }
+
     private void doTurnOnTileEntityTracking(MinecraftServer server, ICommandSender sender, int duration)
     {
         ForgeTimeTracker.tileEntityTrackingDuration = duration;
@@ -134,6 +189,8 @@ public class ForgeCommand extends CommandBase {
             double meanTickTime = ForgeCommand.mean(server.tickTimeArray) * 1.0E-6D;
             double meanTPS = Math.min(1000.0/meanTickTime, 20);
             sender.addChatMessage(new TextComponentTranslation("commands.forge.tps.summary","Overall", timeFormatter.format(meanTickTime), timeFormatter.format(meanTPS)));
+            sender.addChatMessage(new TextComponentTranslation("commands.forge.tps.chunkio", ChunkIOExecutor.getQueueDepth(), ChunkIOExecutor.getDeferredDepth(), ChunkIOExecutor.getWorkerCount(),
+                    timeFormatter.format(ChunkIOExecutor.getAverageLoadNanos() * 1.0E-6D), timeFormatter.format(ChunkIOExecutor.getAverageWaitNanos() * 1.0E-6D)));
         }
         else
         {
@@ -0,0 +1,157 @@
+package net.minecraftforge.client.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.block.model.BlockPart;
+import net.minecraft.client.renderer.block.model.BlockPartFace;
+import net.minecraft.client.renderer.block.model.FaceBakery;
+import net.minecraft.client.renderer.block.model.IBakedModel;
+import net.minecraft.client.renderer.block.model.ModelBlock;
+import net.minecraft.client.renderer.block.model.ModelRotation;
+import net.minecraft.client.renderer.block.model.SimpleBakedModel;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.ResourceLocation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Headless cold and warm model setup against {@link BakedModelCache}, without a game window or resource manager.
+ * The cold run parses the model json, bakes every face and writes the cache file. The warm run reads the
+ * cache file, still parses the model json and rehydrates the quads of every model, which is what a launch
+ * with a cache hit does, as the model properties and the particle texture come from the parsed model.
+ * The sprites are laid out on a fake atlas, so no textures are loaded in either run.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main BakedModelCacheBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BakedModelCacheBenchmark
+{
+    private static final String FINGERPRINT = "bench";
+
+    @Param({"256", "4096"})
+    public int modelCount;
+
+    private final FaceBakery faceBakery = new FaceBakery();
+    private final Map<String, TextureAtlasSprite> sprites = Maps.newHashMap();
+    private final Function<ResourceLocation, TextureAtlasSprite> textureGetter = new Function<ResourceLocation, TextureAtlasSprite>()
+    {
+        public TextureAtlasSprite apply(ResourceLocation location)
+        {
+            return sprites.get(location.toString());
+        }
+    };
+    private List<String> json;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        json = Lists.newArrayList();
+        for(int x = 0; x < modelCount; x++)
+        {
+            String texture = "bench:blocks/block" + x;
+            TextureAtlasSprite sprite = new TextureAtlasSprite(texture) {};
+            sprite.setIconWidth(16);
+            sprite.setIconHeight(16);
+            sprite.initSprite(1024, 1024, (x % 64) * 16, (x / 64) * 16, false);
+            sprites.put(texture, sprite);
+            json.add("{\"textures\":{\"all\":\"" + texture + "\",\"particle\":\"#all\"},\"elements\":[" +
+                "{\"from\":[0,0,0],\"to\":[16,16,16],\"faces\":{" +
+                "\"down\":{\"texture\":\"#all\",\"cullface\":\"down\"},\"up\":{\"texture\":\"#all\",\"cullface\":\"up\"}," +
+                "\"north\":{\"texture\":\"#all\",\"cullface\":\"north\"},\"south\":{\"texture\":\"#all\",\"cullface\":\"south\"}," +
+                "\"west\":{\"texture\":\"#all\",\"cullface\":\"west\"},\"east\":{\"texture\":\"#all\",\"cullface\":\"east\"}}}," +
+                "{\"from\":[4,4,4],\"to\":[12,12,12],\"rotation\":{\"origin\":[8,8,8],\"axis\":\"y\",\"angle\":22.5},\"faces\":{" +
+                "\"north\":{\"texture\":\"#all\"},\"south\":{\"texture\":\"#all\"},\"west\":{\"texture\":\"#all\"},\"east\":{\"texture\":\"#all\"}}}]}");
+        }
+        file = File.createTempFile("bakedmodels", ".bin");
+        coldSetup();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Benchmark
+    public int coldSetup()
+    {
+        // No cache file on a cold start
+        file.delete();
+        BakedModelCache cache = BakedModelCache.open(file, FINGERPRINT);
+        int quads = 0;
+        for(int x = 0; x < modelCount; x++)
+        {
+            IBakedModel baked = bake(ModelBlock.deserialize(json.get(x)));
+            cache.put("bench:block" + x, baked);
+            quads += baked.getQuads(null, null, 0).size();
+        }
+        cache.save();
+        return quads;
+    }
+
+    @Benchmark
+    public int warmSetup()
+    {
+        BakedModelCache cache = BakedModelCache.open(file, FINGERPRINT);
+        int quads = 0;
+        for(int x = 0; x < modelCount; x++)
+        {
+            ModelBlock model = ModelBlock.deserialize(json.get(x));
+            TextureAtlasSprite particle = textureGetter.apply(new ResourceLocation(model.resolveTextureName("particle")));
+            IBakedModel baked = new BakedModelCache.CachedBakedModel(cache.get("bench:block" + x), textureGetter, model.isAmbientOcclusion(), model.isGui3d(), particle, model.getAllTransforms(), model.createOverrides());
+            quads += baked.getQuads(null, null, 0).size();
+        }
+        return quads;
+    }
+
+    private IBakedModel bake(ModelBlock model)
+    {
+        TextureAtlasSprite particle = textureGetter.apply(new ResourceLocation(model.resolveTextureName("particle")));
+        SimpleBakedModel.Builder builder = new SimpleBakedModel.Builder(model, model.createOverrides()).setTexture(particle);
+        for(BlockPart part : model.getElements())
+        {
+            for(Map.Entry<EnumFacing, BlockPartFace> e : part.mapFaces.entrySet())
+            {
+                TextureAtlasSprite sprite = textureGetter.apply(new ResourceLocation(model.resolveTextureName(e.getValue().texture)));
+                BakedQuad quad = faceBakery.makeBakedQuad(part.positionFrom, part.positionTo, e.getValue(), sprite, e.getKey(), ModelRotation.X0_Y0, part.partRotation, false, part.shade);
+                if(e.getValue().cullFace == null)
+                {
+                    builder.addGeneralQuad(quad);
+                }
+                else
+                {
+                    builder.addFaceQuad(e.getValue().cullFace, quad);
+                }
+            }
+        }
+        return builder.makeBakedModel();
+    }
+}
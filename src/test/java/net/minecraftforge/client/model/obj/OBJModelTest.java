@@ -0,0 +1,102 @@
+package net.minecraftforge.client.model.obj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.resources.SimpleResource;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.client.model.obj.OBJModel.Group;
+import net.minecraftforge.client.model.obj.OBJModel.OBJBakedModel;
+import net.minecraftforge.client.model.obj.OBJModel.OBJState;
+import net.minecraftforge.common.model.TRSRTransformation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class OBJModelTest
+{
+    private static final ResourceLocation LOCATION = new ResourceLocation("test", "models/block/groups.obj");
+    // Group a has one face, group b two
+    private static final String OBJ =
+        "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\n" +
+        "g a\nf 1 2 3 4\n" +
+        "g b\nf 1 2 3 4\nf 4 3 2 1\n";
+
+    private OBJBakedModel base;
+
+    @Before
+    public void setup() throws IOException
+    {
+        SimpleResource resource = new SimpleResource("test", LOCATION, new ByteArrayInputStream(OBJ.getBytes(Charsets.UTF_8)), null, null);
+        OBJModel model = new OBJModel.Parser(resource, null).parse();
+        base = model.new OBJBakedModel(model, TRSRTransformation.identity(), DefaultVertexFormats.ITEM, ImmutableMap.<String, TextureAtlasSprite>of());
+    }
+
+    /**
+     * a shown and b hidden, then toggled when baked, so only b is visible.
+     */
+    private static OBJState toggled()
+    {
+        OBJState state = new OBJState(ImmutableList.of("a", "b"), false);
+        state.changeGroupVisibilities(ImmutableList.of("a"), OBJState.Operation.TOGGLE);
+        return state;
+    }
+
+    @Test
+    public void bakingLeavesStateUnchanged()
+    {
+        OBJState state = toggled();
+        Map<String, Boolean> visibility = ImmutableMap.copyOf(state.getVisibilityMap());
+        int hash = state.hashCode();
+
+        OBJBakedModel baked = base.getCachedModel(state);
+        baked.getQuads(null, null, 0);
+        baked.scheduleRebake();
+        baked.getQuads(null, null, 0);
+
+        assertEquals(visibility, state.getVisibilityMap());
+        assertEquals(hash, state.hashCode());
+        assertEquals(toggled(), state);
+        assertSame(baked, base.getCachedModel(toggled()));
+    }
+
+    @Test
+    public void rebuildShowsSameGroups()
+    {
+        OBJBakedModel baked = base.getCachedModel(toggled());
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(2, baked.getQuads(null, null, 0).size());
+            baked.scheduleRebake();
+        }
+    }
+
+    @Test
+    public void allGroups()
+    {
+        OBJState state = new OBJState(ImmutableList.of(Group.ALL), true);
+        OBJBakedModel baked = base.getCachedModel(state);
+        assertEquals(3, baked.getQuads(null, null, 0).size());
+        assertEquals(ImmutableMap.of(Group.ALL, true), state.getVisibilityMap());
+    }
+
+    @Test
+    public void allGroupsExcept()
+    {
+        OBJState state = new OBJState(ImmutableList.of(Group.ALL_EXCEPT), true);
+        // Excepted groups keep their own visibility
+        state.visibilityMap.put("b", false);
+        OBJBakedModel baked = base.getCachedModel(state);
+        assertEquals(1, baked.getQuads(null, null, 0).size());
+    }
+}
@@ -0,0 +1,177 @@
+package net.minecraftforge.client.model.obj;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.vecmath.Vector4f;
+
+import net.minecraft.client.resources.SimpleResource;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.client.model.obj.OBJModel.Face;
+import net.minecraftforge.client.model.obj.OBJModel.Material;
+import net.minecraftforge.client.model.obj.OBJModel.Normal;
+import net.minecraftforge.client.model.obj.OBJModel.TextureCoordinate;
+import net.minecraftforge.client.model.obj.OBJModel.Vertex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+
+/**
+ * Parses a generated grid mesh with positions, texture coordinates and normals with {@link OBJModel.Parser}, from a
+ * resource like {@link OBJLoader} does, against the regex splitting it replaced. The legacy benchmark repeats the old per line work for the
+ * v, vt, vn and f lines, which are all the generated file contains.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main OBJParserBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+public class OBJParserBenchmark
+{
+    private static final Pattern WHITE_SPACE = Pattern.compile("\\s+");
+    private static final ResourceLocation LOCATION = new ResourceLocation("bench", "models/block/bench.obj");
+
+    @Param({"100000", "1000000"})
+    public int triangles;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        int side = (int)Math.ceil(Math.sqrt(triangles / 2.0)) + 1;
+        file = File.createTempFile("bench", ".obj");
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8));
+        try
+        {
+            out.write("# generated grid\no grid\n");
+            for (int z = 0; z < side; z++)
+            {
+                for (int x = 0; x < side; x++)
+                {
+                    out.write("v " + (x * 0.0625f) + " " + (float)Math.sin(x * 0.1 + z * 0.1) + " " + (z * -0.0625f) + "\n");
+                    out.write("vt " + ((float)x / side) + " " + ((float)z / side) + "\n");
+                    out.write("vn 0.0 1.0 0.0\n");
+                }
+            }
+            int written = 0;
+            for (int z = 0; z + 1 < side && written < triangles; z++)
+            {
+                for (int x = 0; x + 1 < side && written < triangles; x++, written += 2)
+                {
+                    int a = z * side + x + 1;
+                    int b = a + 1;
+                    int c = a + side;
+                    int d = c + 1;
+                    out.write("f " + a + "/" + a + "/" + a + " " + b + "/" + b + "/" + b + " " + d + "/" + d + "/" + d + "\n");
+                    out.write("f " + a + "/" + a + "/" + a + " " + d + "/" + d + "/" + d + " " + c + "/" + c + "/" + c + "\n");
+                }
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Benchmark
+    public Object parse() throws IOException
+    {
+        return new OBJModel.Parser(new SimpleResource("bench", LOCATION, new FileInputStream(file), null, null), null).parse();
+    }
+
+    @Benchmark
+    public int legacyParse() throws IOException
+    {
+        List<Vertex> vertices = Lists.newArrayList();
+        List<Normal> normals = Lists.newArrayList();
+        List<TextureCoordinate> texCoords = Lists.newArrayList();
+        List<Face> faces = Lists.newArrayList();
+        Material material = new Material();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8));
+        try
+        {
+            for (String line = reader.readLine(); line != null; line = reader.readLine())
+            {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = WHITE_SPACE.split(line, 2);
+                String key = fields[0];
+                String[] data = WHITE_SPACE.split(fields[1]);
+                if (key.equalsIgnoreCase("v"))
+                {
+                    float[] coords = parseFloats(data);
+                    vertices.add(new Vertex(new Vector4f(coords[0], coords[1], coords[2], coords.length == 4 ? coords[3] : 1.0F), material));
+                }
+                else if (key.equalsIgnoreCase("vn"))
+                {
+                    normals.add(new Normal(parseFloats(data)));
+                }
+                else if (key.equalsIgnoreCase("vt"))
+                {
+                    float[] coords = parseFloats(data);
+                    texCoords.add(new TextureCoordinate(coords[0], coords.length >= 2 ? coords[1] : 0.0F, coords.length >= 3 ? coords[2] : 0.0F));
+                }
+                else if (key.equalsIgnoreCase("f"))
+                {
+                    Vertex[] va = new Vertex[data.length];
+                    for (int i = 0; i < data.length; i++)
+                    {
+                        String[] pts = data[i].split("/");
+                        Vertex v = vertices.get(Integer.parseInt(pts[0]) - 1);
+                        Vertex newV = new Vertex(new Vector4f(v.getPos()), v.getMaterial());
+                        newV.setTextureCoordinate(texCoords.get(Integer.parseInt(pts[1]) - 1));
+                        newV.setNormal(normals.get(Integer.parseInt(pts[2]) - 1));
+                        va[i] = newV;
+                    }
+                    faces.add(new Face(va, material.getName()));
+                }
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return faces.size();
+    }
+
+    private static float[] parseFloats(String[] data)
+    {
+        float[] ret = new float[data.length];
+        for (int i = 0; i < data.length; i++)
+            ret[i] = Float.parseFloat(data[i]);
+        return ret;
+    }
+}
@@ -0,0 +1,143 @@
+package net.minecraftforge.client.model.pipeline;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.client.renderer.VertexBuffer;
+import net.minecraft.client.renderer.block.model.BakedQuad;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Quads lit per second through the block lighters into a {@link VertexBuffer}, which is the per quad work of a
+ * chunk rebuild. The packed path is what {@link ForgeBlockModelRenderer} runs, the generic path hides
+ * {@link IPackedVertexConsumer} on both ends so every element goes through {@link IVertexConsumer#put} as before.
+ * Runs headless, there is no world: the flat lighter gets a fixed lightmap and the smooth one an empty light matrix.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main QuadLightingBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class QuadLightingBenchmark
+{
+    private static final int QUADS = 4096;
+
+    @Param({"packed", "generic"})
+    public String path;
+
+    @Param({"flat", "smooth"})
+    public String lighting;
+
+    @Param({"BLOCK", "ITEM"})
+    public String quadFormat;
+
+    private BakedQuad[] quads;
+    private VertexBuffer buffer;
+    private IVertexConsumer input;
+
+    @Setup
+    public void setup()
+    {
+        VertexFormat format = quadFormat.equals("ITEM") ? DefaultVertexFormats.ITEM : DefaultVertexFormats.BLOCK;
+        quads = createQuads(format, QUADS);
+
+        buffer = new VertexBuffer(0x200000);
+        VertexBufferConsumer consumer = new VertexBufferConsumer(buffer);
+        consumer.setOffset(BlockPos.ORIGIN);
+        VertexLighterFlat lighter;
+        if(lighting.equals("smooth"))
+        {
+            lighter = new VertexLighterSmoothAo(null);
+        }
+        else
+        {
+            lighter = new VertexLighterFlat(null)
+            {
+                @Override
+                protected void updateLightmap(float[] normal, float[] lightmap, float x, float y, float z)
+                {
+                    lightmap[0] = 15f * 0x20 / 0xFFFF;
+                    lightmap[1] = 15f * 0x20 / 0xFFFF;
+                }
+            };
+        }
+        if(path.equals("generic"))
+        {
+            lighter.setParent(new VertexTransformer(consumer));
+            input = new VertexTransformer(lighter);
+        }
+        else
+        {
+            lighter.setParent(consumer);
+            input = lighter;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUADS)
+    public VertexBuffer light()
+    {
+        // GL_QUADS
+        buffer.begin(7, DefaultVertexFormats.BLOCK);
+        for(BakedQuad quad : quads)
+        {
+            quad.pipe(input);
+        }
+        buffer.finishDrawing();
+        return buffer;
+    }
+
+    /**
+     * Random quads facing each side in turn, white and without tint.
+     */
+    static BakedQuad[] createQuads(VertexFormat format, int count)
+    {
+        BakedQuad[] quads = new BakedQuad[count];
+        Random rand = new Random(42);
+        int[] data = new int[format.getNextOffset()];
+        float[] vertex = new float[format.getElementCount() * 4];
+        for(int q = 0; q < count; q++)
+        {
+            EnumFacing side = EnumFacing.values()[q % 6];
+            for(int v = 0; v < 4; v++)
+            {
+                // position
+                vertex[0] = rand.nextFloat();
+                vertex[1] = rand.nextFloat();
+                vertex[2] = rand.nextFloat();
+                // color
+                vertex[4] = vertex[5] = vertex[6] = vertex[7] = 1;
+                // texture
+                vertex[8] = rand.nextFloat();
+                vertex[9] = rand.nextFloat();
+                // lightmap or normal
+                vertex[12] = side.getFrontOffsetX();
+                vertex[13] = side.getFrontOffsetY();
+                vertex[14] = side.getFrontOffsetZ();
+                LightUtil.packVertex(vertex, 0, data, format, v);
+            }
+            quads[q] = new BakedQuad(data.clone(), -1, side, null, true, format);
+        }
+        return quads;
+    }
+}
@@ -0,0 +1,93 @@
+package net.minecraftforge.common;
+
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraftforge.common.ForgeChunkManager.Ticket;
+import net.minecraftforge.common.ForgeChunkManager.Type;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+
+/**
+ * Force and unforce throughput of {@link ForcedChunkIndex} against the copy on write multimap it replaced,
+ * with every ticket already forcing one chunk of its own.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main ForcedChunkIndexBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ForcedChunkIndexBenchmark
+{
+    @Param({"100", "1000", "10000"})
+    public int ticketCount;
+
+    private Ticket[] tickets;
+    private ChunkCoordIntPair[] extra;
+    private ForcedChunkIndex index;
+    private ImmutableSetMultimap<ChunkCoordIntPair, Ticket> legacy;
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        tickets = new Ticket[ticketCount];
+        extra = new ChunkCoordIntPair[ticketCount];
+        index = new ForcedChunkIndex();
+        ImmutableSetMultimap.Builder<ChunkCoordIntPair, Ticket> builder = ImmutableSetMultimap.builder();
+        for (int x = 0; x < ticketCount; x++)
+        {
+            tickets[x] = new Ticket("bench", Type.NORMAL, null);
+            ChunkCoordIntPair pos = new ChunkCoordIntPair(x % 100, x / 100);
+            index.add(pos, tickets[x]);
+            builder.put(pos, tickets[x]);
+            extra[x] = new ChunkCoordIntPair(-1 - x % 100, x / 100);
+        }
+        legacy = builder.build();
+    }
+
+    @Benchmark
+    public boolean index()
+    {
+        int x = next++ % ticketCount;
+        index.add(extra[x], tickets[x]);
+        return index.remove(extra[x], tickets[x]);
+    }
+
+    @Benchmark
+    public boolean indexWithView()
+    {
+        int x = next++ % ticketCount;
+        index.add(extra[x], tickets[x]);
+        index.remove(extra[x], tickets[x]);
+        return index.asMultimap().isEmpty();
+    }
+
+    @Benchmark
+    public ImmutableSetMultimap<ChunkCoordIntPair, Ticket> legacy()
+    {
+        int x = next++ % ticketCount;
+        legacy = ImmutableSetMultimap.<ChunkCoordIntPair,Ticket>builder().putAll(legacy).put(extra[x], tickets[x]).build();
+        LinkedHashMultimap<ChunkCoordIntPair, Ticket> copy = LinkedHashMultimap.create(legacy);
+        copy.remove(extra[x], tickets[x]);
+        legacy = ImmutableSetMultimap.copyOf(copy);
+        return legacy;
+    }
+}
@@ -0,0 +1,149 @@
+package net.minecraftforge.common.capabilities;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.ResourceLocation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Lookups through {@link CapabilityDispatcher} against the linear scan it used before, for a tile entity
+ * with a number of attached {@link IStaticCapabilityProvider}s that each offer one capability on one side.
+ * Looks up the capability of the last provider, and one no provider offers, the common case for pipes probing neighbours.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main CapabilityDispatcherBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CapabilityDispatcherBenchmark
+{
+    @Param({"1", "2", "4", "8"})
+    public int providerCount;
+
+    private Capability<Object>[] capabilities;
+    private Capability<Object> missing;
+    private CapabilityDispatcher dispatcher;
+    private ICapabilityProvider[] scan;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setup()
+    {
+        capabilities = new Capability[providerCount];
+        scan = new ICapabilityProvider[providerCount];
+        Map<ResourceLocation, ICapabilityProvider> providers = Maps.newLinkedHashMap();
+        for (int x = 0; x < providerCount; x++)
+        {
+            capabilities[x] = create("bench" + x, x);
+            scan[x] = new Provider(capabilities[x]);
+            providers.put(new ResourceLocation("bench", "provider" + x), scan[x]);
+        }
+        missing = create("missing", providerCount);
+        dispatcher = new CapabilityDispatcher(providers);
+    }
+
+    private static Capability<Object> create(String name, int id)
+    {
+        return new Capability<Object>(name, new Capability.IStorage<Object>()
+        {
+            @Override
+            public NBTBase writeNBT(Capability<Object> capability, Object instance, EnumFacing side)
+            {
+                return null;
+            }
+
+            @Override
+            public void readNBT(Capability<Object> capability, Object instance, EnumFacing side, NBTBase nbt)
+            {
+            }
+        }, new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                return new Object();
+            }
+        }, id);
+    }
+
+    @Benchmark
+    public Object cachedHit()
+    {
+        return dispatcher.getCapability(capabilities[providerCount - 1], EnumFacing.NORTH);
+    }
+
+    @Benchmark
+    public Object cachedMiss()
+    {
+        return dispatcher.getCapability(missing, EnumFacing.NORTH);
+    }
+
+    @Benchmark
+    public Object scanHit()
+    {
+        return scan(capabilities[providerCount - 1], EnumFacing.NORTH);
+    }
+
+    @Benchmark
+    public Object scanMiss()
+    {
+        return scan(missing, EnumFacing.NORTH);
+    }
+
+    private <T> T scan(Capability<T> capability, EnumFacing facing)
+    {
+        for (ICapabilityProvider cap : scan)
+        {
+            T ret = cap.getCapability(capability, facing);
+            if (ret != null)
+            {
+                return ret;
+            }
+        }
+        return null;
+    }
+
+    private static class Provider implements IStaticCapabilityProvider
+    {
+        private final Capability<Object> capability;
+        private final Object instance = new Object();
+
+        private Provider(Capability<Object> capability)
+        {
+            this.capability = capability;
+        }
+
+        @Override
+        public boolean hasCapability(Capability<?> capability, EnumFacing facing)
+        {
+            return capability == this.capability && facing == EnumFacing.NORTH;
+        }
+
+        @Override
+        public <T> T getCapability(Capability<T> capability, EnumFacing facing)
+        {
+            return hasCapability(capability, facing) ? this.capability.<T>cast(instance) : null;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package net.minecraftforge.common.capabilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.ResourceLocation;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+public class CapabilityDispatcherTest
+{
+    private static final Capability<Object> FIRST = create("first", 0);
+    private static final Capability<Object> SECOND = create("second", 1);
+
+    private static Capability<Object> create(String name, int id)
+    {
+        return new Capability<Object>(name, new Capability.IStorage<Object>()
+        {
+            @Override
+            public NBTBase writeNBT(Capability<Object> capability, Object instance, EnumFacing side)
+            {
+                return null;
+            }
+
+            @Override
+            public void readNBT(Capability<Object> capability, Object instance, EnumFacing side, NBTBase nbt)
+            {
+            }
+        }, new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                return new Object();
+            }
+        }, id);
+    }
+
+    private static CapabilityDispatcher dispatch(ICapabilityProvider... providers)
+    {
+        Map<ResourceLocation, ICapabilityProvider> map = Maps.newLinkedHashMap();
+        for (int x = 0; x < providers.length; x++)
+        {
+            map.put(new ResourceLocation("test", "provider" + x), providers[x]);
+        }
+        return new CapabilityDispatcher(map);
+    }
+
+    @Test
+    public void dynamicProviderIsAskedAgain()
+    {
+        Provider provider = new Provider(FIRST);
+        CapabilityDispatcher dispatcher = dispatch(new StaticProvider(SECOND), provider);
+
+        provider.enabled = false;
+        assertFalse(dispatcher.hasCapability(FIRST, EnumFacing.NORTH));
+        assertNull(dispatcher.getCapability(FIRST, EnumFacing.NORTH));
+
+        provider.enabled = true;
+        assertTrue(dispatcher.hasCapability(FIRST, EnumFacing.NORTH));
+        assertSame(provider.instance, dispatcher.getCapability(FIRST, EnumFacing.NORTH));
+
+        provider.enabled = false;
+        assertFalse(dispatcher.hasCapability(FIRST, EnumFacing.NORTH));
+        assertNull(dispatcher.getCapability(FIRST, EnumFacing.NORTH));
+    }
+
+    @Test
+    public void earlierProviderKeepsPriority()
+    {
+        Provider dynamic = new Provider(FIRST);
+        StaticProvider fixed = new StaticProvider(FIRST);
+        CapabilityDispatcher dispatcher = dispatch(dynamic, fixed);
+
+        dynamic.enabled = false;
+        assertSame(fixed.instance, dispatcher.getCapability(FIRST, null));
+        dynamic.enabled = true;
+        assertSame(dynamic.instance, dispatcher.getCapability(FIRST, null));
+    }
+
+    @Test
+    public void staticRefusalsAreRemembered()
+    {
+        StaticProvider refusing = new StaticProvider(SECOND);
+        StaticProvider answering = new StaticProvider(FIRST);
+        answering.side = EnumFacing.UP;
+        CapabilityDispatcher dispatcher = dispatch(refusing, answering);
+
+        for (int x = 0; x < 5; x++)
+        {
+            assertSame(answering.instance, dispatcher.getCapability(FIRST, EnumFacing.UP));
+            assertTrue(dispatcher.hasCapability(FIRST, EnumFacing.UP));
+            assertNull(dispatcher.getCapability(FIRST, EnumFacing.DOWN));
+        }
+        // Once for each side
+        assertEquals(2, refusing.asked);
+        // Every time it answered, once for each refusal
+        assertEquals(11, answering.asked);
+    }
+
+    @Test
+    public void sidesAreSeparate()
+    {
+        Provider provider = new Provider(FIRST);
+        provider.side = EnumFacing.EAST;
+        CapabilityDispatcher dispatcher = dispatch(new StaticProvider(SECOND), provider);
+
+        assertTrue(dispatcher.hasCapability(FIRST, EnumFacing.EAST));
+        assertFalse(dispatcher.hasCapability(FIRST, EnumFacing.WEST));
+        provider.side = EnumFacing.WEST;
+        assertFalse(dispatcher.hasCapability(FIRST, EnumFacing.EAST));
+        assertTrue(dispatcher.hasCapability(FIRST, EnumFacing.WEST));
+    }
+
+    private static class Provider implements ICapabilityProvider
+    {
+        final Capability<Object> capability;
+        final Object instance = new Object();
+        boolean enabled = true;
+        // Null offers the capability on every side
+        EnumFacing side;
+        int asked;
+
+        Provider(Capability<Object> capability)
+        {
+            this.capability = capability;
+        }
+
+        @Override
+        public boolean hasCapability(Capability<?> capability, EnumFacing facing)
+        {
+            asked++;
+            return enabled && capability == this.capability && (side == null || side == facing);
+        }
+
+        @Override
+        public <T> T getCapability(Capability<T> capability, EnumFacing facing)
+        {
+            return hasCapability(capability, facing) ? this.capability.<T>cast(instance) : null;
+        }
+    }
+
+    private static class StaticProvider extends Provider implements IStaticCapabilityProvider
+    {
+        StaticProvider(Capability<Object> capability)
+        {
+            super(capability);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package net.minecraftforge.common.chunkio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.chunk.storage.RegionFile;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+public class ChunkSaveExecutorTest
+{
+    private File dir;
+
+    @Before
+    public void setup()
+    {
+        dir = Files.createTempDir();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        ChunkSaveExecutor.flush(dir);
+        RegionFileCache.clearRegionFileReferences();
+        for (File file : Files.fileTreeTraverser().postOrderTraversal(dir))
+        {
+            file.delete();
+        }
+    }
+
+    private static NBTTagCompound chunkData(int version)
+    {
+        NBTTagCompound level = new NBTTagCompound();
+        level.setInteger("Version", version);
+        NBTTagCompound nbt = new NBTTagCompound();
+        nbt.setTag("Level", level);
+        return nbt;
+    }
+
+    private NBTTagCompound readRegion(int x, int z) throws IOException
+    {
+        DataInputStream in = RegionFileCache.getChunkInputStream(dir, x, z);
+        if (in == null)
+        {
+            return null;
+        }
+        try
+        {
+            return CompressedStreamTools.read(in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    @Test
+    public void pendingUntilWritten() throws Exception
+    {
+        RegionFile region = RegionFileCache.createOrLoadRegionFile(dir, 3, 4);
+        // The worker writes under the region lock, holding it keeps the save pending
+        synchronized (region)
+        {
+            ChunkSaveExecutor.queueSave(dir, 3, 4, chunkData(1));
+            assertTrue(ChunkSaveExecutor.hasPendingSave(dir, 3, 4));
+            assertFalse(ChunkSaveExecutor.hasPendingSave(dir, 4, 3));
+            assertFalse(ChunkSaveExecutor.hasPendingSave(new File(dir, "DIM1"), 3, 4));
+            NBTTagCompound pending = ChunkSaveExecutor.getPendingSave(dir, 3, 4);
+            assertNotNull(pending);
+            assertEquals(1, pending.getCompoundTag("Level").getInteger("Version"));
+        }
+        ChunkSaveExecutor.flush(dir);
+        assertFalse(ChunkSaveExecutor.hasPendingSave(dir, 3, 4));
+        assertNull(ChunkSaveExecutor.getPendingSave(dir, 3, 4));
+        assertEquals(1, readRegion(3, 4).getCompoundTag("Level").getInteger("Version"));
+    }
+
+    @Test
+    public void newestSaveWins() throws Exception
+    {
+        RegionFile region = RegionFileCache.createOrLoadRegionFile(dir, 0, 0);
+        synchronized (region)
+        {
+            ChunkSaveExecutor.queueSave(dir, 0, 0, chunkData(1));
+            ChunkSaveExecutor.queueSave(dir, 0, 0, chunkData(2));
+            assertEquals(2, ChunkSaveExecutor.getPendingSave(dir, 0, 0).getCompoundTag("Level").getInteger("Version"));
+        }
+        ChunkSaveExecutor.flush(dir);
+        assertEquals(2, readRegion(0, 0).getCompoundTag("Level").getInteger("Version"));
+    }
+
+    @Test
+    public void flushOnlyWaitsForItsFolder() throws Exception
+    {
+        File other = new File(dir, "DIM-1");
+        RegionFile region = RegionFileCache.createOrLoadRegionFile(other, 0, 0);
+        synchronized (region)
+        {
+            ChunkSaveExecutor.queueSave(other, 0, 0, chunkData(1));
+            ChunkSaveExecutor.queueSave(dir, 5, 5, chunkData(1));
+            // Would never return if it waited for the save blocked on the other folder's region
+            ChunkSaveExecutor.flush(dir);
+            assertFalse(ChunkSaveExecutor.hasPendingSave(dir, 5, 5));
+            assertTrue(ChunkSaveExecutor.hasPendingSave(other, 0, 0));
+        }
+        ChunkSaveExecutor.flush(other);
+        assertFalse(ChunkSaveExecutor.hasPendingSave(other, 0, 0));
+    }
+}
@@ -0,0 +1,154 @@
+package net.minecraftforge.fml.common.asm.transformers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import net.minecraft.launchwrapper.IClassTransformer;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Headless class definition throughput with and without {@link TransformedClassCache}. The classes of the Guava jar
+ * are run through the access transformer with Forge's rules, the event subscriber transformer and the terminal
+ * transformer, which parses and writes every class like most coremod transformers do, and defined in a fresh class loader.
+ * The cached run indexes the cache file written during setup first and runs the wrapped transformers, which is what
+ * a launch with cache hits does.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main TransformedClassCacheBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TransformedClassCacheBenchmark
+{
+    private static final String FINGERPRINT = "bench";
+
+    @Param({"500", "2000"})
+    public int classCount;
+
+    private final List<String> names = Lists.newArrayList();
+    private final List<byte[]> classes = Lists.newArrayList();
+    private List<IClassTransformer> transformers;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        JarFile jar = new JarFile(new File(ImmutableList.class.getProtectionDomain().getCodeSource().getLocation().getPath()));
+        try
+        {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements() && names.size() < classCount)
+            {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class"))
+                {
+                    names.add(entry.getName().substring(0, entry.getName().length() - 6).replace('/', '.'));
+                    classes.add(IOUtils.toByteArray(jar.getInputStream(entry)));
+                }
+            }
+        }
+        finally
+        {
+            jar.close();
+        }
+        transformers = ImmutableList.of(new AccessTransformer(), new EventSubscriberTransformer(), new TerminalTransformer());
+        file = File.createTempFile("transformed", ".bin");
+        file.delete();
+        TransformedClassCache cache = TransformedClassCache.open(file, FINGERPRINT);
+        List<IClassTransformer> wrapped = cache.wrap(transformers);
+        for (int i = 0; i < names.size(); i++)
+        {
+            transform(wrapped, i);
+        }
+        cache.close();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Benchmark
+    public int transformed()
+    {
+        DefiningClassLoader loader = new DefiningClassLoader();
+        for (int i = 0; i < names.size(); i++)
+        {
+            loader.define(names.get(i), transform(transformers, i));
+        }
+        return loader.defined;
+    }
+
+    @Benchmark
+    public int cached() throws IOException
+    {
+        TransformedClassCache cache = TransformedClassCache.open(file, FINGERPRINT);
+        List<IClassTransformer> wrapped = cache.wrap(transformers);
+        DefiningClassLoader loader = new DefiningClassLoader();
+        for (int i = 0; i < names.size(); i++)
+        {
+            loader.define(names.get(i), transform(wrapped, i));
+        }
+        cache.close();
+        return loader.defined;
+    }
+
+    private byte[] transform(List<IClassTransformer> chain, int i)
+    {
+        byte[] bytes = classes.get(i);
+        for (IClassTransformer transformer : chain)
+        {
+            bytes = transformer.transform(names.get(i), names.get(i), bytes);
+        }
+        return bytes;
+    }
+
+    private static class DefiningClassLoader extends ClassLoader
+    {
+        int defined;
+
+        DefiningClassLoader()
+        {
+            super(TransformedClassCacheBenchmark.class.getClassLoader());
+        }
+
+        void define(String name, byte[] bytes)
+        {
+            try
+            {
+                defineClass(name, bytes, 0, bytes.length);
+                defined++;
+            }
+            catch (LinkageError e)
+            {
+                // a superclass that couldn't be loaded, same in both runs
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package net.minecraftforge.fml.common.discovery;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Explores the Guava jar as a mod candidate, parsing its classes on the calling thread and on a pool like
+ * {@link ModDiscoverer} does. Guava has few annotated classes, so most of them take the constant pool shortcut
+ * of {@link net.minecraftforge.fml.common.discovery.asm.ASMModParser}.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main JarDiscovererBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JarDiscovererBenchmark
+{
+    private File jar;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup()
+    {
+        jar = new File(ImmutableList.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int sequential()
+    {
+        ModCandidate candidate = new ModCandidate(jar, jar, ContainerType.JAR);
+        candidate.explore(new ASMDataTable());
+        return candidate.getClassList().size();
+    }
+
+    @Benchmark
+    public int parallel()
+    {
+        ModCandidate candidate = new ModCandidate(jar, jar, ContainerType.JAR);
+        candidate.explore(new ASMDataTable(), executor);
+        return candidate.getClassList().size();
+    }
+}
@@ -0,0 +1,88 @@
+package net.minecraftforge.fml.common.discovery;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraftforge.fml.common.DummyModContainer;
+import net.minecraftforge.fml.common.LoaderException;
+import net.minecraftforge.fml.common.ModContainer;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+public class ModDiscovererTest
+{
+    private static final int CANDIDATES = 8;
+
+    /**
+     * Candidates finish exploring in the reverse order they were found in, the later the faster.
+     */
+    private static class SlowCandidate extends ModCandidate
+    {
+        private final List<ModContainer> mods;
+        private final long delay;
+
+        SlowCandidate(int index, List<ModContainer> mods)
+        {
+            super(new File("mod" + index + ".jar"), new File("mod" + index + ".jar"), ContainerType.JAR);
+            this.mods = mods;
+            this.delay = (CANDIDATES - index) * 20;
+        }
+
+        @Override
+        public List<ModContainer> explore(ASMDataTable table, ExecutorService executor)
+        {
+            Uninterruptibles.sleepUninterruptibly(delay, TimeUnit.MILLISECONDS);
+            return mods;
+        }
+    }
+
+    @Test
+    public void modsAndContainersFollowCandidateOrder()
+    {
+        ModDiscoverer discoverer = new ModDiscoverer();
+        List<ModContainer> expected = Lists.newArrayList();
+        for (int i = 0; i < CANDIDATES; i++)
+        {
+            // Every other candidate holds two mods
+            List<ModContainer> mods = Lists.newArrayList();
+            for (int j = 0; j <= i % 2; j++)
+            {
+                mods.add(new DummyModContainer("mod" + i + "." + j));
+            }
+            expected.addAll(mods);
+            discoverer.addCandidate(new SlowCandidate(i, mods));
+        }
+
+        List<ModContainer> found = discoverer.identifyMods();
+
+        assertEquals(expected, found);
+        assertEquals(expected, discoverer.getASMTable().getContainers());
+    }
+
+    @Test
+    public void failedCandidateAddsNoContainers()
+    {
+        ModDiscoverer discoverer = new ModDiscoverer();
+        final ModContainer kept = new DummyModContainer("kept");
+        discoverer.addCandidate(new SlowCandidate(0, ImmutableList.of(kept)));
+        discoverer.addCandidate(new SlowCandidate(1, null)
+        {
+            @Override
+            public List<ModContainer> explore(ASMDataTable table, ExecutorService executor)
+            {
+                throw new LoaderException("corrupt");
+            }
+        });
+
+        assertEquals(ImmutableList.of(kept), discoverer.identifyMods());
+        assertEquals(ImmutableList.of(kept), discoverer.getASMTable().getContainers());
+    }
+}
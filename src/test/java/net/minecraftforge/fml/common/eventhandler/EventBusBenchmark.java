@@ -0,0 +1,124 @@
+package net.minecraftforge.fml.common.eventhandler;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Throwables;
+
+/**
+ * Compares {@link EventBus#post} against the dispatch it replaced. The baseline runs the old post loop over
+ * {@link LegacyListenerList} and {@link LegacyASMEventHandler}, renamed copies of the previous implementations,
+ * which walked the parent chain to check for rebuilds on every post and re-tested the canceled state per listener.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main EventBusBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EventBusBenchmark
+{
+    @Param({"0", "1", "10", "100"})
+    public int listenerCount;
+
+    private EventBus bus;
+    private LegacyListenerList legacy;
+    private BenchEvent event;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        Method callback = Subscriber.class.getMethod("onEvent", BenchEvent.class);
+        bus = new EventBus();
+        // Event and BenchEvent, the same two levels the real list has
+        legacy = new LegacyListenerList(new LegacyListenerList());
+        LegacyListenerList.resize(1);
+        for (int x = 0; x < listenerCount; x++)
+        {
+            Subscriber target = new Subscriber();
+            bus.register(BenchEvent.class, target, callback, null);
+            LegacyASMEventHandler listener = new LegacyASMEventHandler(target, callback, null);
+            legacy.register(0, listener.getPriority(), listener);
+        }
+        event = new BenchEvent();
+    }
+
+    @Benchmark
+    public boolean snapshot()
+    {
+        return bus.post(event);
+    }
+
+    /**
+     * The previous {@link EventBus#post}, over the copied listener list.
+     */
+    @Benchmark
+    public boolean legacy()
+    {
+        IEventListener[] listeners = legacy.getListeners(0);
+        int index = 0;
+        try
+        {
+            for (; index < listeners.length; index++)
+            {
+                listeners[index].invoke(event);
+            }
+        }
+        catch (Throwable throwable)
+        {
+            Throwables.propagate(throwable);
+        }
+        return (event.isCancelable() ? event.isCanceled() : false);
+    }
+
+    /**
+     * Stand in for the listener list injected by the EventSubscriptionTransformer at runtime.
+     */
+    public static class BenchEvent extends Event
+    {
+        private static ListenerList LISTENER_LIST;
+
+        @Override
+        protected void setup()
+        {
+            super.setup();
+            if (LISTENER_LIST != null)
+            {
+                return;
+            }
+            LISTENER_LIST = new ListenerList(super.getListenerList());
+        }
+
+        @Override
+        public ListenerList getListenerList()
+        {
+            return LISTENER_LIST;
+        }
+    }
+
+    public static class Subscriber
+    {
+        public int calls;
+
+        @SubscribeEvent
+        public void onEvent(BenchEvent event)
+        {
+            calls++;
+        }
+    }
+}
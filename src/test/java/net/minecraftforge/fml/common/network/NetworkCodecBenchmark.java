@@ -0,0 +1,164 @@
+package net.minecraftforge.fml.common.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.common.network.internal.FMLBatchedPayload;
+import net.minecraftforge.fml.common.network.internal.FMLProxyPacket;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.SimpleIndexedCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Encode, decode and flush throughput of the SimpleNetworkWrapper codec, run through an EmbeddedChannel.
+ * The legacy benchmarks repeat the old per message work: an unpooled growable buffer per encode and
+ * one flush per message instead of one batch per tick.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main NetworkCodecBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class NetworkCodecBenchmark
+{
+    @Param({"1", "16", "256"})
+    public int messagesPerTick;
+
+    private EmbeddedChannel channel;
+    private BenchMessage message;
+    private FMLProxyPacket encoded;
+    private List<FMLProxyPacket> tick;
+
+    @Setup
+    public void setup()
+    {
+        SimpleIndexedCodec codec = new SimpleIndexedCodec();
+        codec.addDiscriminator(0, BenchMessage.class);
+        channel = new EmbeddedChannel(codec);
+        message = new BenchMessage();
+        channel.writeOutbound(message);
+        encoded = (FMLProxyPacket)channel.readOutbound();
+        tick = Lists.newArrayList();
+        for (int x = 0; x < messagesPerTick; x++)
+        {
+            tick.add(new FMLProxyPacket(new PacketBuffer(encoded.payload().duplicate()), "bench"));
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        channel.finish();
+    }
+
+    @Benchmark
+    public Object encode()
+    {
+        channel.writeOutbound(message);
+        return channel.readOutbound();
+    }
+
+    @Benchmark
+    public Object legacyEncode() throws Exception
+    {
+        PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
+        buffer.writeByte(0);
+        message.toBytes(buffer);
+        return new FMLProxyPacket(buffer, "bench");
+    }
+
+    @Benchmark
+    public Object decode()
+    {
+        channel.writeInbound(encoded);
+        return channel.readInbound();
+    }
+
+    @Benchmark
+    public int flushEach()
+    {
+        int count = 0;
+        for (int x = 0; x < messagesPerTick; x++)
+        {
+            channel.writeAndFlush(message);
+            count += channel.outboundMessages().size();
+            channel.outboundMessages().clear();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int flushBatch()
+    {
+        for (int x = 0; x < messagesPerTick; x++)
+        {
+            channel.write(message);
+        }
+        channel.flush();
+        List<FMLProxyPacket> packets = Lists.newArrayListWithCapacity(messagesPerTick);
+        for (Object msg : channel.outboundMessages())
+        {
+            packets.add((FMLProxyPacket)msg);
+        }
+        channel.outboundMessages().clear();
+        return FMLBatchedPayload.pack(packets).payload().readableBytes();
+    }
+
+    @Benchmark
+    public int unpackBatch()
+    {
+        return FMLBatchedPayload.unpack(FMLBatchedPayload.pack(tick).payload()).size();
+    }
+
+    public static class BenchMessage implements IMessage
+    {
+        private int x = 12345;
+        private int y = 64;
+        private int z = -6789;
+        private long energy = 1234567890L;
+        private String name = "machine";
+
+        @Override
+        public void fromBytes(ByteBuf buf)
+        {
+            x = buf.readInt();
+            y = buf.readUnsignedByte();
+            z = buf.readInt();
+            energy = buf.readLong();
+            name = ByteBufUtils.readUTF8String(buf);
+        }
+
+        @Override
+        public void toBytes(ByteBuf buf)
+        {
+            buf.writeInt(x);
+            buf.writeByte(y);
+            buf.writeInt(z);
+            buf.writeLong(energy);
+            ByteBufUtils.writeUTF8String(buf, name);
+        }
+    }
+}
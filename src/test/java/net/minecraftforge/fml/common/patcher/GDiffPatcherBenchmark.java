@@ -0,0 +1,178 @@
+package net.minecraftforge.fml.common.patcher;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Pack200;
+
+import net.minecraftforge.fml.repackage.com.nothome.delta.Delta;
+import net.minecraftforge.fml.repackage.com.nothome.delta.GDiffPatcher;
+
+import org.apache.commons.io.IOUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteStreams;
+
+import LZMA.LzmaInputStream;
+
+/**
+ * Applies a whole binary patch set with the stream based {@link GDiffPatcher#patch(byte[], byte[])} that
+ * {@link ClassPatchManager} used before, and with {@link GDiffPatcher#patchDirect(byte[], byte[])} that it uses now.
+ *
+ * The real patch set needs the vanilla jar its patches were made against:
+ * -Dbench.vanillaJar=minecraft.jar, optionally -Dbench.side=server and -Dbench.binpatches=binpatches.pack.lzma,
+ * by default it is read from the classpath like ClassPatchManager does. Without a vanilla jar the patches are made
+ * with {@link Delta} from the classes of the Guava jar to the same classes rewritten by ASM.
+ *
+ * Run with the JMH runner from the test classpath:
+ * java -cp ... org.openjdk.jmh.Main GDiffPatcherBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GDiffPatcherBenchmark
+{
+    private final List<byte[]> sources = Lists.newArrayList();
+    private final List<byte[]> patches = Lists.newArrayList();
+    private final GDiffPatcher patcher = new GDiffPatcher();
+
+    @Setup
+    public void setup() throws IOException
+    {
+        String vanillaJar = System.getProperty("bench.vanillaJar");
+        if (vanillaJar != null)
+        {
+            readPatchSet(new JarFile(vanillaJar));
+        }
+        else
+        {
+            makePatches();
+        }
+    }
+
+    private void readPatchSet(JarFile vanilla) throws IOException
+    {
+        String side = System.getProperty("bench.side", "client").toLowerCase(Locale.ENGLISH);
+        String binpatches = System.getProperty("bench.binpatches");
+        InputStream in = binpatches != null ? new FileInputStream(binpatches) : getClass().getResourceAsStream("/binpatches.pack.lzma");
+        if (in == null)
+        {
+            throw new IOException("No binpatches.pack.lzma on the classpath, set -Dbench.binpatches");
+        }
+        ByteArrayOutputStream jarBytes = new ByteArrayOutputStream();
+        JarOutputStream jos = new JarOutputStream(jarBytes);
+        Pack200.newUnpacker().unpack(new LzmaInputStream(in), jos);
+        jos.close();
+        JarInputStream jis = new JarInputStream(new ByteArrayInputStream(jarBytes.toByteArray()));
+        try
+        {
+            JarEntry entry;
+            while ((entry = jis.getNextJarEntry()) != null)
+            {
+                if (!entry.getName().startsWith("binpatch/" + side + "/"))
+                {
+                    continue;
+                }
+                ByteArrayDataInput input = ByteStreams.newDataInput(ByteStreams.toByteArray(jis));
+                input.readUTF();
+                String sourceClassName = input.readUTF();
+                input.readUTF();
+                boolean exists = input.readBoolean();
+                if (exists)
+                {
+                    input.readInt();
+                }
+                byte[] patch = new byte[input.readInt()];
+                input.readFully(patch);
+                JarEntry vanillaEntry = vanilla.getJarEntry(sourceClassName.replace('.', '/') + ".class");
+                if (exists && vanillaEntry == null)
+                {
+                    continue;
+                }
+                sources.add(exists ? IOUtils.toByteArray(vanilla.getInputStream(vanillaEntry)) : new byte[0]);
+                patches.add(patch);
+            }
+        }
+        finally
+        {
+            jis.close();
+            vanilla.close();
+        }
+    }
+
+    private void makePatches() throws IOException
+    {
+        JarFile jar = new JarFile(new File(ImmutableList.class.getProtectionDomain().getCodeSource().getLocation().getPath()));
+        try
+        {
+            Delta delta = new Delta();
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements() && sources.size() < 1000)
+            {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class"))
+                {
+                    byte[] source = IOUtils.toByteArray(jar.getInputStream(entry));
+                    ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+                    new ClassReader(source).accept(writer, 0);
+                    sources.add(source);
+                    patches.add(delta.compute(source, writer.toByteArray()));
+                }
+            }
+        }
+        finally
+        {
+            jar.close();
+        }
+    }
+
+    @Benchmark
+    public int stream() throws IOException
+    {
+        int size = 0;
+        for (int i = 0; i < patches.size(); i++)
+        {
+            size += patcher.patch(sources.get(i), patches.get(i)).length;
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int direct() throws IOException
+    {
+        int size = 0;
+        for (int i = 0; i < patches.size(); i++)
+        {
+            size += GDiffPatcher.patchDirect(sources.get(i), patches.get(i)).length;
+        }
+        return size;
+    }
+}